@@ -0,0 +1,26 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.LocaleResolver;
+import org.springframework.web.servlet.i18n.AcceptHeaderLocaleResolver;
+
+import java.util.List;
+import java.util.Locale;
+
+@Configuration
+public class LocaleConfig {
+
+    /**
+     * Locale của request = Accept-Language (chỉ nhận ngôn ngữ có template mail);
+     * không gửi header → mặc định, không lấy locale của JVM server.
+     */
+    @Bean
+    public LocaleResolver localeResolver(@Value("${app.mail.default-locale:vi}") String defaultLanguage) {
+        AcceptHeaderLocaleResolver resolver = new AcceptHeaderLocaleResolver();
+        resolver.setDefaultLocale(Locale.forLanguageTag(defaultLanguage));
+        resolver.setSupportedLocales(List.of(Locale.forLanguageTag(defaultLanguage), Locale.ENGLISH));
+        return resolver;
+    }
+}
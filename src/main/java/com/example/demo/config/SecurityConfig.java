@@ -1,13 +1,14 @@
 package com.example.demo.config;
 
 import com.example.demo.config.jwt.JwtAuthenticationFilter;
+import com.example.demo.service.passwordService.PinnedCostPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -15,6 +16,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -22,10 +24,21 @@ import java.util.List;
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
 
-    // 🔐 Encode password
+    // 🔐 Encode password (BCrypt, cost pin trong config; calibrate chỉ log cost gợi ý)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${app.password-hashing.calibrate:false}") boolean calibrate,
+            @Value("${app.password-hashing.cost:10}") int cost,
+            @Value("${app.password-hashing.target-latency-ms:250}") long targetLatencyMs,
+            @Value("${app.password-hashing.min-cost:10}") int minCost,
+            @Value("${app.password-hashing.max-cost:14}") int maxCost
+    ) {
+        if (calibrate) {
+            PinnedCostPasswordEncoder.recommendCost(
+                    Duration.ofMillis(targetLatencyMs), minCost, maxCost, cost
+            );
+        }
+        return new PinnedCostPasswordEncoder(cost);
     }
 
     // 🌐 CORS config (QUAN TRỌNG)
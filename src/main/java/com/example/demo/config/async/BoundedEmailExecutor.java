@@ -0,0 +1,179 @@
+package com.example.demo.config.async;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor gửi mail có giới hạn, thay cho ThreadPoolTaskExecutor + CallerRunsPolicy
+ * (queue đầy → thread gọi phải tự gửi SMTP, latency request = latency SMTP).
+ *
+ * - Tối đa {@code maxConcurrent} task chạy cùng lúc (virtual thread / task, hoặc pool platform thread)
+ * - Tối đa {@code maxQueued} task chờ; vượt nữa → {@link OverflowStrategy}, thread gọi không bao giờ chạy task
+ * - Không gộp task ở đây: task bị thay sẽ không bao giờ chạy, bên chờ nó treo → gộp mail làm ở outbox (coalesceKey)
+ */
+@Slf4j
+public class BoundedEmailExecutor implements Executor, AutoCloseable {
+
+    public enum OverflowStrategy {
+        SPILL,      // task Spillable tự trả việc về hàng đợi bền (outbox), task khác → reject
+        SHED        // reject ngay (RejectedExecutionException) + đếm
+    }
+
+    /**
+     * Task biết tự quay về hàng đợi bền khi executor đầy (không mất việc).
+     */
+    public interface Spillable extends Runnable {
+        void spill();
+    }
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final OverflowStrategy strategy;
+    private final ExecutorService threads;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+    private int active;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+
+    public BoundedEmailExecutor(
+            String name, int maxConcurrent, int maxQueued, OverflowStrategy strategy, boolean virtualThreads
+    ) {
+        this.name = name;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.strategy = strategy;
+        this.threads = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory())
+                : Executors.newCachedThreadPool(Thread.ofPlatform().name(name + "-", 0).daemon(true).factory());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submitted.increment();
+
+        boolean runNow = false;
+        synchronized (lock) {
+            if (active < maxConcurrent) {
+                active++;
+                runNow = true;
+            } else if (queue.size() < maxQueued) {
+                queue.addLast(task);
+                return;
+            }
+        }
+
+        if (runNow) {
+            start(task);
+        } else {
+            overflow(task);
+        }
+    }
+
+    public Stats stats() {
+        int queued;
+        int running;
+        synchronized (lock) {
+            queued = queue.size();
+            running = active;
+        }
+        return new Stats(
+                name, strategy, maxConcurrent, maxQueued, running, queued,
+                submitted.sum(), completed.sum(), failed.sum(),
+                rejected.sum(), spilled.sum()
+        );
+    }
+
+    @Override
+    public void close() {
+        threads.shutdown();
+        try {
+            if (!threads.awaitTermination(10, TimeUnit.SECONDS)) {
+                threads.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            threads.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // =========================
+    // 🚦 OVERFLOW (ngoài lock)
+    // =========================
+    private void overflow(Runnable task) {
+        if (strategy == OverflowStrategy.SPILL && task instanceof Spillable spillable) {
+            spilled.increment();
+            spillable.spill();
+            return;
+        }
+        rejected.increment();
+        throw new RejectedExecutionException(name + " saturated (" + maxConcurrent + " running, "
+                + maxQueued + " queued, strategy=" + strategy + ")");
+    }
+
+    private void start(Runnable task) {
+        try {
+            threads.execute(() -> runLoop(task));
+        } catch (RejectedExecutionException e) {
+            // Đang shutdown
+            synchronized (lock) {
+                active--;
+            }
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    // Chạy xong task thì lấy tiếp task đang chờ trên cùng thread (giữ nguyên slot active)
+    private void runLoop(Runnable first) {
+        Runnable task = first;
+        while (task != null) {
+            try {
+                task.run();
+                completed.increment();
+            } catch (Throwable t) {
+                failed.increment();
+                log.error("[{}] task failed: {}", name, t.toString(), t);
+            }
+            task = next();
+        }
+    }
+
+    private Runnable next() {
+        synchronized (lock) {
+            Runnable task = queue.pollFirst();
+            if (task == null) {
+                active--;
+            }
+            return task;
+        }
+    }
+
+    public record Stats(
+            String name,
+            OverflowStrategy strategy,
+            int maxConcurrent,
+            int maxQueued,
+            int activeSends,
+            int queueDepth,
+            long submitted,
+            long completed,
+            long failed,
+            long rejected,
+            long spilled
+    ) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.config.jwt;
 
-import com.example.demo.service.redisConfig.RedisService;
+import com.example.demo.service.redisConfig.blacklist.AccessTokenBlacklistService;
+import com.example.demo.service.redisConfig.revocation.TokenRevocationService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,8 +22,9 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
-    private final RedisService redisService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AccessTokenBlacklistService accessTokenBlacklist;
+    private final TokenRevocationService tokenRevocation;
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
@@ -59,27 +61,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = authHeader.substring(7);
 
         // =========================
-        // 3️⃣ Validate JWT (chữ ký, exp, format)
+        // 3️⃣ Validate JWT (chữ ký, exp, format) - qua cache, miss mới parse
         // =========================
-        if (!jwtService.validateToken(token)) {
+        VerifiedToken verified = verifiedTokenCache.verify(token).orElse(null);
+        if (verified == null || verified.purpose() != null) {
+            // Token lỗi hoặc token verify/reset-password → không authenticate
             filterChain.doFilter(request, response);
             return;
         }
 
         // =========================
-        // 4️⃣ Check blacklist (LOGOUT)
+        // 4️⃣ Check thu hồi (LOGOUT / đổi mật khẩu) - tầng local, không gọi Redis
         // =========================
-        String jti = jwtService.extractJti(token);
-        if (redisService.isAccessTokenBlacklisted(jti)) {
+        if (accessTokenBlacklist.isBlacklisted(verified.jti())
+                || tokenRevocation.isRevoked(verified.subject(), verified.issuedAt())) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             return;
         }
 
         // =========================
-        // 5️⃣ Extract userId + roles
+        // 5️⃣ userId + roles (đã có sẵn trong VerifiedToken)
         // =========================
-        String userId = jwtService.extractUserId(token);
-        List<String> roles = jwtService.extractRoles(token);
+        String userId = verified.subject();
+        List<String> roles = verified.roles();
 
         // =========================
         // 6️⃣ Chưa authenticate thì mới set
@@ -14,4 +14,13 @@ public class JwtProperties {
     private long accessTokenExpiration;
     private long refreshTokenExpiration;
     private long verifyTokenExpiration; // added to map verify-token-expiration from config
+
+    private Cache cache = new Cache();
+
+    @Getter
+    @Setter
+    public static class Cache {
+        /** Số token đã verify tối đa giữ trong RAM (0 = tắt cache) */
+        private int maxSize = 10_000;
+    }
 }
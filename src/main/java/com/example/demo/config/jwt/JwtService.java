@@ -1,17 +1,22 @@
 package com.example.demo.config.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -20,6 +25,20 @@ public class JwtService {
 
     private final JwtProperties jwtProperties;
 
+    // Key + parser dựng 1 lần, dùng lại cho mọi request (JwtParser là immutable, thread-safe)
+    private Key signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(
+                jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8)
+        );
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
     public Duration getAccessTokenExpiration() {
         return Duration.ofMillis(jwtProperties.getAccessTokenExpiration());
     }
@@ -31,11 +50,6 @@ public class JwtService {
     public Duration getVerifyTokenExpiration() {
         return Duration.ofMillis(jwtProperties.getVerifyTokenExpiration());
     }
-    private Key signingKey() {
-        return Keys.hmacShaKeyFor(
-                jwtProperties.getSecret().getBytes(StandardCharsets.UTF_8)
-        );
-    }
 
     // =========================
     // 🔐 ACCESS TOKEN
@@ -49,7 +63,7 @@ public class JwtService {
                 .claim("roles", roles)
                 .setIssuedAt(now)
                 .setExpiration(new Date(now.getTime() + jwtProperties.getAccessTokenExpiration()))
-                .signWith(signingKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -64,7 +78,7 @@ public class JwtService {
                 .setSubject(userId)
                 .setIssuedAt(now)
                 .setExpiration(new Date(now.getTime() + jwtProperties.getRefreshTokenExpiration()))
-                .signWith(signingKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -77,10 +91,10 @@ public class JwtService {
         return Jwts.builder()
                 .setId(UUID.randomUUID().toString())
                 .setSubject(userId)
-                .claim("purpose", "verify")
+                .claim("purpose", VerifiedToken.PURPOSE_VERIFY)
                 .setIssuedAt(now)
                 .setExpiration(new Date(now.getTime() + jwtProperties.getVerifyTokenExpiration()))
-                .signWith(signingKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -93,70 +107,55 @@ public class JwtService {
         return Jwts.builder()
                 .setId(UUID.randomUUID().toString())
                 .setSubject(email)
-                .claim("purpose", "reset-password")
+                .claim("purpose", VerifiedToken.PURPOSE_RESET_PASSWORD)
                 .setIssuedAt(now)
                 .setExpiration(new Date(now.getTime() + 10 * 60 * 1000)) // 10 phút
-                .signWith(signingKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     // =========================
-    // 📤 EXTRACT
+    // ✅ VERIFY (parse 1 lần duy nhất)
     // =========================
-    public String extractUserId(String token) {
-        return extractClaims(token).getSubject();
-    }
-
-    public String extractEmail(String token) {
-        return extractClaims(token).getSubject();
-    }
-
-    public String extractJti(String token) {
-        return extractClaims(token).getId();
-    }
-
-    public List<String> extractRoles(String token) {
-        return extractClaims(token).get("roles", List.class);
-    }
 
-    public String extractPurpose(String token) {
-        return extractClaims(token).get("purpose", String.class);
-    }
-
-    // =========================
-    // ⏱️ TTL
-    // =========================
-    public long getRemainingTime(String token) {
-        Date expiration = extractClaims(token).getExpiration();
-        return expiration.getTime() - System.currentTimeMillis();
+    /**
+     * Verify chữ ký + exp và đọc toàn bộ claims trong một lần parse.
+     *
+     * @return Optional.empty() nếu token sai chữ ký, hết hạn hoặc sai format
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(toVerifiedToken(parser.parseClaimsJws(token).getBody()));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
 
-    public Duration getRemainingDuration(String token) {
-        return Duration.ofMillis(getRemainingTime(token));
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.getId(),
+                extractRoles(claims),
+                claims.get("purpose", String.class),
+                toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration())
+        );
     }
 
-
-
-    // =========================
-    // ✅ VALIDATE
-    // =========================
-    public boolean validateToken(String token) {
-        try {
-            extractClaims(token);
-            return true;
-        } catch (Exception e) {
-            return false;
+    private static List<String> extractRoles(Claims claims) {
+        Object roles = claims.get("roles");
+        if (!(roles instanceof List<?> list)) {
+            return List.of();
         }
+        return list.stream()
+                .map(String::valueOf)
+                .toList();
     }
 
-    // =========================
-    // 🔍 PARSE
-    // =========================
-    private Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
     }
 }
@@ -0,0 +1,47 @@
+package com.example.demo.config.jwt;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Kết quả của một lần verify JWT (chữ ký + exp đã được kiểm tra).
+ *
+ * @param subject   userId (access / refresh / verify) hoặc email (reset password)
+ * @param jti       token id
+ * @param roles     roles của access token, rỗng với các loại token khác
+ * @param purpose   "verify" | "reset-password" | null (access / refresh)
+ * @param issuedAt  thời điểm phát hành
+ * @param expiresAt thời điểm hết hạn
+ */
+public record VerifiedToken(
+        String subject,
+        String jti,
+        List<String> roles,
+        String purpose,
+        Instant issuedAt,
+        Instant expiresAt
+) {
+
+    public static final String PURPOSE_VERIFY = "verify";
+    public static final String PURPOSE_RESET_PASSWORD = "reset-password";
+
+    public boolean hasPurpose(String expected) {
+        return expected.equals(purpose);
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+
+    /**
+     * Thời gian sống còn lại (không âm).
+     */
+    public Duration remaining() {
+        if (expiresAt == null) {
+            return Duration.ZERO;
+        }
+        Duration left = Duration.between(Instant.now(), expiresAt);
+        return left.isNegative() ? Duration.ZERO : left;
+    }
+}
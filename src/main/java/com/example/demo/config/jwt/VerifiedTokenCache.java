@@ -0,0 +1,136 @@
+package com.example.demo.config.jwt;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache in-memory các access token đã verify, đặt trước {@link JwtService}.
+ *
+ * - Key = SHA-256 của raw token (không giữ token gốc trong RAM)
+ * - Không bao giờ trả về token đã quá exp
+ * - Giới hạn số entry theo jwt.cache.max-size
+ * - Chỉ cache token hợp lệ; blacklist vẫn được check ở filter sau bước này
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final JwtService jwtService;
+    private final JwtProperties jwtProperties;
+
+    private final Map<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public Optional<VerifiedToken> verify(String token) {
+        int maxSize = jwtProperties.getCache().getMaxSize();
+        if (maxSize <= 0 || token == null || token.isBlank()) {
+            return jwtService.verify(token);
+        }
+
+        String key = hash(token);
+        Instant now = Instant.now();
+
+        VerifiedToken cached = entries.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            if (entries.remove(key, cached)) {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        Optional<VerifiedToken> verified = jwtService.verify(token);
+        verified.ifPresent(t -> put(key, t, now, maxSize));
+        return verified;
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    // =========================
+    // 🧹 BOUNDING
+    // =========================
+    private void put(String key, VerifiedToken token, Instant now, int maxSize) {
+        if (entries.size() >= maxSize) {
+            makeRoom(now, maxSize);
+        }
+        entries.put(key, token);
+    }
+
+    /**
+     * Xoá token hết hạn trước; nếu vẫn đầy thì bỏ bớt ~10% entry bất kỳ.
+     * Chỉ 1 thread dọn tại một thời điểm, các thread khác ghi tiếp (vượt max tạm thời không đáng kể).
+     */
+    private void makeRoom(Instant now, int maxSize) {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            entries.entrySet().removeIf(e -> {
+                boolean expired = e.getValue().isExpired(now);
+                if (expired) evictions.increment();
+                return expired;
+            });
+
+            int toEvict = entries.size() - maxSize + Math.max(1, maxSize / 10);
+            Iterator<String> it = entries.keySet().iterator();
+            while (toEvict > 0 && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+                toEvict--;
+            }
+
+            log.debug("[JWT_CACHE] sweep done, size={}", entries.size());
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private static String hash(String token) {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        byte[] bytes = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+
+        @JsonProperty("hitRatio")
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+}
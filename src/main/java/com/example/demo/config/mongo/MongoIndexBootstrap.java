@@ -0,0 +1,189 @@
+package com.example.demo.config.mongo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Khai báo + kiểm tra index Mongo lúc startup.
+ *
+ * - Index lấy từ @Indexed / @CompoundIndex trên các @Document
+ * - So với index thực tế trên collection: thiếu → tạo / báo,
+ *   lệch (key, unique, expireAfterSeconds, partialFilterExpression) → báo
+ * - Chạy khi mọi singleton đã khởi tạo xong, TRƯỚC khi web server nhận request
+ *   → mode fail thực sự dừng app trước khi phục vụ traffic
+ * - Mode:
+ *   + create   : tạo index thiếu, lệch thì chỉ log (không tự drop)
+ *   + validate : chỉ log
+ *   + fail     : thiếu hoặc lệch → dừng app
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexBootstrap implements SmartInitializingSingleton {
+
+    public enum Mode { CREATE, VALIDATE, FAIL }
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    @Value("${app.mongo.indexes.mode:create}")
+    private String mode;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        ensureIndexes();
+    }
+
+    public void ensureIndexes() {
+        Mode current = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        List<String> problems = new ArrayList<>();
+
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                continue;
+            }
+
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+            Map<String, IndexInfo> existing = indexOps.getIndexInfo().stream()
+                    .collect(Collectors.toMap(IndexInfo::getName, Function.identity()));
+
+            for (IndexDefinition definition : resolver.resolveIndexFor(entity.getType())) {
+                String problem = check(entity.getCollection(), definition, existing);
+                if (problem == null) {
+                    continue;
+                }
+
+                if (current == Mode.CREATE && problem.startsWith("missing")) {
+                    create(entity.getCollection(), indexOps, definition, problems);
+                } else {
+                    problems.add(problem);
+                }
+            }
+        }
+
+        if (problems.isEmpty()) {
+            log.info("✅ Mongo indexes verified (mode={})", current);
+            return;
+        }
+
+        problems.forEach(p -> log.warn("[MONGO_INDEX] {}", p));
+
+        if (current == Mode.FAIL) {
+            throw new IllegalStateException("Mongo indexes out of date: " + problems);
+        }
+    }
+
+    // =========================
+    // 🔍 COMPARE
+    // =========================
+    private String check(String collection, IndexDefinition definition, Map<String, IndexInfo> existing) {
+        Document options = definition.getIndexOptions();
+        String name = options.getString("name");
+        boolean unique = Boolean.TRUE.equals(options.get("unique"));
+
+        IndexInfo actual = existing.get(name);
+        if (actual == null) {
+            return "missing index " + collection + "." + name + " " + definition.getIndexKeys().toJson();
+        }
+
+        Map<String, String> expectedKeys = new LinkedHashMap<>();
+        definition.getIndexKeys().forEach((key, value) -> expectedKeys.put(key, direction(value)));
+
+        Map<String, String> actualKeys = new LinkedHashMap<>();
+        for (IndexField field : actual.getIndexFields()) {
+            actualKeys.put(field.getKey(), direction(field));
+        }
+
+        Long expectedTtl = options.get("expireAfterSeconds") instanceof Number n ? n.longValue() : null;
+        Long actualTtl = actual.getExpireAfter().map(Duration::getSeconds).orElse(null);
+
+        Document expectedFilter = filter(options.get("partialFilterExpression"));
+        Document actualFilter = filter(actual.getPartialFilterExpression());
+
+        List<String> diffs = new ArrayList<>();
+        if (!expectedKeys.equals(actualKeys)) {
+            diffs.add("keys expected=" + expectedKeys + " found=" + actualKeys);
+        }
+        if (unique != actual.isUnique()) {
+            diffs.add("unique expected=" + unique + " found=" + actual.isUnique());
+        }
+        if (!Objects.equals(expectedTtl, actualTtl)) {
+            diffs.add("expireAfterSeconds expected=" + expectedTtl + " found=" + actualTtl);
+        }
+        if (!Objects.equals(expectedFilter, actualFilter)) {
+            diffs.add("partialFilterExpression expected=" + json(expectedFilter) + " found=" + json(actualFilter));
+        }
+
+        if (diffs.isEmpty()) {
+            return null;
+        }
+        return "mismatched index " + collection + "." + name + ": " + String.join(", ", diffs);
+    }
+
+    private void create(String collection, IndexOperations indexOps, IndexDefinition definition, List<String> problems) {
+        String name = definition.getIndexOptions().getString("name");
+        try {
+            indexOps.ensureIndex(definition);
+            log.info("🛠️ Created index {}.{}", collection, name);
+        } catch (RuntimeException e) {
+            // Ví dụ: dữ liệu đang trùng → không tạo được unique index
+            problems.add("cannot create index " + collection + "." + name + ": " + e.getMessage());
+        }
+    }
+
+    // Chuẩn hoá filter (Document từ annotation / JSON từ server) qua cùng 1 lần parse để so sánh
+    private static Document filter(Object value) {
+        if (value instanceof Document document) {
+            return Document.parse(document.toJson());
+        }
+        if (value instanceof String json) {
+            return Document.parse(json);
+        }
+        return null;
+    }
+
+    private static String json(Document document) {
+        return document != null ? document.toJson() : null;
+    }
+
+    // Index đặc biệt (2dsphere, text, hashed) chỉ so tên field, không so loại
+    private static String direction(Object value) {
+        if (value instanceof Number number) {
+            return number.intValue() < 0 ? "-1" : "1";
+        }
+        return "special";
+    }
+
+    private static String direction(IndexField field) {
+        if (field.getDirection() != null) {
+            return field.getDirection() == Sort.Direction.DESC ? "-1" : "1";
+        }
+        return "special";
+    }
+}
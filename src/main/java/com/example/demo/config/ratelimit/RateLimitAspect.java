@@ -0,0 +1,215 @@
+package com.example.demo.config.ratelimit;
+
+import com.example.demo.exception.BusinessException;
+import com.example.demo.exception.CommonError;
+import com.example.demo.service.redisConfig.rate_limit.LocalRateLimitTier;
+import com.example.demo.service.redisConfig.rate_limit.RateLimitDecision;
+import com.example.demo.service.redisConfig.rate_limit.RedisRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Thực thi {@link RateLimited} cho controller method.
+ *
+ * - Tầng local ({@link LocalRateLimitTier}) chặn trước: key đã bị Redis khoá hoặc burst vượt
+ *   chính cấu hình của rule → từ chối ngay, không gọi Redis
+ * - Mỗi rule còn lại = 1 round trip Redis (Lua script, atomic)
+ * - Set header RateLimit-Limit / RateLimit-Remaining / RateLimit-Reset (rule chặt nhất)
+ * - Bị chặn → BusinessException có retryAfterSeconds → GlobalExceptionHandler set Retry-After
+ * - Redis lỗi → cho qua (fail-open), không làm sập endpoint
+ */
+@Slf4j
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RateLimitAspect {
+
+    private final RedisRateLimiter rateLimiter;
+    private final LocalRateLimitTier localTier;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Around("@annotation(com.example.demo.config.ratelimit.RateLimited)"
+            + " || @annotation(com.example.demo.config.ratelimit.RateLimits)")
+    public Object enforce(ProceedingJoinPoint pjp) throws Throwable {
+        ServletRequestAttributes attrs =
+                (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+
+        if (!enabled || attrs == null) {
+            return pjp.proceed();
+        }
+
+        HttpServletRequest request = attrs.getRequest();
+        HttpServletResponse response = attrs.getResponse();
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+
+        Set<RateLimited> rules =
+                AnnotatedElementUtils.findMergedRepeatableAnnotations(method, RateLimited.class);
+
+        RateLimitDecision tightest = null;
+
+        for (RateLimited rule : rules) {
+            String identity = resolveIdentity(rule, pjp, method, request);
+            if (identity == null) {
+                continue;
+            }
+
+            String localScope = "rule:" + rule.name();
+            long localWait = localTier.tryAcquire(
+                    localScope,
+                    identity,
+                    rule.capacity(),
+                    (double) rule.capacity() / rule.windowSeconds()
+            );
+            if (localWait > 0) {
+                throw reject(response, rule, identity,
+                        new RateLimitDecision(false, rule.capacity(), 0, localWait, localWait));
+            }
+
+            RateLimitDecision decision = acquire(rule, identity);
+
+            if (!decision.allowed()) {
+                // Nhớ lại quyết định của Redis → các request sau bị chặn ngay tại node
+                localTier.block(localScope, identity, decision.retryAfterSeconds());
+                throw reject(response, rule, identity, decision);
+            }
+
+            if (tightest == null || decision.remaining() < tightest.remaining()) {
+                tightest = decision;
+            }
+        }
+
+        if (tightest != null) {
+            writeHeaders(response, tightest);
+        }
+
+        return pjp.proceed();
+    }
+
+    private static BusinessException reject(
+            HttpServletResponse response,
+            RateLimited rule,
+            String identity,
+            RateLimitDecision decision
+    ) {
+        writeHeaders(response, decision);
+        log.warn("[RATE_LIMIT] rule={}, identity={}, retryAfter={}s",
+                rule.name(), identity, decision.retryAfterSeconds());
+        return new BusinessException(
+                CommonError.TOO_MANY_REQUESTS,
+                "Quá nhiều yêu cầu. Thử lại sau " + decision.retryAfterSeconds() + " giây.",
+                decision.retryAfterSeconds()
+        );
+    }
+
+    private RateLimitDecision acquire(RateLimited rule, String identity) {
+        try {
+            return rateLimiter.tryAcquire(
+                    rule.name() + ":" + identity,
+                    rule.algorithm(),
+                    rule.capacity(),
+                    Duration.ofSeconds(rule.windowSeconds())
+            );
+        } catch (DataAccessException e) {
+            log.warn("[RATE_LIMIT] Redis unavailable, allow request (rule={}): {}",
+                    rule.name(), e.getMessage());
+            return RateLimitDecision.allow(rule.capacity());
+        }
+    }
+
+    // =========================
+    // 🔑 KEY RESOLUTION
+    // =========================
+    private String resolveIdentity(
+            RateLimited rule,
+            ProceedingJoinPoint pjp,
+            Method method,
+            HttpServletRequest request
+    ) {
+        return switch (rule.key()) {
+            case IP -> "ip:" + request.getRemoteAddr();
+            case PRINCIPAL -> {
+                String userId = currentUserId();
+                yield userId != null ? "user:" + userId : "ip:" + request.getRemoteAddr();
+            }
+            case FIELD -> {
+                String value = requestBodyField(rule.field(), pjp.getArgs(), method);
+                // Field rỗng → để validation xử lý, không tính quota
+                yield value != null ? "field:" + value : null;
+            }
+        };
+    }
+
+    private static String currentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return String.valueOf(auth.getPrincipal());
+    }
+
+    private static String requestBodyField(String field, Object[] args, Method method) {
+        Annotation[][] paramAnnotations = method.getParameterAnnotations();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == null || !hasRequestBody(paramAnnotations[i])) {
+                continue;
+            }
+            BeanWrapperImpl wrapper = new BeanWrapperImpl(args[i]);
+            if (!wrapper.isReadableProperty(field)) {
+                return null;
+            }
+            Object value = wrapper.getPropertyValue(field);
+            if (value == null || value.toString().isBlank()) {
+                return null;
+            }
+            return value.toString().trim().toLowerCase(Locale.ROOT);
+        }
+        return null;
+    }
+
+    private static boolean hasRequestBody(Annotation[] annotations) {
+        for (Annotation a : annotations) {
+            if (a instanceof RequestBody) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // =========================
+    // 📤 HEADERS
+    // =========================
+    private static void writeHeaders(HttpServletResponse response, RateLimitDecision decision) {
+        if (response == null) {
+            return;
+        }
+        response.setHeader("RateLimit-Limit", String.valueOf(decision.limit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(decision.remaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(decision.resetSeconds()));
+    }
+}
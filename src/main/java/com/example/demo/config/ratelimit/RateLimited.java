@@ -0,0 +1,55 @@
+package com.example.demo.config.ratelimit;
+
+import com.example.demo.service.redisConfig.rate_limit.RedisRateLimiter.Algorithm;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Gắn rate limit (Redis, dùng chung toàn cluster) cho 1 endpoint.
+ *
+ * Ví dụ: tối đa 3 lần / 5 phút cho mỗi email trong body
+ * <pre>
+ * &#64;RateLimited(name = "auth.forgot-password", key = KeySource.FIELD, field = "email",
+ *              algorithm = Algorithm.SLIDING_WINDOW, capacity = 3, windowSeconds = 300)
+ * </pre>
+ *
+ * Có thể gắn nhiều lần trên cùng 1 method (vd: theo IP + theo email).
+ * Bị chặn → {@code BusinessException(CommonError.TOO_MANY_REQUESTS)} kèm Retry-After.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(RateLimits.class)
+public @interface RateLimited {
+
+    /** Tên rule, dùng làm namespace của key trong Redis */
+    String name();
+
+    /** Lấy identity từ đâu */
+    KeySource key() default KeySource.IP;
+
+    /** Tên field trong @RequestBody khi key = FIELD */
+    String field() default "";
+
+    Algorithm algorithm() default Algorithm.TOKEN_BUCKET;
+
+    /** TOKEN_BUCKET: dung lượng bucket; SLIDING_WINDOW: số request tối đa / window */
+    long capacity();
+
+    /** TOKEN_BUCKET: thời gian nạp đầy bucket; SLIDING_WINDOW: độ dài window */
+    long windowSeconds() default 60;
+
+    enum KeySource {
+        /** Địa chỉ IP của client */
+        IP,
+        /** userId đã đăng nhập (fallback IP nếu chưa đăng nhập) */
+        PRINCIPAL,
+        /** Giá trị 1 field trong request body */
+        FIELD
+    }
+}
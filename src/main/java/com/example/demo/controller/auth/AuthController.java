@@ -1,5 +1,8 @@
 package com.example.demo.controller.auth;
 
+import com.example.demo.config.ratelimit.RateLimited;
+import com.example.demo.config.ratelimit.RateLimited.KeySource;
+import com.example.demo.service.redisConfig.rate_limit.RedisRateLimiter.Algorithm;
 import com.example.demo.domain.dto.req.*;
 import com.example.demo.domain.dto.res.AuthResponse;
 import com.example.demo.domain.dto.res.UserResponse;
@@ -38,6 +41,7 @@ public class AuthController {
     // 🆕 REGISTER
     // =========================
     @PostMapping("/register")
+    @RateLimited(name = "auth.register", key = KeySource.IP, capacity = 5, windowSeconds = 300)
     @ResponseStatus(HttpStatus.CREATED)
     public ApiResponse<UserResponse> register(
             @Valid @RequestBody CreateUserReq req,
@@ -59,6 +63,7 @@ public class AuthController {
     // 🔐 LOGIN - Set HttpOnly Cookies
     // =========================
     @PostMapping("/login")
+    @RateLimited(name = "auth.login", key = KeySource.IP, capacity = 20, windowSeconds = 60)
     public ApiResponse<AuthResponse> login(
             @Valid @RequestBody LoginReq req,
             HttpServletRequest request,
@@ -87,6 +92,7 @@ public class AuthController {
     // 🔁 REFRESH TOKEN - Đọc từ Cookie
     // =========================
     @PostMapping("/refresh-token")
+    @RateLimited(name = "auth.refresh-token", key = KeySource.IP, capacity = 30, windowSeconds = 60)
     public ApiResponse<UserResponse> refreshToken(
             @CookieValue(name = "refresh_token", required = false) String refreshToken,
             HttpServletRequest request,
@@ -147,6 +153,9 @@ public class AuthController {
     // 📧 RESEND EMAIL
     // =========================
     @PostMapping("/resend-email")
+    @RateLimited(name = "auth.resend-email.ip", key = KeySource.IP, capacity = 10, windowSeconds = 300)
+    @RateLimited(name = "auth.resend-email", key = KeySource.FIELD, field = "email",
+            algorithm = Algorithm.SLIDING_WINDOW, capacity = 3, windowSeconds = 300)
     public ApiResponse<UserResponse> resendEmail(
             @Valid @RequestBody ResendEmailReq req,
             HttpServletRequest request
@@ -167,6 +176,9 @@ public class AuthController {
     // 🔑 FORGOT PASSWORD
     // =========================
     @PostMapping("/forgot-password")
+    @RateLimited(name = "auth.forgot-password.ip", key = KeySource.IP, capacity = 10, windowSeconds = 300)
+    @RateLimited(name = "auth.forgot-password", key = KeySource.FIELD, field = "email",
+            algorithm = Algorithm.SLIDING_WINDOW, capacity = 3, windowSeconds = 300)
     public ApiResponse<Void> forgotPassword(
             @Valid @RequestBody ForgotPasswordReq req,
             HttpServletRequest request
@@ -186,6 +198,8 @@ public class AuthController {
 // 🔐 VERIFY FORGOT PASSWORD OTP
 // =========================
     @PostMapping("/verify-forgot-password-otp")
+    @RateLimited(name = "auth.verify-otp", key = KeySource.IP,
+            algorithm = Algorithm.SLIDING_WINDOW, capacity = 20, windowSeconds = 300)
     public ApiResponse<String> verifyForgotPasswordOtp(
             @Valid @RequestBody VerifyForgotPasswordOtpReq req,
             HttpServletRequest request
@@ -205,6 +219,8 @@ public class AuthController {
 // 🔁 RESET PASSWORD
 // =========================
     @PostMapping("/reset-password")
+    @RateLimited(name = "auth.reset-password", key = KeySource.IP,
+            algorithm = Algorithm.SLIDING_WINDOW, capacity = 10, windowSeconds = 300)
     public ApiResponse<Void> resetPassword(
             @Valid @RequestBody ResetPasswordReq req,
             HttpServletRequest request
@@ -1,9 +1,15 @@
 package com.example.demo.controller.branch;
 
+import com.example.demo.config.ratelimit.RateLimited;
+import com.example.demo.config.ratelimit.RateLimited.KeySource;
 import com.example.demo.domain.dto.req.CreateBranchReq;
 import com.example.demo.domain.dto.req.UpdateBranchReq;
 import com.example.demo.domain.dto.res.BranchResponse;
 import com.example.demo.service.branchService.IBranchService;
+import com.example.demo.service.branchService.repository.BranchFilter;
+import com.example.demo.share.cache.LocalTtlCache;
+import com.example.demo.share.pagination.CursorPageResponse;
+import com.example.demo.share.pagination.PageResponse;
 import com.example.demo.share.response.ApiResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -23,6 +29,7 @@ public class BranchController {
     private final IBranchService branchService;
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping
+    @RateLimited(name = "branch.write", key = KeySource.PRINCIPAL, capacity = 30, windowSeconds = 60)
     public ApiResponse<BranchResponse> createBranch(
             @Valid @RequestBody CreateBranchReq req,
             HttpServletRequest request
@@ -40,13 +47,25 @@ public class BranchController {
 
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping
-    public ApiResponse<List<BranchResponse>> getAllBranches(HttpServletRequest request) {
-        var list = branchService.getAllBranches();
+    @RateLimited(name = "branch.read", key = KeySource.PRINCIPAL, capacity = 120, windowSeconds = 60)
+    public ApiResponse<PageResponse<BranchResponse>> getAllBranches(
+            @RequestParam(required = false) String province,
+            @RequestParam(required = false) String district,
+            @RequestParam(required = false) String ward,
+            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            HttpServletRequest request
+    ) {
+        var result = branchService.getBranches(
+                new BranchFilter(province, district, ward), sort, direction, page, size
+        );
         return ApiResponse.success(
                 HttpStatus.OK.value(),
                 "BRANCH.GET_ALL_SUCCESS",
-                "Get all branches successfully",
-                list,
+                "Get branches successfully",
+                result,
                 request.getRequestURI(),
                 MDC.get("traceId")
         );
@@ -54,6 +73,7 @@ public class BranchController {
 
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/search")
+    @RateLimited(name = "branch.search", key = KeySource.PRINCIPAL, capacity = 20, windowSeconds = 10)
     public ApiResponse<List<BranchResponse>> search(@RequestParam(required = false) String q, HttpServletRequest request) {
         var list = branchService.searchBranches(q);
         return ApiResponse.success(
@@ -66,8 +86,45 @@ public class BranchController {
         );
     }
 
+    // Branch quanh vị trí người dùng, gần nhất trước (radius tính bằng mét)
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @GetMapping("/near")
+    @RateLimited(name = "branch.near", key = KeySource.PRINCIPAL, capacity = 60, windowSeconds = 10)
+    public ApiResponse<CursorPageResponse<BranchResponse>> near(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "2000") double radius,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            HttpServletRequest request
+    ) {
+        var result = branchService.findNear(lat, lng, radius, cursor, limit);
+        return ApiResponse.success(
+                HttpStatus.OK.value(),
+                "BRANCH.NEAR_SUCCESS",
+                "Get nearby branches successfully",
+                result,
+                request.getRequestURI(),
+                MDC.get("traceId")
+        );
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/cache/stats")
+    public ApiResponse<List<LocalTtlCache.Stats>> cacheStats(HttpServletRequest request) {
+        return ApiResponse.success(
+                HttpStatus.OK.value(),
+                "BRANCH.CACHE_STATS_SUCCESS",
+                "Get branch cache stats successfully",
+                branchService.cacheStats(),
+                request.getRequestURI(),
+                MDC.get("traceId")
+        );
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/{id}")
+    @RateLimited(name = "branch.read", key = KeySource.PRINCIPAL, capacity = 120, windowSeconds = 60)
     public ApiResponse<BranchResponse> getById(@PathVariable String id, HttpServletRequest request) {
         var opt = branchService.getBranchById(id);
         if (opt.isEmpty()) {
@@ -92,6 +149,7 @@ public class BranchController {
 
     @PreAuthorize("hasRole('ADMIN')")
     @PutMapping("/{id}")
+    @RateLimited(name = "branch.write", key = KeySource.PRINCIPAL, capacity = 30, windowSeconds = 60)
     public ApiResponse<BranchResponse> update(@PathVariable String id, @RequestBody UpdateBranchReq req, HttpServletRequest request) {
         var updated = branchService.updateBranch(id, req);
         if (updated == null) {
@@ -116,6 +174,7 @@ public class BranchController {
 
     @PreAuthorize("hasRole('ADMIN')")
     @DeleteMapping("/{id}")
+    @RateLimited(name = "branch.write", key = KeySource.PRINCIPAL, capacity = 30, windowSeconds = 60)
     public ApiResponse<Void> delete(@PathVariable String id, HttpServletRequest request) {
         branchService.deleteBranch(id);
         return ApiResponse.success(
@@ -0,0 +1,34 @@
+package com.example.demo.controller.email;
+
+import com.example.demo.service.emailService.AsyncEmailService;
+import com.example.demo.service.emailService.EmailPipelineStats;
+import com.example.demo.share.response.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/admin/email")
+public class EmailAdminController {
+
+    private final AsyncEmailService asyncEmailService;
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/stats")
+    public ApiResponse<EmailPipelineStats> stats(HttpServletRequest request) {
+        return ApiResponse.success(
+                HttpStatus.OK.value(),
+                "EMAIL.STATS_SUCCESS",
+                "Get email pipeline stats successfully",
+                asyncEmailService.stats(),
+                request.getRequestURI(),
+                MDC.get("traceId")
+        );
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo.controller.security;
+
+import com.example.demo.config.jwt.VerifiedTokenCache;
+import com.example.demo.service.passwordService.PasswordHashingService;
+import com.example.demo.service.redisConfig.rate_limit.LocalRateLimitTier;
+import com.example.demo.share.response.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/admin/security")
+public class SecurityAdminController {
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final LocalRateLimitTier localRateLimitTier;
+    private final PasswordHashingService passwordHashingService;
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/token-cache/stats")
+    public ApiResponse<VerifiedTokenCache.Stats> tokenCacheStats(HttpServletRequest request) {
+        return ApiResponse.success(
+                HttpStatus.OK.value(),
+                "SECURITY.TOKEN_CACHE_STATS_SUCCESS",
+                "Get verified token cache stats successfully",
+                verifiedTokenCache.stats(),
+                request.getRequestURI(),
+                MDC.get("traceId")
+        );
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/rate-limit/stats")
+    public ApiResponse<LocalRateLimitTier.Stats> rateLimitStats(HttpServletRequest request) {
+        return ApiResponse.success(
+                HttpStatus.OK.value(),
+                "SECURITY.RATE_LIMIT_STATS_SUCCESS",
+                "Get local rate limit stats successfully",
+                localRateLimitTier.stats(),
+                request.getRequestURI(),
+                MDC.get("traceId")
+        );
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/password-hashing/stats")
+    public ApiResponse<PasswordHashingService.Stats> passwordHashingStats(HttpServletRequest request) {
+        return ApiResponse.success(
+                HttpStatus.OK.value(),
+                "SECURITY.PASSWORD_HASHING_STATS_SUCCESS",
+                "Get password hashing stats successfully",
+                passwordHashingService.stats(),
+                request.getRequestURI(),
+                MDC.get("traceId")
+        );
+    }
+}
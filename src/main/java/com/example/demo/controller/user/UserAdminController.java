@@ -0,0 +1,35 @@
+package com.example.demo.controller.user;
+
+import com.example.demo.service.user.IUserService;
+import com.example.demo.share.cache.LocalTtlCache;
+import com.example.demo.share.response.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Nằm ngoài /api/users/** (rule hasRole USER trong SecurityConfig) → ADMIN mới gọi được
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/admin/users")
+public class UserAdminController {
+
+    private final IUserService userService;
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/cache/stats")
+    public ApiResponse<LocalTtlCache.Stats> cacheStats(HttpServletRequest request) {
+        return ApiResponse.success(
+                HttpStatus.OK.value(),
+                "USER.CACHE_STATS_SUCCESS",
+                "Get user profile cache stats successfully",
+                userService.cacheStats(),
+                request.getRequestURI(),
+                MDC.get("traceId")
+        );
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.demo.controller.user;
 
+import com.example.demo.config.ratelimit.RateLimited;
+import com.example.demo.config.ratelimit.RateLimited.KeySource;
+import com.example.demo.service.redisConfig.rate_limit.RedisRateLimiter.Algorithm;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -8,24 +11,38 @@ import org.springframework.security.core.userdetails.UserDetails;
 import com.example.demo.domain.dto.req.ChangePasswordReq;
 import com.example.demo.domain.dto.req.CreateUserReq;
 import com.example.demo.domain.dto.res.UserResponse;
+import com.example.demo.service.authService.IAuthService;
 import com.example.demo.service.user.IUserService;
+import com.example.demo.share.pagination.CursorPageResponse;
 import com.example.demo.share.response.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/users")
 public class UserControllers {
     private final IUserService userService;
+    private final IAuthService authService;
+    private final ObjectMapper objectMapper;
+
+    private static final String NDJSON = "application/x-ndjson";
 
     @PostMapping
+    @RateLimited(name = "user.create", key = KeySource.IP, capacity = 5, windowSeconds = 300)
     public ApiResponse<UserResponse> createUser(
             @Valid @RequestBody CreateUserReq req,
             HttpServletRequest request
@@ -44,23 +61,58 @@ public class UserControllers {
 
     @PreAuthorize("hasRole('USER')")
     @GetMapping
-    public ApiResponse<List<UserResponse>> getAllUsers(
+    @RateLimited(name = "user.list", key = KeySource.PRINCIPAL, capacity = 60, windowSeconds = 60)
+    public ApiResponse<CursorPageResponse<UserResponse>> getUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
             HttpServletRequest request
     ) {
-        List<UserResponse> users = userService.getAllUsers();
+        CursorPageResponse<UserResponse> page = userService.getUsers(cursor, limit);
 
         return ApiResponse.success(
                 HttpStatus.OK.value(),
                 "USER.GET_ALL_SUCCESS",
-                "Get all users successfully",
-                users,
+                "Get users successfully",
+                page,
                 request.getRequestURI(),
                 MDC.get("traceId")
         );
     }
 
+    // 📤 Export NDJSON: mỗi dòng 1 user, ghi thẳng từ cursor Mongo ra response
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping(value = "/export", produces = NDJSON)
+    @RateLimited(name = "user.export", key = KeySource.PRINCIPAL, capacity = 2, windowSeconds = 60)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = out -> {
+            try {
+                userService.exportUsers(user -> writeLine(out, user));
+            } catch (UncheckedIOException e) {
+                // Client ngắt kết nối giữa chừng
+                throw e.getCause();
+            }
+            out.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.ndjson\"")
+                .body(body);
+    }
+
+    private void writeLine(OutputStream out, UserResponse user) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(user));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     // Không cần @PreAuthorize
     @PutMapping("/change-password")
+    @RateLimited(name = "user.change-password", key = KeySource.PRINCIPAL,
+            algorithm = Algorithm.SLIDING_WINDOW, capacity = 5, windowSeconds = 300)
     public ApiResponse<Void> changePassword(
             @Valid @RequestBody ChangePasswordReq req,
             HttpServletRequest request
@@ -78,4 +130,21 @@ public class UserControllers {
                 MDC.get("traceId")
         );
     }
-}
\ No newline at end of file
+
+    // 🚪 Đăng xuất khỏi tất cả thiết bị
+    @PostMapping("/logout-all")
+    @RateLimited(name = "user.logout-all", key = KeySource.PRINCIPAL, capacity = 5, windowSeconds = 60)
+    public ApiResponse<Void> logoutAll(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userId = (String) authentication.getPrincipal();
+        authService.logoutAllDevices(userId);
+        return ApiResponse.success(
+                HttpStatus.OK.value(),
+                "USER.LOGOUT_ALL_SUCCESS",
+                "Đăng xuất khỏi tất cả thiết bị thành công",
+                null,
+                request.getRequestURI(),
+                MDC.get("traceId")
+        );
+    }
+}
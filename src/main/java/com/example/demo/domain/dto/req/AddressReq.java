@@ -1,5 +1,7 @@
 package com.example.demo.domain.dto.req;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,4 +23,12 @@ public class AddressReq {
     private String province;
     @Size(max = 100)
     private String country;
+
+    /** Toạ độ (WGS84) – cần cả 2 để tìm branch gần */
+    @DecimalMin("-90.0")
+    @DecimalMax("90.0")
+    private Double latitude;
+    @DecimalMin("-180.0")
+    @DecimalMax("180.0")
+    private Double longitude;
 }
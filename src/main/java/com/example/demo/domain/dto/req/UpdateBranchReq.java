@@ -12,5 +12,8 @@ import lombok.NoArgsConstructor;
 public class UpdateBranchReq {
     private String name;
     private AddressReq address;
+
+    // Optional: version đang có ở client → lệch thì 409
+    private Long version;
 }
 
@@ -21,4 +21,7 @@ public class UpdateUserReq {
     @Max(value = 2100, message = "Năm sinh phải ≤ 2100")
     private Integer year;
 
+    // Optional: version đang có ở client → lệch thì 409
+    private Long version;
+
 }
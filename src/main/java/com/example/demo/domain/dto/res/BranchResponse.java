@@ -17,4 +17,9 @@ public class BranchResponse {
     private String district;
     private String province;
     private String country;
+    private Double latitude;
+    private Double longitude;
+    // Chỉ có khi tìm theo vị trí (/near)
+    private Double distanceMeters;
+    private Long version;
 }
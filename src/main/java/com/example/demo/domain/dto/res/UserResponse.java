@@ -12,4 +12,5 @@ public class UserResponse {
     private Integer year;
     private String role;
     private Boolean emailVerified;
+    private Long version;
 }
@@ -20,4 +20,7 @@ public class AddressEntity {
     private String province;        // TP. Hồ Chí Minh
     /** Quốc gia (ISO code) */
     private String country;         // VN
+    /** Toạ độ WGS84 (null = chưa có) */
+    private Double latitude;        // 10.7725
+    private Double longitude;       // 106.6980
 }
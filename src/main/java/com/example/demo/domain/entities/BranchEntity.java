@@ -14,5 +14,6 @@ public class BranchEntity {
     private String id;
     private String name;
     private AddressEntity address;
+    private Long version;
 
 }
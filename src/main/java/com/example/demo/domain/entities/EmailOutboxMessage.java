@@ -0,0 +1,26 @@
+package com.example.demo.domain.entities;
+
+import com.example.demo.domain.enums.EmailType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmailOutboxMessage {
+    private String id;
+    private EmailType type;
+    private String recipient;
+    private Map<String, String> payload;
+    private String locale;          // BCP 47 (vi, en...) lấy từ Accept-Language lúc enqueue
+    private int attempts;           // tính cả lần đang gửi
+    private String leaseToken;      // mọi cập nhật sau khi gửi phải khớp token này
+    private Instant deliverBefore;
+    private Instant createdAt;
+}
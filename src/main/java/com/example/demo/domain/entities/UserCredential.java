@@ -0,0 +1,29 @@
+package com.example.demo.domain.entities;
+
+import com.example.demo.domain.enums.Role;
+
+/**
+ * Bản rút gọn của user cho login: chỉ các field cần để xác thực + trả response.
+ * Mongo chỉ trả về đúng các field này (projection), không load cả document.
+ */
+public record UserCredential(
+        String id,
+        String username,
+        String email,
+        int year,
+        Role role,
+        boolean emailVerified,
+        String password
+) {
+
+    public UserCredential {
+        role = role == null ? Role.USER : role;
+    }
+
+    // Không in hash mật khẩu ra log
+    @Override
+    public String toString() {
+        return "UserCredential[id=" + id + ", email=" + email + ", role=" + role
+                + ", emailVerified=" + emailVerified + "]";
+    }
+}
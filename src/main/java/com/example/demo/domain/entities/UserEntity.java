@@ -9,7 +9,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.Instant;
 
-@Builder
+@Builder(toBuilder = true)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -23,4 +23,5 @@ public class UserEntity {
     private boolean emailVerified;
     private Instant createdAt;
     private Instant updatedAt;
+    private Long version;
 }
@@ -0,0 +1,8 @@
+package com.example.demo.domain.enums;
+
+public enum EmailOutboxStatus {
+    PENDING,    // chờ gửi / đang được worker giữ lease / chờ retry
+    SENT,
+    DEAD,       // hết lượt retry hoặc quá hạn giao
+    SUPERSEDED  // chờ retry thì đã có mail mới hơn cùng loại + người nhận → không gửi bản cũ
+}
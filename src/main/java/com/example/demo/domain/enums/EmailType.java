@@ -0,0 +1,6 @@
+package com.example.demo.domain.enums;
+
+public enum EmailType {
+    VERIFY_EMAIL,
+    FORGOT_PASSWORD_OTP
+}
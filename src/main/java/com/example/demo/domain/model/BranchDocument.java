@@ -5,9 +5,27 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.List;
+
 @Document(collection = "branches")
+@CompoundIndexes({
+        // Lọc province / district / ward (prefix), sort theo name
+        @CompoundIndex(name = "idx_branches_address_name",
+                def = "{'address.province': 1, 'address.district': 1, 'address.ward': 1, 'name': 1, '_id': 1}"),
+        // Không lọc, sort theo name
+        @CompoundIndex(name = "idx_branches_name", def = "{'name': 1, '_id': 1}"),
+        // Sort theo province (lọc province rồi sort name cũng dùng được)
+        @CompoundIndex(name = "idx_branches_province_name", def = "{'address.province': 1, 'name': 1, '_id': 1}")
+})
 @Data
 @Builder
 @AllArgsConstructor
@@ -19,5 +37,19 @@ public class BranchDocument {
     private String name;
     private AddressDocument address;
 
+    // 📍 GeoJSON Point [lng, lat] – null nếu chưa có toạ độ
+    @GeoSpatialIndexed(name = "idx_branches_location", type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint location;
+
+    // 🔍 Search: token đã bỏ dấu của name + địa chỉ, và mọi tiền tố của chúng (multikey index)
+    private List<String> searchTokens;
+    @Indexed(name = "idx_branches_search_prefixes")
+    private List<String> searchPrefixes;
+    private Integer searchVersion;
+
+    // Optimistic lock: mỗi lần update $inc 1
+    @Version
+    private Long version;
+
 }
 
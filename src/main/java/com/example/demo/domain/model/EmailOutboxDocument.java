@@ -0,0 +1,67 @@
+package com.example.demo.domain.model;
+
+import com.example.demo.domain.enums.EmailOutboxStatus;
+import com.example.demo.domain.enums.EmailType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Document(collection = "email_outbox")
+@CompoundIndexes({
+        // Worker claim: status = PENDING và nextAttemptAt <= now, cũ nhất trước
+        @CompoundIndex(name = EmailOutboxDocument.IDX_STATUS_NEXT_ATTEMPT, def = "{'status': 1, 'nextAttemptAt': 1}")
+})
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmailOutboxDocument {
+
+    public static final String IDX_STATUS_NEXT_ATTEMPT = "idx_email_outbox_status_nextAttemptAt";
+    public static final String TTL_EXPIRE_AT = "ttl_email_outbox_expireAt";
+    public static final String UK_COALESCE_KEY = "uk_email_outbox_coalesceKey";
+
+    @Id
+    private String id;
+
+    private EmailType type;
+    private String recipient;
+
+    // "{type}:{recipient}" khi còn chờ và chưa bị claim → tối đa 1 mail chờ / loại / người nhận
+    @Indexed(name = UK_COALESCE_KEY, unique = true, partialFilter = "{ 'coalesceKey': { '$exists': true } }")
+    private String coalesceKey;
+    // Số lần gửi trùng đã gộp vào mail này
+    private int coalesced;
+    // token / otp – xoá khi SENT hoặc DEAD
+    private Map<String, String> payload;
+    // Ngôn ngữ template (BCP 47), null = mặc định
+    private String locale;
+
+    private EmailOutboxStatus status;
+    private int attempts;
+    // Lúc được claim tiếp; đang giữ lease thì = hết hạn lease
+    private Instant nextAttemptAt;
+    private String leaseOwner;
+    private String leaseToken;
+    private String lastError;
+
+    // Quá mốc này thì không gửi nữa (OTP / link đã hết hạn)
+    private Instant deliverBefore;
+
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Instant sentAt;
+
+    // Chỉ set khi SENT / DEAD → Mongo tự dọn
+    @Indexed(name = TTL_EXPIRE_AT, expireAfterSeconds = 0)
+    private Instant expireAt;
+}
@@ -8,21 +8,41 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 
 @Document(collection = "users")
+@CompoundIndexes({
+        // Danh sách user theo role, mới nhất trước
+        @CompoundIndex(name = UserDocument.IDX_ROLE_CREATED_AT, def = "{'role': 1, 'createdAt': -1}"),
+        // Dọn tài khoản chưa verify quá hạn
+        @CompoundIndex(name = UserDocument.IDX_VERIFIED_CREATED_AT, def = "{'emailVerified': 1, 'createdAt': 1}")
+})
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class UserDocument {
 
+    // Tên index cố định → map DuplicateKeyException về đúng field
+    public static final String UK_EMAIL = "uk_users_email";
+    public static final String UK_USERNAME = "uk_users_username";
+    public static final String IDX_ROLE_CREATED_AT = "idx_users_role_createdAt";
+    public static final String IDX_VERIFIED_CREATED_AT = "idx_users_emailVerified_createdAt";
+
     @Id
     private String id;
 
+    // Username đã được normalize (trim + lowercase) trước khi lưu
+    @Indexed(name = UK_USERNAME, unique = true)
     private String username;
+
+    @Indexed(name = UK_EMAIL, unique = true)
     private String email;
     private String password;
 
@@ -34,4 +54,8 @@ public class UserDocument {
     private Instant createdAt;
     @LastModifiedDate
     private Instant updatedAt;
+
+    // Optimistic lock: mỗi lần update $inc 1
+    @Version
+    private Long version;
 }
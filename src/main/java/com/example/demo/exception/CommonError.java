@@ -44,6 +44,27 @@ public enum CommonError implements ErrorDescriptor {
             "COMMON.NOT_FOUND",
             "Resource not found",
             "SYSTEM"
+    ),
+
+    TOO_MANY_REQUESTS(
+            HttpStatus.TOO_MANY_REQUESTS.value(),
+            "COMMON.TOO_MANY_REQUESTS",
+            "Too many requests",
+            "SYSTEM"
+    ),
+
+    CONFLICT(
+            HttpStatus.CONFLICT.value(),
+            "COMMON.CONFLICT",
+            "Resource was modified by another request",
+            "BUSINESS"
+    ),
+
+    SERVICE_UNAVAILABLE(
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            "COMMON.SERVICE_UNAVAILABLE",
+            "Service temporarily overloaded",
+            "SYSTEM"
     );
 
     private final int httpStatus;
@@ -3,47 +3,114 @@ package com.example.demo.infrastructure.branch;
 import com.example.demo.domain.dto.req.CreateBranchReq;
 import com.example.demo.domain.dto.req.UpdateBranchReq;
 import com.example.demo.domain.entities.BranchEntity;
+import com.example.demo.domain.model.BranchDocument;
 import com.example.demo.infrastructure.branch.mapper.BranchMapper;
 import com.example.demo.infrastructure.branch.repository.MongoBranchRepository;
+import com.example.demo.service.branchService.repository.BranchDistance;
+import com.example.demo.service.branchService.repository.BranchFilter;
 import com.example.demo.service.branchService.repository.IBranchRepository;
+import com.example.demo.service.branchService.search.BranchSearchText;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Repository
 @RequiredArgsConstructor
 public class BranchRepositoryImpl implements IBranchRepository {
 
     private final MongoBranchRepository mongoBranchRepository;
+    private final MongoTemplate mongoTemplate;
+
+    private static final int COUNT_CACHE_MAX_ENTRIES = 1_000;
+    private static final String DISTANCE_FIELD = "distance";
+
+    // filter → (count, hết hạn lúc)
+    private final Map<BranchFilter, CachedCount> countCache = new ConcurrentHashMap<>();
+
+    @Value("${app.branch.count-cache-ttl-seconds:30}")
+    private long countCacheTtlSeconds;
 
     @Override
     public BranchEntity create(CreateBranchReq req) {
         var entity = BranchMapper.toEntity(req);
-        var doc = BranchMapper.toDocument(entity);
+        var doc = withSearchFields(BranchMapper.toDocument(entity));
         var saved = mongoBranchRepository.save(doc);
+        countCache.clear();
         return BranchMapper.toEntity(saved);
     }
 
     @Override
     public Optional<BranchEntity> update(String id, UpdateBranchReq req) {
-        var existingOpt = mongoBranchRepository.findById(id);
-        if (existingOpt.isEmpty()) return Optional.empty();
+        // Chỉ $set field có trong request, không replace cả document
+        Update update = new Update().inc("version", 1);
+        if (req.getName() != null) {
+            update.set("name", req.getName());
+        }
+        if (req.getAddress() != null) {
+            var address = BranchMapper.addressReqToEntity(req.getAddress());
+            update.set("address", BranchMapper.toAddressDocument(address));
+
+            // Địa chỉ mới không kèm toạ độ → bỏ location cũ (không còn đúng)
+            GeoJsonPoint location = BranchMapper.toLocation(address);
+            if (location != null) {
+                update.set("location", location);
+            } else {
+                update.unset("location");
+            }
+        }
+
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (req.getVersion() != null) {
+            criteria = criteria.and("version").is(req.getVersion());
+        }
+
+        BranchDocument updated = mongoTemplate.findAndModify(
+                Query.query(criteria),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                BranchDocument.class
+        );
 
-        var doc = existingOpt.get();
-        var entity = BranchMapper.toEntity(doc);
-        // apply update from req onto entity
-        BranchMapper.applyUpdate(entity, req);
+        if (updated != null) {
+            if (req.getName() != null || req.getAddress() != null) {
+                refreshSearchFields(updated);
+            }
+            if (req.getAddress() != null) {
+                countCache.clear();
+            }
+            return Optional.of(BranchMapper.toEntity(updated));
+        }
 
-        var updatedDoc = BranchMapper.toDocument(entity);
-        var saved = mongoBranchRepository.save(updatedDoc);
-        return Optional.of(BranchMapper.toEntity(saved));
+        // Không match: chỉ khi có version mới cần phân biệt "không tồn tại" và "bị sửa trước"
+        if (req.getVersion() != null && mongoBranchRepository.existsById(id)) {
+            throw new OptimisticLockingFailureException("Branch " + id + " was modified concurrently");
+        }
+        return Optional.empty();
     }
 
     @Override
     public BranchEntity save(BranchEntity branch) {
-        var doc = BranchMapper.toDocument(branch);
+        var doc = withSearchFields(BranchMapper.toDocument(branch));
+        if (doc.getId() != null && doc.getVersion() == null) {
+            doc.setVersion(adoptLegacyVersion(doc.getId()));
+        }
         var saved = mongoBranchRepository.save(doc);
         return BranchMapper.toEntity(saved);
     }
@@ -56,6 +123,53 @@ public class BranchRepositoryImpl implements IBranchRepository {
                 .toList();
     }
 
+    @Override
+    public List<BranchEntity> findPage(BranchFilter filter, Sort sort, int page, int size) {
+        Query query = Query.query(toCriteria(filter))
+                .with(withIdTiebreaker(sort))
+                .skip((long) page * size)
+                .limit(size);
+        query.fields().exclude("searchTokens", "searchPrefixes");
+
+        return mongoTemplate.find(query, BranchDocument.class)
+                .stream()
+                .map(BranchMapper::toEntity)
+                .toList();
+    }
+
+    /**
+     * _id làm tiebreaker (thứ tự ổn định giữa các trang), cùng chiều với sort chính
+     * → index {..., name: 1, _id: 1} vẫn duyệt được (xuôi hoặc ngược) thay vì sort trong RAM.
+     */
+    static Sort withIdTiebreaker(Sort sort) {
+        Sort.Direction direction = sort.stream()
+                .findFirst()
+                .map(Sort.Order::getDirection)
+                .orElse(Sort.Direction.ASC);
+        return sort.and(Sort.by(direction, "_id"));
+    }
+
+    @Override
+    public long count(BranchFilter filter) {
+        if (filter.isEmpty()) {
+            return mongoTemplate.estimatedCount(BranchDocument.class);
+        }
+
+        long now = System.currentTimeMillis();
+        CachedCount cached = countCache.get(filter);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.value();
+        }
+
+        long value = mongoTemplate.count(Query.query(toCriteria(filter)), BranchDocument.class);
+
+        if (countCache.size() >= COUNT_CACHE_MAX_ENTRIES) {
+            countCache.clear();
+        }
+        countCache.put(filter, new CachedCount(value, now + countCacheTtlSeconds * 1000));
+        return value;
+    }
+
     @Override
     public Optional<BranchEntity> findById(String id) {
         return mongoBranchRepository.findById(id)
@@ -65,14 +179,131 @@ public class BranchRepositoryImpl implements IBranchRepository {
     @Override
     public void deleteById(String id) {
         mongoBranchRepository.deleteById(id);
+        countCache.clear();
     }
 
     @Override
-    public List<BranchEntity> search(String q) {
-        if (q == null || q.isBlank()) return findAll();
-        return mongoBranchRepository.findByNameContainingIgnoreCase(q)
-                .stream()
+    public List<BranchEntity> searchByPrefixes(List<String> queryTokens, int limit) {
+        List<String> keys = BranchSearchText.queryKeys(queryTokens);
+
+        // 1️⃣ Khớp trọn mọi token (nhóm điểm cao nhất khi xếp hạng)
+        Criteria exact = Criteria.where("searchPrefixes").all(keys)
+                .and("searchTokens").all(queryTokens);
+        List<BranchDocument> documents = new ArrayList<>(
+                mongoTemplate.find(candidateQuery(exact, limit), BranchDocument.class)
+        );
+
+        // 2️⃣ Còn chỗ → chỉ khớp tiền tố (bỏ nhóm đã lấy ở trên)
+        if (documents.size() < limit) {
+            Criteria prefixOnly = Criteria.where("searchPrefixes").all(keys)
+                    .norOperator(Criteria.where("searchTokens").all(queryTokens));
+            documents.addAll(mongoTemplate.find(
+                    candidateQuery(prefixOnly, limit - documents.size()), BranchDocument.class
+            ));
+        }
+
+        return documents.stream()
                 .map(BranchMapper::toEntity)
                 .toList();
     }
+
+    // Thứ tự ổn định theo tên trong từng nhóm → cắt limit không còn là "200 bản ghi bất kỳ"
+    private static Query candidateQuery(Criteria criteria, int limit) {
+        Query query = Query.query(criteria)
+                .with(Sort.by("name", "_id"))
+                .limit(limit);
+        query.fields().exclude("searchTokens", "searchPrefixes");
+        return query;
+    }
+
+    @Override
+    public List<BranchDistance> findNear(double lat, double lng, double radiusMeters, int skip, int limit) {
+        // GeoJSON point → maxDistance và distanceField đều tính bằng mét
+        NearQuery near = NearQuery.near(new GeoJsonPoint(lng, lat))
+                .spherical(true)
+                .maxDistance(radiusMeters);
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.geoNear(near, DISTANCE_FIELD),
+                Aggregation.skip((long) skip),
+                Aggregation.limit(limit),
+                Aggregation.project().andExclude("searchTokens", "searchPrefixes")
+        );
+
+        return mongoTemplate.aggregate(aggregation, BranchDocument.class, Document.class)
+                .getMappedResults()
+                .stream()
+                .map(raw -> new BranchDistance(
+                        BranchMapper.toEntity(mongoTemplate.getConverter().read(BranchDocument.class, raw)),
+                        ((Number) raw.get(DISTANCE_FIELD)).doubleValue()
+                ))
+                .toList();
+    }
+
+    // =========================
+    // 🔍 SEARCH FIELDS
+    // =========================
+    private static BranchDocument withSearchFields(BranchDocument doc) {
+        List<String> tokens = BranchSearchText.tokens(
+                doc.getName(), BranchMapper.toAddressEntity(doc.getAddress())
+        );
+        doc.setSearchTokens(tokens);
+        doc.setSearchPrefixes(BranchSearchText.prefixes(tokens));
+        doc.setSearchVersion(BranchSearchText.VERSION);
+        return doc;
+    }
+
+    /**
+     * Document cũ (trước @Version) không có version → save bị coi là insert, trùng _id.
+     * Gắn version = 0 rồi trả version hiện tại; null = document chưa tồn tại.
+     */
+    private Long adoptLegacyVersion(String id) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(id).and("version").is(null)),
+                Update.update("version", 0L),
+                BranchDocument.class
+        );
+
+        Query query = Query.query(Criteria.where("_id").is(id));
+        query.fields().include("version");
+        BranchDocument current = mongoTemplate.findOne(query, BranchDocument.class);
+        return current == null ? null : current.getVersion();
+    }
+
+    /**
+     * $set partial không biết field còn lại → tính lại từ document mới rồi ghi bù.
+     * Ghi theo tên collection (không qua entity) để không tăng version;
+     * điều kiện version: có update mới hơn thì update đó tự ghi bù.
+     */
+    private void refreshSearchFields(BranchDocument updated) {
+        BranchDocument withSearch = withSearchFields(updated);
+
+        Query query = Query.query(
+                Criteria.where("_id").is(BranchMapper.toObjectId(updated.getId()))
+                        .and("version").is(updated.getVersion())
+        );
+        Update update = new Update()
+                .set("searchTokens", withSearch.getSearchTokens())
+                .set("searchPrefixes", withSearch.getSearchPrefixes())
+                .set("searchVersion", withSearch.getSearchVersion());
+
+        mongoTemplate.updateFirst(query, update, mongoTemplate.getCollectionName(BranchDocument.class));
+    }
+
+    private static Criteria toCriteria(BranchFilter filter) {
+        Criteria criteria = new Criteria();
+        if (filter.province() != null) {
+            criteria.and("address.province").is(filter.province());
+        }
+        if (filter.district() != null) {
+            criteria.and("address.district").is(filter.district());
+        }
+        if (filter.ward() != null) {
+            criteria.and("address.ward").is(filter.ward());
+        }
+        return criteria;
+    }
+
+    private record CachedCount(long value, long expiresAt) {
+    }
 }
@@ -0,0 +1,76 @@
+package com.example.demo.infrastructure.branch;
+
+import com.example.demo.domain.model.BranchDocument;
+import com.example.demo.infrastructure.branch.mapper.BranchMapper;
+import com.example.demo.service.branchService.search.BranchSearchText;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Tính searchTokens / searchPrefixes cho branch cũ (chưa có hoặc khác {@link BranchSearchText#VERSION}).
+ * Chạy 1 lần lúc startup, theo lô, ghi bulk theo tên collection (không tăng version).
+ * Ghi theo tên collection thì _id không được tự convert → truyền ObjectId.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BranchSearchBackfill {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        String collection = mongoTemplate.getCollectionName(BranchDocument.class);
+        long updated = 0;
+        String lastId = null;
+
+        while (true) {
+            Criteria criteria = Criteria.where("searchVersion").ne(BranchSearchText.VERSION);
+            if (lastId != null) {
+                criteria = criteria.and("_id").gt(lastId);
+            }
+            Query query = Query.query(criteria)
+                    .with(Sort.by(Sort.Direction.ASC, "_id"))
+                    .limit(BATCH_SIZE);
+            query.fields().include("name", "address");
+
+            List<BranchDocument> batch = mongoTemplate.find(query, BranchDocument.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+            for (BranchDocument doc : batch) {
+                List<String> tokens = BranchSearchText.tokens(
+                        doc.getName(), BranchMapper.toAddressEntity(doc.getAddress())
+                );
+                bulk.updateOne(
+                        Query.query(Criteria.where("_id").is(BranchMapper.toObjectId(doc.getId()))),
+                        new Update()
+                                .set("searchTokens", tokens)
+                                .set("searchPrefixes", BranchSearchText.prefixes(tokens))
+                                .set("searchVersion", BranchSearchText.VERSION)
+                );
+            }
+            updated += bulk.execute().getModifiedCount();
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+
+        if (updated > 0) {
+            log.info("🔍 Branch search fields backfilled: {} documents", updated);
+        }
+    }
+}
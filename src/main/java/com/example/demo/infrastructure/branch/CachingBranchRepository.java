@@ -0,0 +1,223 @@
+package com.example.demo.infrastructure.branch;
+
+import com.example.demo.domain.dto.req.CreateBranchReq;
+import com.example.demo.domain.dto.req.UpdateBranchReq;
+import com.example.demo.domain.entities.BranchEntity;
+import com.example.demo.service.branchService.repository.BranchDistance;
+import com.example.demo.service.branchService.repository.BranchFilter;
+import com.example.demo.service.branchService.repository.IBranchRepository;
+import com.example.demo.service.redisConfig.branch.BranchChangeBus;
+import com.example.demo.share.cache.LocalTtlCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Decorator cache đặt trước {@link BranchRepositoryImpl}.
+ *
+ * - L1: {@link LocalTtlCache} theo id và theo trang listing (single-flight, TTL có jitter)
+ * - L2 (tuỳ chọn): Redis "cache:branch:{id}" dùng chung giữa các node
+ * - Ghi (create / update / save / delete) → xoá L1, thay L2 bằng tombstone "~{version}"
+ *   rồi publish lên {@link BranchChangeBus} để node khác xoá L1 của họ
+ * - Ghi bù L2 sau khi đọc Mongo chỉ thành công khi bản đọc được không cũ hơn tombstone
+ *   → reader chậm không ghi lại bản cũ / bản đã bị xoá vào L2
+ */
+@Slf4j
+@Primary
+@Repository
+public class CachingBranchRepository implements IBranchRepository {
+
+    private static final String L2_PREFIX = "cache:branch:";
+    private static final String L2_TOMBSTONE = "~";
+    // Delete: không bản đọc nào được ghi lại
+    private static final long DELETED_VERSION = Long.MAX_VALUE;
+
+    private static final RedisScript<Long> L2_PUT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/branch_cache_put.lua"), Long.class);
+
+    private final BranchRepositoryImpl delegate;
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final BranchChangeBus changeBus;
+
+    private final LocalTtlCache<String, Optional<BranchEntity>> byId;
+    private final LocalTtlCache<PageKey, List<BranchEntity>> pages;
+
+    private final boolean redisEnabled;
+    private final Duration redisTtl;
+
+    public CachingBranchRepository(
+            BranchRepositoryImpl delegate,
+            StringRedisTemplate redis,
+            ObjectMapper objectMapper,
+            BranchChangeBus changeBus,
+            @Value("${app.branch.cache.max-size:10000}") int maxSize,
+            @Value("${app.branch.cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${app.branch.cache.page-max-size:500}") int pageMaxSize,
+            @Value("${app.branch.cache.page-ttl-seconds:30}") long pageTtlSeconds,
+            @Value("${app.branch.cache.redis-enabled:false}") boolean redisEnabled,
+            @Value("${app.branch.cache.redis-ttl-seconds:600}") long redisTtlSeconds
+    ) {
+        this.delegate = delegate;
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.changeBus = changeBus;
+        this.byId = new LocalTtlCache<>("branch.byId", maxSize, Duration.ofSeconds(ttlSeconds));
+        this.pages = new LocalTtlCache<>("branch.pages", pageMaxSize, Duration.ofSeconds(pageTtlSeconds));
+        this.redisEnabled = redisEnabled;
+        this.redisTtl = Duration.ofSeconds(redisTtlSeconds);
+    }
+
+    /**
+     * Subscribe trước {@code BranchSearchIndex} (bean đó phụ thuộc repository này)
+     * → cache đã được xoá khi index nạp lại branch từ repository.
+     */
+    @PostConstruct
+    void subscribe() {
+        changeBus.subscribe(change -> evictLocal(change.branchId()));
+    }
+
+    // =========================
+    // 📄 READ
+    // =========================
+    @Override
+    public Optional<BranchEntity> findById(String id) {
+        return byId.get(id, this::loadById);
+    }
+
+    @Override
+    public List<BranchEntity> findPage(BranchFilter filter, Sort sort, int page, int size) {
+        return pages.get(
+                new PageKey(filter, sort, page, size),
+                key -> delegate.findPage(key.filter(), key.sort(), key.page(), key.size())
+        );
+    }
+
+    @Override
+    public long count(BranchFilter filter) {
+        return delegate.count(filter);
+    }
+
+    @Override
+    public List<BranchEntity> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<BranchEntity> searchByPrefixes(List<String> queryTokens, int limit) {
+        return delegate.searchByPrefixes(queryTokens, limit);
+    }
+
+    // Cache theo ô lưới nằm ở BranchNearCache (tầng service)
+    @Override
+    public List<BranchDistance> findNear(double lat, double lng, double radiusMeters, int skip, int limit) {
+        return delegate.findNear(lat, lng, radiusMeters, skip, limit);
+    }
+
+    // =========================
+    // ✏️ WRITE (write-through invalidation)
+    // =========================
+    @Override
+    public BranchEntity create(CreateBranchReq req) {
+        BranchEntity created = delegate.create(req);
+        changed(BranchChangeBus.Type.UPSERT, created.getId(), created.getVersion());
+        return created;
+    }
+
+    @Override
+    public Optional<BranchEntity> update(String id, UpdateBranchReq req) {
+        Optional<BranchEntity> updated = delegate.update(id, req);
+        updated.ifPresent(branch -> changed(BranchChangeBus.Type.UPSERT, id, branch.getVersion()));
+        return updated;
+    }
+
+    @Override
+    public BranchEntity save(BranchEntity branch) {
+        BranchEntity saved = delegate.save(branch);
+        changed(BranchChangeBus.Type.UPSERT, saved.getId(), saved.getVersion());
+        return saved;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        delegate.deleteById(id);
+        changed(BranchChangeBus.Type.DELETE, id, DELETED_VERSION);
+    }
+
+    @Override
+    public List<LocalTtlCache.Stats> cacheStats() {
+        return List.of(byId.stats(), pages.stats());
+    }
+
+    private void changed(BranchChangeBus.Type type, String id, Long version) {
+        evictLocal(id);
+        if (redisEnabled) {
+            try {
+                redis.opsForValue().set(L2_PREFIX + id, L2_TOMBSTONE + versionOf(version), redisTtl);
+            } catch (DataAccessException e) {
+                log.warn("[BRANCH_CACHE] L2 evict failed for {}: {}", id, e.getMessage());
+            }
+        }
+        changeBus.publish(type, id);
+    }
+
+    private void evictLocal(String id) {
+        byId.invalidate(id);
+        pages.invalidateAll();
+    }
+
+    // =========================
+    // 🧱 L2 (Redis)
+    // =========================
+    private Optional<BranchEntity> loadById(String id) {
+        if (!redisEnabled) {
+            return delegate.findById(id);
+        }
+
+        try {
+            String json = redis.opsForValue().get(L2_PREFIX + id);
+            if (json != null && !json.startsWith(L2_TOMBSTONE)) {
+                return Optional.of(objectMapper.readValue(json, BranchEntity.class));
+            }
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("[BRANCH_CACHE] L2 read failed for {}: {}", id, e.getMessage());
+        }
+
+        Optional<BranchEntity> loaded = delegate.findById(id);
+        loaded.ifPresent(branch -> {
+            try {
+                redis.execute(
+                        L2_PUT_SCRIPT,
+                        List.of(L2_PREFIX + id),
+                        objectMapper.writeValueAsString(branch),
+                        String.valueOf(versionOf(branch.getVersion())),
+                        String.valueOf(redisTtl.toSeconds())
+                );
+            } catch (DataAccessException | JsonProcessingException e) {
+                log.warn("[BRANCH_CACHE] L2 write failed for {}: {}", id, e.getMessage());
+            }
+        });
+        return loaded;
+    }
+
+    // Document cũ chưa có version ≈ version 0
+    private static long versionOf(Long version) {
+        return version == null ? 0 : version;
+    }
+
+    private record PageKey(BranchFilter filter, Sort sort, int page, int size) {
+    }
+}
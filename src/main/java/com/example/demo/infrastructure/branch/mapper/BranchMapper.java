@@ -7,6 +7,8 @@ import com.example.demo.domain.entities.AddressEntity;
 import com.example.demo.domain.entities.BranchEntity;
 import com.example.demo.domain.model.AddressDocument;
 import com.example.demo.domain.model.BranchDocument;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 
 public class BranchMapper {
 
@@ -16,7 +18,8 @@ public class BranchMapper {
         return BranchEntity.builder()
                 .id(doc.getId())
                 .name(doc.getName())
-                .address(toAddressEntity(doc.getAddress()))
+                .address(withCoordinates(toAddressEntity(doc.getAddress()), doc.getLocation()))
+                .version(doc.getVersion())
                 .build();
     }
 
@@ -27,6 +30,8 @@ public class BranchMapper {
                 .id(entity.getId())
                 .name(entity.getName())
                 .address(toAddressDocument(entity.getAddress()))
+                .location(toLocation(entity.getAddress()))
+                .version(entity.getVersion())
                 .build();
     }
 
@@ -58,6 +63,9 @@ public class BranchMapper {
                 .district(addr != null ? addr.getDistrict() : null)
                 .province(addr != null ? addr.getProvince() : null)
                 .country(addr != null ? addr.getCountry() : null)
+                .latitude(addr != null ? addr.getLatitude() : null)
+                .longitude(addr != null ? addr.getLongitude() : null)
+                .version(entity.getVersion())
                 .build();
     }
 
@@ -92,6 +100,30 @@ public class BranchMapper {
                 .district(req.getDistrict())
                 .province(req.getProvince())
                 .country(req.getCountry())
+                .latitude(req.getLatitude())
+                .longitude(req.getLongitude())
                 .build();
     }
+
+    // GeoJSON Point = [lng, lat]; thiếu 1 trong 2 toạ độ → không có location
+    public static GeoJsonPoint toLocation(AddressEntity address) {
+        if (address == null || address.getLatitude() == null || address.getLongitude() == null) {
+            return null;
+        }
+        return new GeoJsonPoint(address.getLongitude(), address.getLatitude());
+    }
+
+    private static AddressEntity withCoordinates(AddressEntity address, GeoJsonPoint location) {
+        if (address == null || location == null) {
+            return address;
+        }
+        address.setLongitude(location.getX());
+        address.setLatitude(location.getY());
+        return address;
+    }
+
+    // Id dạng hex được Mongo lưu là ObjectId (dùng khi query theo tên collection, không qua mapping)
+    public static Object toObjectId(String id) {
+        return id != null && ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
 }
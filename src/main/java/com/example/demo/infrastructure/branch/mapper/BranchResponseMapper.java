@@ -18,6 +18,9 @@ public class BranchResponseMapper {
                 .district(addr != null ? addr.getDistrict() : null)
                 .province(addr != null ? addr.getProvince() : null)
                 .country(addr != null ? addr.getCountry() : null)
+                .latitude(addr != null ? addr.getLatitude() : null)
+                .longitude(addr != null ? addr.getLongitude() : null)
+                .version(entity.getVersion())
                 .build();
     }
 }
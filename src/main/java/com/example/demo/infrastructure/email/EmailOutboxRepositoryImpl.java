@@ -0,0 +1,230 @@
+package com.example.demo.infrastructure.email;
+
+import com.example.demo.domain.entities.EmailOutboxMessage;
+import com.example.demo.domain.enums.EmailOutboxStatus;
+import com.example.demo.domain.enums.EmailType;
+import com.example.demo.domain.model.EmailOutboxDocument;
+import com.example.demo.infrastructure.email.mapper.EmailOutboxMapper;
+import com.example.demo.service.emailService.outbox.IEmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class EmailOutboxRepositoryImpl implements IEmailOutboxRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    private static final int ENQUEUE_MAX_TRIES = 3;
+    private static final Duration SUPERSEDED_RETENTION = Duration.ofDays(3);
+
+    /**
+     * Gộp trước (findAndModify theo coalesceKey), không có mới insert.
+     * 2 node insert cùng lúc → unique index chặn 1 bên, bên đó quay lại gộp.
+     */
+    @Override
+    public Enqueued enqueue(EmailOutboxMessage message, Duration coalesceWindow) {
+        String key = coalesceKey(message.getType(), message.getRecipient());
+
+        for (int i = 0; i < ENQUEUE_MAX_TRIES; i++) {
+            Instant now = Instant.now();
+
+            EmailOutboxDocument merged = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("coalesceKey").is(key)),
+                    new Update()
+                            .set("payload", message.getPayload())
+                            .set("locale", message.getLocale())
+                            .set("deliverBefore", message.getDeliverBefore())
+                            .set("updatedAt", now)
+                            // Gộp vào mail đang chờ retry → không bắt bản mới chờ hết backoff
+                            .min("nextAttemptAt", now.plus(coalesceWindow))
+                            .inc("coalesced", 1),
+                    FindAndModifyOptions.options().returnNew(true),
+                    EmailOutboxDocument.class
+            );
+            if (merged != null) {
+                return new Enqueued(merged.getId(), true);
+            }
+
+            EmailOutboxDocument doc = EmailOutboxMapper.toDocument(message);
+            doc.setCoalesceKey(key);
+            doc.setStatus(EmailOutboxStatus.PENDING);
+            doc.setAttempts(0);
+            doc.setNextAttemptAt(now.plus(coalesceWindow));
+            doc.setCreatedAt(now);
+            doc.setUpdatedAt(now);
+            try {
+                return new Enqueued(mongoTemplate.insert(doc).getId(), false);
+            } catch (DuplicateKeyException e) {
+                // Request khác vừa insert cùng key → vòng sau gộp vào bản đó
+            }
+        }
+
+        // Bản đang chờ liên tục bị claim đúng lúc: ghi riêng, không gộp
+        EmailOutboxDocument doc = EmailOutboxMapper.toDocument(message);
+        Instant now = Instant.now();
+        doc.setStatus(EmailOutboxStatus.PENDING);
+        doc.setNextAttemptAt(now);
+        doc.setCreatedAt(now);
+        doc.setUpdatedAt(now);
+        return new Enqueued(mongoTemplate.insert(doc).getId(), false);
+    }
+
+    /**
+     * 3 round trip cho cả batch (thay vì 1 findAndModify / mail):
+     * 1. lấy id các mail đến hạn
+     * 2. updateMulti có điều kiện (vẫn PENDING + đến hạn) gắn leaseToken của batch
+     *    → worker khác chen vào trước thì mail đó không khớp nữa
+     * 3. đọc lại đúng những mail mang leaseToken của mình
+     */
+    @Override
+    public List<EmailOutboxMessage> claim(String owner, int limit, Duration lease) {
+        Instant now = Instant.now();
+
+        Query due = Query.query(dueCriteria(now))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"))
+                .limit(limit);
+        due.fields().include("_id");
+
+        List<String> ids = mongoTemplate.find(due, EmailOutboxDocument.class)
+                .stream()
+                .map(EmailOutboxDocument::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        String leaseToken = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                Query.query(dueCriteria(now).and("_id").in(ids)),
+                new Update()
+                        .set("nextAttemptAt", now.plus(lease))
+                        // Đã claim → không gộp thêm; gửi trùng sau lúc này thành mail mới
+                        // (trả về PENDING thì lấy lại key, xem releaseToPending)
+                        .unset("coalesceKey")
+                        .set("leaseOwner", owner)
+                        .set("leaseToken", leaseToken)
+                        .set("updatedAt", now)
+                        .inc("attempts", 1),
+                EmailOutboxDocument.class
+        );
+
+        return mongoTemplate.find(
+                        Query.query(Criteria.where("_id").in(ids).and("leaseToken").is(leaseToken)),
+                        EmailOutboxDocument.class
+                )
+                .stream()
+                .map(EmailOutboxMapper::toEntity)
+                .toList();
+    }
+
+    @Override
+    public boolean markSent(String id, String leaseToken, Instant expireAt) {
+        Instant now = Instant.now();
+        return release(id, leaseToken, new Update()
+                .set("status", EmailOutboxStatus.SENT)
+                .set("sentAt", now)
+                .set("expireAt", expireAt)
+                .unset("payload")
+                .unset("lastError"));
+    }
+
+    @Override
+    public boolean reschedule(String id, String leaseToken, Instant nextAttemptAt, String error) {
+        return releaseToPending(id, leaseToken, new Update()
+                .set("nextAttemptAt", nextAttemptAt)
+                .set("lastError", error));
+    }
+
+    @Override
+    public boolean markDead(String id, String leaseToken, String error, Instant expireAt) {
+        return release(id, leaseToken, new Update()
+                .set("status", EmailOutboxStatus.DEAD)
+                .set("lastError", error)
+                .set("expireAt", expireAt)
+                .unset("payload"));
+    }
+
+    @Override
+    public boolean requeue(String id, String leaseToken, Instant nextAttemptAt) {
+        return releaseToPending(id, leaseToken, new Update()
+                .set("nextAttemptAt", nextAttemptAt)
+                .inc("attempts", -1));
+    }
+
+    @Override
+    public Map<EmailOutboxStatus, Long> countByStatus() {
+        Map<EmailOutboxStatus, Long> counts = new EnumMap<>(EmailOutboxStatus.class);
+        for (EmailOutboxStatus status : EmailOutboxStatus.values()) {
+            counts.put(status, mongoTemplate.count(
+                    Query.query(Criteria.where("status").is(status)), EmailOutboxDocument.class
+            ));
+        }
+        return counts;
+    }
+
+    /**
+     * Về lại hàng chờ: lấy lại coalesceKey để gửi trùng sau này gộp vào mail này.
+     * Trong lúc giữ lease đã có mail mới hơn cùng loại + người nhận giữ key
+     * → bản này lỗi thời (OTP / link cũ), đánh SUPERSEDED thay vì gửi lại.
+     */
+    private boolean releaseToPending(String id, String leaseToken, Update update) {
+        Query leased = leased(id, leaseToken);
+        leased.fields().include("type").include("recipient");
+        EmailOutboxDocument doc = mongoTemplate.findOne(leased, EmailOutboxDocument.class);
+        if (doc == null) {
+            return false;
+        }
+
+        try {
+            return release(id, leaseToken, update.set("coalesceKey", coalesceKey(doc.getType(), doc.getRecipient())));
+        } catch (DuplicateKeyException e) {
+            Instant now = Instant.now();
+            return release(id, leaseToken, new Update()
+                    .set("status", EmailOutboxStatus.SUPERSEDED)
+                    .set("lastError", "superseded by a newer pending mail")
+                    .set("expireAt", now.plus(SUPERSEDED_RETENTION))
+                    .unset("payload"));
+        }
+    }
+
+    // Chỉ chủ lease hiện tại được kết thúc lượt gửi
+    private boolean release(String id, String leaseToken, Update update) {
+        update.set("updatedAt", Instant.now())
+                .unset("leaseOwner")
+                .unset("leaseToken");
+
+        return mongoTemplate.updateFirst(leased(id, leaseToken), update, EmailOutboxDocument.class)
+                .getModifiedCount() > 0;
+    }
+
+    private static Query leased(String id, String leaseToken) {
+        return Query.query(Criteria.where("_id").is(id)
+                .and("status").is(EmailOutboxStatus.PENDING)
+                .and("leaseToken").is(leaseToken));
+    }
+
+    static String coalesceKey(EmailType type, String recipient) {
+        return type + ":" + recipient.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Criteria dueCriteria(Instant now) {
+        return Criteria.where("status").is(EmailOutboxStatus.PENDING)
+                .and("nextAttemptAt").lte(now);
+    }
+}
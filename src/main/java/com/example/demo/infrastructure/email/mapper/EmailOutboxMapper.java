@@ -0,0 +1,38 @@
+package com.example.demo.infrastructure.email.mapper;
+
+import com.example.demo.domain.entities.EmailOutboxMessage;
+import com.example.demo.domain.model.EmailOutboxDocument;
+
+public class EmailOutboxMapper {
+
+    // Document -> Entity
+    public static EmailOutboxMessage toEntity(EmailOutboxDocument doc) {
+        if (doc == null) return null;
+        return EmailOutboxMessage.builder()
+                .id(doc.getId())
+                .type(doc.getType())
+                .recipient(doc.getRecipient())
+                .payload(doc.getPayload())
+                .locale(doc.getLocale())
+                .attempts(doc.getAttempts())
+                .leaseToken(doc.getLeaseToken())
+                .deliverBefore(doc.getDeliverBefore())
+                .createdAt(doc.getCreatedAt())
+                .build();
+    }
+
+    // Entity -> Document (chỉ dùng lúc enqueue)
+    public static EmailOutboxDocument toDocument(EmailOutboxMessage entity) {
+        if (entity == null) return null;
+        return EmailOutboxDocument.builder()
+                .id(entity.getId())
+                .type(entity.getType())
+                .recipient(entity.getRecipient())
+                .payload(entity.getPayload())
+                .locale(entity.getLocale())
+                .attempts(entity.getAttempts())
+                .deliverBefore(entity.getDeliverBefore())
+                .createdAt(entity.getCreatedAt())
+                .build();
+    }
+}
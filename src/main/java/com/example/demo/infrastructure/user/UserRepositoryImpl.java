@@ -2,29 +2,65 @@ package com.example.demo.infrastructure.user;
 
 import com.example.demo.domain.dto.res.UserResponse;
 import com.example.demo.infrastructure.user.repository.MongoUserRepository;
+import com.example.demo.service.user.repository.DuplicateUserFieldException;
 import com.example.demo.service.user.repository.IUserRepository;
 
 
 
+import com.example.demo.domain.entities.UserCredential;
 import com.example.demo.domain.entities.UserEntity;
 import com.example.demo.infrastructure.user.mapper.UserMapper;
+import com.example.demo.domain.model.UserDocument;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
 public class UserRepositoryImpl implements IUserRepository {
 
     private final MongoUserRepository mongoUserRepository;
+    private final MongoTemplate mongoTemplate;
+
+    private static final int STREAM_BATCH_SIZE = 500;
 
     @Override
     public UserEntity save(UserEntity user) {
         var document = UserMapper.toDocument(user);
-        var saved = mongoUserRepository.save(document);
-        return UserMapper.toEntity(saved);
+        if (document.getId() != null && document.getVersion() == null) {
+            document.setVersion(adoptLegacyVersion(document.getId()));
+        }
+        try {
+            var saved = mongoUserRepository.save(document);
+            return UserMapper.toEntity(saved);
+        } catch (DuplicateKeyException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public UserEntity insert(UserEntity user) {
+        var document = UserMapper.toDocument(user);
+        try {
+            var saved = mongoUserRepository.insert(document);
+            return UserMapper.toEntity(saved);
+        } catch (DuplicateKeyException e) {
+            throw translate(e);
+        }
     }
 
     @Override
@@ -35,6 +71,34 @@ public class UserRepositoryImpl implements IUserRepository {
                 .toList();
     }
 
+    @Override
+    public List<UserEntity> findPageAfter(String afterId, int limit) {
+        Query query = new Query();
+        if (afterId != null) {
+            query.addCriteria(Criteria.where("_id").gt(new ObjectId(afterId)));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit);
+        query.fields().exclude("password");
+
+        return mongoTemplate.find(query, UserDocument.class)
+                .stream()
+                .map(UserMapper::toEntity)
+                .toList();
+    }
+
+    @Override
+    public void forEach(Consumer<UserEntity> consumer) {
+        Query query = new Query()
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        query.fields().exclude("password");
+
+        // Stream giữ cursor mở → phải đóng
+        try (Stream<UserDocument> documents = mongoTemplate.stream(query, UserDocument.class)) {
+            documents.map(UserMapper::toEntity).forEach(consumer);
+        }
+    }
+
     @Override
     public boolean existsByEmail(String email) {
         return mongoUserRepository.existsByEmail(email);
@@ -51,9 +115,125 @@ public class UserRepositoryImpl implements IUserRepository {
                 .map(UserMapper::toEntity);
     }
 
+    @Override
+    public Optional<UserCredential> findCredentialByEmail(String email) {
+        return mongoUserRepository.findCredentialByEmail(email);
+    }
+
     @Override
     public Optional<UserEntity> findById(String id) {
         return mongoUserRepository.findById(id)
                 .map(UserMapper::toEntity);
     }
+
+    @Override
+    public boolean replacePasswordHash(String id, String expectedHash, String newHash) {
+        Query query = Query.query(
+                Criteria.where("_id").is(id).and("password").is(expectedHash)
+        );
+        return mongoTemplate
+                .updateFirst(query, Update.update("password", newHash), UserDocument.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public Optional<UserEntity> updateProfile(String id, String username, Integer year, Long expectedVersion) {
+        Update update = new Update()
+                .set("updatedAt", Instant.now())
+                .inc("version", 1);
+        if (username != null) {
+            update.set("username", username);
+        }
+        if (year != null) {
+            update.set("year", year);
+        }
+
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (expectedVersion != null) {
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+
+        UserDocument updated;
+        try {
+            updated = mongoTemplate.findAndModify(
+                    Query.query(criteria),
+                    update,
+                    FindAndModifyOptions.options().returnNew(true),
+                    UserDocument.class
+            );
+        } catch (DuplicateKeyException e) {
+            throw translate(e);
+        }
+
+        if (updated != null) {
+            return Optional.of(UserMapper.toEntity(updated));
+        }
+
+        // Không match: chỉ khi có version mới cần phân biệt "không tồn tại" và "bị sửa trước"
+        if (expectedVersion != null && mongoUserRepository.existsById(id)) {
+            throw new OptimisticLockingFailureException("User " + id + " was modified concurrently");
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean markEmailVerified(String id) {
+        Query query = Query.query(
+                Criteria.where("_id").is(id).and("emailVerified").is(false)
+        );
+        Update update = new Update()
+                .set("emailVerified", true)
+                .set("updatedAt", Instant.now())
+                .inc("version", 1);
+        return mongoTemplate
+                .updateFirst(query, update, UserDocument.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean updatePassword(String id, String expectedHash, String newHash) {
+        Query query = Query.query(
+                Criteria.where("_id").is(id).and("password").is(expectedHash)
+        );
+        Update update = new Update()
+                .set("password", newHash)
+                .set("updatedAt", Instant.now())
+                .inc("version", 1);
+        return mongoTemplate
+                .updateFirst(query, update, UserDocument.class)
+                .getModifiedCount() > 0;
+    }
+
+    /**
+     * Document tạo trước khi có @Version không có field version; save với version null
+     * bị Spring Data coi là document mới → insert → trùng _id.
+     * Gắn version = 0 cho document cũ rồi trả version hiện tại (caller không mang version
+     * → last-write-wins như trước).
+     *
+     * @return version trong DB, null nếu document chưa tồn tại (insert mới)
+     */
+    private Long adoptLegacyVersion(String id) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(id).and("version").is(null)),
+                Update.update("version", 0L),
+                UserDocument.class
+        );
+
+        Query query = Query.query(Criteria.where("_id").is(id));
+        query.fields().include("version");
+        UserDocument current = mongoTemplate.findOne(query, UserDocument.class);
+        return current == null ? null : current.getVersion();
+    }
+
+    // Mongo báo tên index bị vi phạm trong message (E11000 ... index: uk_users_email ...)
+    private RuntimeException translate(DuplicateKeyException e) {
+        String message = String.valueOf(e.getMessage());
+        if (message.contains(UserDocument.UK_EMAIL)) {
+            return new DuplicateUserFieldException(DuplicateUserFieldException.Field.EMAIL, e);
+        }
+        if (message.contains(UserDocument.UK_USERNAME)) {
+            return new DuplicateUserFieldException(DuplicateUserFieldException.Field.USERNAME, e);
+        }
+        return e;
+    }
 }
@@ -20,6 +20,7 @@ public class UserMapper {
                         .orElse(Role.USER))
                 .createdAt(document.getCreatedAt())
                 .updatedAt(document.getUpdatedAt())
+                .version(document.getVersion())
                 .build();
     }
     // Entity (Domain) -> Document (Mongo)
@@ -35,6 +36,7 @@ public class UserMapper {
                 .role(entity.getRole())
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt())
+                .version(entity.getVersion())
                 .build();
     }
 }
@@ -1,6 +1,7 @@
 package com.example.demo.infrastructure.user.mapper;
 
 import com.example.demo.domain.dto.res.UserResponse;
+import com.example.demo.domain.entities.UserCredential;
 import com.example.demo.domain.entities.UserEntity;
 
 public class UserResponseMapper {
@@ -22,6 +23,23 @@ public class UserResponseMapper {
                 .year(entity.getYear())
                 .role(entity.getRole().name())
                 .emailVerified(entity.isEmailVerified())
+                .version(entity.getVersion())
+                .build();
+    }
+
+    public static UserResponse toResponse(UserCredential credential) {
+
+        if (credential == null) {
+            return null;
+        }
+
+        return UserResponse.builder()
+                .id(credential.id())
+                .username(credential.username())
+                .email(credential.email())
+                .year(credential.year())
+                .role(credential.role().name())
+                .emailVerified(credential.emailVerified())
                 .build();
     }
 }
@@ -1,7 +1,9 @@
 package com.example.demo.infrastructure.user.repository;
 
+import com.example.demo.domain.entities.UserCredential;
 import com.example.demo.domain.model.UserDocument;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.Optional;
 
@@ -13,4 +15,11 @@ public interface MongoUserRepository extends MongoRepository<UserDocument, Strin
 
 
     Optional<UserDocument> findByEmail(String email);
+
+    // Login: chỉ lấy field cần thiết, map thẳng vào record
+    @Query(
+            value = "{ 'email': ?0 }",
+            fields = "{ '_id': 1, 'username': 1, 'email': 1, 'year': 1, 'role': 1, 'emailVerified': 1, 'password': 1 }"
+    )
+    Optional<UserCredential> findCredentialByEmail(String email);
 }
@@ -1,20 +1,24 @@
 package com.example.demo.service.authService;
 
 import com.example.demo.config.jwt.JwtService;
+import com.example.demo.config.jwt.VerifiedToken;
 import com.example.demo.domain.dto.req.*;
 import com.example.demo.domain.dto.res.AuthResponse;
 import com.example.demo.domain.dto.res.UserResponse;
+import com.example.demo.domain.entities.UserCredential;
 import com.example.demo.domain.entities.UserEntity;
 import com.example.demo.exception.BusinessException;
+import com.example.demo.exception.CommonError;
 import com.example.demo.exception.auth.AuthError;
 import com.example.demo.exception.user.UserError;
 import com.example.demo.infrastructure.user.mapper.UserResponseMapper;
 import com.example.demo.service.emailService.AsyncEmailService;
+import com.example.demo.service.passwordService.PasswordHashingService;
 import com.example.demo.service.redisConfig.RedisFacade;
+import com.example.demo.service.redisConfig.rate_limit.AttemptStatus;
 import com.example.demo.service.user.IUserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
@@ -26,11 +30,13 @@ import java.util.List;
 public class AuthServiceImpl implements IAuthService {
 
     private final IUserService userService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashing;
     private final JwtService jwtService;
     private final RedisFacade redis;
     private final AsyncEmailService asyncEmailService;
 
+    private static final Duration OTP_TTL = Duration.ofMinutes(5);
+
     // =====================================================
     // 🆕 REGISTER
     // =====================================================
@@ -47,7 +53,9 @@ public class AuthServiceImpl implements IAuthService {
                 jwtService.getVerifyTokenExpiration()
         );
 
-        asyncEmailService.sendVerifyEmailAsync(user.getEmail(), verifyToken);
+        asyncEmailService.sendVerifyEmailAsync(
+                user.getEmail(), verifyToken, jwtService.getVerifyTokenExpiration()
+        );
 
         return user;
     }
@@ -80,7 +88,9 @@ public class AuthServiceImpl implements IAuthService {
                 jwtService.getVerifyTokenExpiration()
         );
 
-        asyncEmailService.sendVerifyEmailAsync(user.getEmail(), newToken);
+        asyncEmailService.sendVerifyEmailAsync(
+                user.getEmail(), newToken, jwtService.getVerifyTokenExpiration()
+        );
 
         return UserResponseMapper.toResponse(user);
     }
@@ -93,34 +103,40 @@ public class AuthServiceImpl implements IAuthService {
 
         String email = req.getEmail().trim();
 
-        if (redis.loginRateLimit.isBlocked(email)) {
-            long retryAfter = redis.loginRateLimit.getBlockRemaining(email);
-            throw new BusinessException(
-                    AuthError.TOO_MANY_LOGIN_ATTEMPTS,
-                    "Đăng nhập sai quá nhiều. Thử lại sau " + retryAfter + " giây.",
-                    retryAfter
-            );
+        // 1 round trip: blocked + retry-after
+        AttemptStatus status = redis.loginRateLimit.check(email);
+        if (status.blocked()) {
+            throw tooManyLoginAttempts(status.retryAfterSeconds());
         }
 
-        UserEntity user = userService.getByEmail(email)
+        UserCredential user = userService.getCredentialByEmail(email)
                 .orElseThrow(() -> {
                     handleFailedLogin(email);
                     return new BusinessException(UserError.INVALID_CREDENTIALS);
                 });
 
-        if (!passwordEncoder.matches(req.getPassword(), user.getPassword())) {
+        if (!passwordHashing.matches(req.getPassword(), user.password())) {
             handleFailedLogin(email);
             throw new BusinessException(UserError.INVALID_CREDENTIALS);
         }
 
-        if (!user.isEmailVerified()) {
+        if (!user.emailVerified()) {
             throw new BusinessException(UserError.EMAIL_NOT_VERIFIED);
         }
 
         redis.loginRateLimit.clear(email);
 
-        String userId = user.getId();
-        List<String> roles = List.of("ROLE_" + user.getRole().name());
+        String userId = user.id();
+
+        // Hash lưu với cost cũ → hash lại trong nền, không làm chậm login
+        String storedHash = user.password();
+        passwordHashing.rehashInBackground(
+                req.getPassword(),
+                storedHash,
+                newHash -> userService.replacePasswordHash(userId, storedHash, newHash)
+        );
+
+        List<String> roles = List.of("ROLE_" + user.role().name());
 
         String accessToken = jwtService.generateAccessToken(userId, roles);
         String refreshToken = jwtService.generateRefreshToken(userId);
@@ -140,18 +156,21 @@ public class AuthServiceImpl implements IAuthService {
 
     private void handleFailedLogin(String email) {
 
-        boolean blocked = redis.loginRateLimit.recordFailed(email);
+        AttemptStatus status = redis.loginRateLimit.recordFailed(email);
 
-        if (blocked) {
-            long retryAfter = redis.loginRateLimit.getBlockRemaining(email);
-            throw new BusinessException(
-                    AuthError.TOO_MANY_LOGIN_ATTEMPTS,
-                    "Đăng nhập sai quá nhiều. Thử lại sau " + retryAfter + " giây.",
-                    retryAfter
-            );
+        if (status.blocked()) {
+            throw tooManyLoginAttempts(status.retryAfterSeconds());
         }
     }
 
+    private BusinessException tooManyLoginAttempts(long retryAfter) {
+        return new BusinessException(
+                AuthError.TOO_MANY_LOGIN_ATTEMPTS,
+                "Đăng nhập sai quá nhiều. Thử lại sau " + retryAfter + " giây.",
+                retryAfter
+        );
+    }
+
     // =====================================================
     // 🔐 FORGOT PASSWORD (SEND OTP)
     // =====================================================
@@ -168,10 +187,10 @@ public class AuthServiceImpl implements IAuthService {
         redis.forgotPasswordOtp.save(
                 email,
                 otp,
-                Duration.ofMinutes(5)
+                OTP_TTL
         );
 
-        asyncEmailService.sendForgotPasswordOtpAsync(email, otp);
+        asyncEmailService.sendForgotPasswordOtpAsync(email, otp, OTP_TTL);
     }
 
     // =====================================================
@@ -183,28 +202,19 @@ public class AuthServiceImpl implements IAuthService {
         String email = req.getEmail().trim();
         String otp = req.getOtp().trim();
 
-        if (redis.otpRateLimit.isBlocked(email)) {
-            long retryAfter = redis.otpRateLimit.getBlockRemaining(email);
-            throw new BusinessException(
-                    AuthError.TOO_MANY_OTP_ATTEMPTS,
-                    "Nhập OTP sai quá nhiều. Thử lại sau " + retryAfter + " giây.",
-                    retryAfter
-            );
+        AttemptStatus status = redis.otpRateLimit.check(email);
+        if (status.blocked()) {
+            throw tooManyOtpAttempts(status.retryAfterSeconds());
         }
 
         String storedOtp = redis.forgotPasswordOtp.get(email);
 
         if (storedOtp == null || !storedOtp.equals(otp)) {
 
-            boolean blocked = redis.otpRateLimit.recordFailed(email);
+            AttemptStatus failed = redis.otpRateLimit.recordFailed(email);
 
-            if (blocked) {
-                long retryAfter = redis.otpRateLimit.getBlockRemaining(email);
-                throw new BusinessException(
-                        AuthError.TOO_MANY_OTP_ATTEMPTS,
-                        "Nhập OTP sai quá nhiều. Thử lại sau " + retryAfter + " giây.",
-                        retryAfter
-                );
+            if (failed.blocked()) {
+                throw tooManyOtpAttempts(failed.retryAfterSeconds());
             }
 
             throw new BusinessException(AuthError.INVALID_OTP);
@@ -224,6 +234,14 @@ public class AuthServiceImpl implements IAuthService {
         return resetToken;
     }
 
+    private BusinessException tooManyOtpAttempts(long retryAfter) {
+        return new BusinessException(
+                AuthError.TOO_MANY_OTP_ATTEMPTS,
+                "Nhập OTP sai quá nhiều. Thử lại sau " + retryAfter + " giây.",
+                retryAfter
+        );
+    }
+
     // =====================================================
     // 🔐 RESET PASSWORD
     // =====================================================
@@ -232,11 +250,11 @@ public class AuthServiceImpl implements IAuthService {
 
         String resetToken = req.getResetToken();
 
-        if (!jwtService.validateToken(resetToken)) {
-            throw new BusinessException(AuthError.INVALID_RESET_TOKEN);
-        }
+        VerifiedToken verified = jwtService.verify(resetToken)
+                .filter(t -> t.hasPurpose(VerifiedToken.PURPOSE_RESET_PASSWORD))
+                .orElseThrow(() -> new BusinessException(AuthError.INVALID_RESET_TOKEN));
 
-        String email = jwtService.extractEmail(resetToken);
+        String email = verified.subject();
 
         String storedToken = redis.resetPasswordToken.get(email);
         if (storedToken == null || !storedToken.equals(resetToken)) {
@@ -246,33 +264,36 @@ public class AuthServiceImpl implements IAuthService {
         UserEntity user = userService.getByEmail(email)
                 .orElseThrow(() -> new BusinessException(UserError.USER_NOT_FOUND));
 
-        user.setPassword(passwordEncoder.encode(req.getNewPassword()));
-        userService.save(user);
+        String newHash = passwordHashing.encode(req.getNewPassword());
+        if (!userService.updatePassword(user.getId(), user.getPassword(), newHash)) {
+            throw new BusinessException(CommonError.CONFLICT);
+        }
 
         redis.resetPasswordToken.delete(email);
+
+        // Đổi mật khẩu → thu hồi mọi phiên đang đăng nhập
+        logoutAllDevices(user.getId());
     }
 
     // =====================================================
     // 🔐 VERIFY EMAIL
     // =====================================================
     @Override
-    public UserResponse verifyEmail(String token) {
+    public void verifyEmail(String token) {
 
-        if (!jwtService.validateToken(token)) {
-            throw new BusinessException(AuthError.INVALID_VERIFY_TOKEN);
-        }
+        VerifiedToken verified = jwtService.verify(token)
+                .filter(t -> t.hasPurpose(VerifiedToken.PURPOSE_VERIFY))
+                .orElseThrow(() -> new BusinessException(AuthError.INVALID_VERIFY_TOKEN));
 
-        String userId = jwtService.extractUserId(token);
+        String userId = verified.subject();
 
         String storedToken = redis.verifyEmailToken.get(userId);
         if (storedToken == null || !storedToken.equals(token)) {
             throw new BusinessException(AuthError.INVALID_VERIFY_TOKEN);
         }
 
-        UserResponse response = userService.verifyEmail(userId);
+        userService.verifyEmail(userId);
         redis.verifyEmailToken.delete(userId);
-
-        return response;
     }
 
     // =====================================================
@@ -281,16 +302,21 @@ public class AuthServiceImpl implements IAuthService {
     @Override
     public void logout(String accessToken) {
 
-        String jti = jwtService.extractJti(accessToken);
-        redis.accessTokenBlacklist.blacklist(
-                jti,
-                jwtService.getRemainingDuration(accessToken)
-        );
-
-
+        // Token đã hết hạn / sai chữ ký → không còn gì để thu hồi
+        jwtService.verify(accessToken).ifPresent(verified -> {
+            // Chỉ phiên hiện tại: blacklist jti tới lúc token tự hết hạn
+            redis.accessTokenBlacklist.blacklist(verified.jti(), verified.remaining());
+            redis.refreshToken.delete(verified.subject());
+        });
+    }
 
-        String userId = jwtService.extractUserId(accessToken);
-        redis.refreshToken.delete(userId);
+    // =====================================================
+    // 🚪 LOGOUT ALL DEVICES
+    // =====================================================
+    @Override
+    public void logoutAllDevices(String userId) {
+        // 1 key epoch / user thay vì 1 key blacklist / token
+        redis.tokenRevocation.revokeAll(userId);
     }
 
     // =====================================================
@@ -301,11 +327,11 @@ public class AuthServiceImpl implements IAuthService {
 
         String refreshToken = req.getRefreshToken();
 
-        if (!jwtService.validateToken(refreshToken)) {
-            throw new BusinessException(AuthError.INVALID_REFRESH_TOKEN);
-        }
+        VerifiedToken verified = jwtService.verify(refreshToken)
+                .filter(t -> t.purpose() == null)
+                .orElseThrow(() -> new BusinessException(AuthError.INVALID_REFRESH_TOKEN));
 
-        String userId = jwtService.extractUserId(refreshToken);
+        String userId = verified.subject();
 
         String storedToken = redis.refreshToken.get(userId);
         if (storedToken == null || !storedToken.equals(refreshToken)) {
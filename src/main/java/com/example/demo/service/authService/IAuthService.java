@@ -12,11 +12,14 @@ public interface IAuthService {
 
     void logout(String accessToken);
 
+    // Thu hồi mọi access / refresh token của user
+    void logoutAllDevices(String userId);
+
     void forgotPassword(ForgotPasswordReq req);
 
     AuthResponse refreshToken(RefreshTokenReq req);
 
-    UserResponse verifyEmail(String token);
+    void verifyEmail(String token);
 
     // Resend verification email for given email
     UserResponse resendEmail(ResendEmailReq req);
@@ -1,13 +1,29 @@
 package com.example.demo.service.branchService;
 
+import com.example.demo.domain.dto.req.AddressReq;
 import com.example.demo.domain.dto.req.CreateBranchReq;
 import com.example.demo.domain.dto.req.UpdateBranchReq;
 import com.example.demo.domain.dto.res.BranchResponse;
+import com.example.demo.domain.entities.BranchEntity;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.exception.CommonError;
 import com.example.demo.infrastructure.branch.mapper.BranchResponseMapper;
+import com.example.demo.service.branchService.geo.BranchNearCache;
+import com.example.demo.service.branchService.repository.BranchDistance;
+import com.example.demo.service.branchService.repository.BranchFilter;
 import com.example.demo.service.branchService.repository.IBranchRepository;
+import com.example.demo.service.branchService.search.BranchSearchIndex;
+import com.example.demo.service.branchService.search.BranchSearchText;
+import com.example.demo.share.cache.LocalTtlCache;
+import com.example.demo.share.pagination.CursorCodec;
+import com.example.demo.share.pagination.CursorPageResponse;
+import com.example.demo.share.pagination.PageResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,19 +32,61 @@ import java.util.Optional;
 public class BranchServiceImpl implements IBranchService {
 
     private final IBranchRepository branchRepository;
+    private final BranchSearchIndex searchIndex;
+    private final BranchNearCache nearCache;
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int SEARCH_CANDIDATE_LIMIT = 200;
+    private static final double MAX_NEAR_RADIUS_METERS = 50_000;
+    // Trang sâu hơn thì nên thu hẹp bán kính
+    private static final int MAX_NEAR_OFFSET = 1_000;
 
     @Override
     public BranchResponse createBranch(CreateBranchReq req) {
+        validateCoordinates(req.getAddress());
         var saved = branchRepository.create(req);
+        searchIndex.upsert(saved);
+        nearCache.invalidateAll();
         return BranchResponseMapper.toResponse(saved);
     }
 
     @Override
-    public List<BranchResponse> getAllBranches() {
-        return branchRepository.findAll()
+    public PageResponse<BranchResponse> getBranches(
+            BranchFilter filter, String sort, String direction, int page, int size
+    ) {
+        int pageIndex = Math.max(0, page);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        List<BranchResponse> items = branchRepository
+                .findPage(filter, toSort(sort, direction), pageIndex, pageSize)
                 .stream()
                 .map(BranchResponseMapper::toResponse)
                 .toList();
+
+        long total = branchRepository.count(filter);
+
+        return PageResponse.<BranchResponse>builder()
+                .items(items)
+                .page(pageIndex)
+                .size(pageSize)
+                .totalElements(total)
+                .totalPages((int) ((total + pageSize - 1) / pageSize))
+                .totalEstimated(true)
+                .build();
+    }
+
+    // Chỉ cho sort theo field có index
+    private static Sort toSort(String sort, String direction) {
+        Sort.Direction dir = "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
+
+        if (sort == null || sort.isBlank() || "name".equalsIgnoreCase(sort)) {
+            return Sort.by(dir, "name");
+        }
+        if ("province".equalsIgnoreCase(sort)) {
+            return Sort.by(dir, "address.province").and(Sort.by(dir, "name"));
+        }
+        throw new BusinessException(CommonError.INVALID_REQUEST, "sort chỉ nhận name | province");
     }
 
     @Override
@@ -39,21 +97,116 @@ public class BranchServiceImpl implements IBranchService {
 
     @Override
     public BranchResponse updateBranch(String branchId, UpdateBranchReq req) {
-        var updatedOpt = branchRepository.update(branchId, req);
+        validateCoordinates(req.getAddress());
+        Optional<BranchEntity> updatedOpt;
+        try {
+            updatedOpt = branchRepository.update(branchId, req);
+        } catch (OptimisticLockingFailureException e) {
+            throw new BusinessException(CommonError.CONFLICT);
+        }
         if (updatedOpt.isEmpty()) return null;
+        searchIndex.upsert(updatedOpt.get());
+        nearCache.invalidateAll();
         return BranchResponseMapper.toResponse(updatedOpt.get());
     }
 
     @Override
     public void deleteBranch(String branchId) {
         branchRepository.deleteById(branchId);
+        searchIndex.remove(branchId);
+        nearCache.invalidateAll();
+    }
+
+    // Toạ độ đi theo cặp: thiếu 1 trong 2 thì không tạo được GeoJSON point
+    private static void validateCoordinates(AddressReq address) {
+        if (address != null && (address.getLatitude() == null) != (address.getLongitude() == null)) {
+            throw new BusinessException(CommonError.INVALID_REQUEST, "latitude và longitude phải đi cùng nhau");
+        }
     }
 
     @Override
     public List<BranchResponse> searchBranches(String q) {
-        return branchRepository.search(q)
+        // Không có từ khoá → trang đầu theo tên thay vì trả toàn bộ collection
+        if (q == null || q.isBlank()) {
+            return branchRepository.findPage(BranchFilter.none(), Sort.by("name"), 0, DEFAULT_PAGE_SIZE)
+                    .stream()
+                    .map(BranchResponseMapper::toResponse)
+                    .toList();
+        }
+
+        // Index trong RAM (autocomplete, không round trip Mongo)
+        if (searchIndex.isReady()) {
+            return searchIndex.search(q, DEFAULT_PAGE_SIZE)
+                    .stream()
+                    .map(BranchResponseMapper::toResponse)
+                    .toList();
+        }
+
+        // "quan 1" khớp "Quận 1": fold cả 2 phía, tra multikey index searchPrefixes rồi xếp hạng
+        List<String> queryTokens = BranchSearchText.tokens(q);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        List<BranchEntity> candidates = branchRepository.searchByPrefixes(queryTokens, SEARCH_CANDIDATE_LIMIT);
+
+        return BranchSearchText.rank(candidates, queryTokens, DEFAULT_PAGE_SIZE)
                 .stream()
                 .map(BranchResponseMapper::toResponse)
                 .toList();
     }
+
+    @Override
+    public CursorPageResponse<BranchResponse> findNear(
+            double lat, double lng, double radiusMeters, String cursor, int limit
+    ) {
+        // NaN lọt qua mọi phép so sánh → chặn riêng, không để rơi vào Geohash / near-cache
+        if (!Double.isFinite(lat) || !Double.isFinite(lng)
+                || lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            throw new BusinessException(CommonError.INVALID_REQUEST, "Toạ độ không hợp lệ");
+        }
+        if (!Double.isFinite(radiusMeters) || radiusMeters <= 0 || radiusMeters > MAX_NEAR_RADIUS_METERS) {
+            throw new BusinessException(CommonError.INVALID_REQUEST, "radius phải trong khoảng (0, 50000] mét");
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // Cursor = offset (kết quả sort theo khoảng cách, không có key ổn định để seek)
+        String[] decoded = CursorCodec.decode(cursor, 1);
+        int offset = 0;
+        if (decoded != null) {
+            try {
+                offset = Integer.parseInt(decoded[0]);
+            } catch (NumberFormatException e) {
+                offset = -1;
+            }
+            if (offset < 0 || offset > MAX_NEAR_OFFSET) {
+                throw new BusinessException(CommonError.INVALID_REQUEST, "Cursor không hợp lệ");
+            }
+        }
+
+        // Lấy dư 1 phần tử để biết còn trang sau hay không
+        List<BranchDistance> rows = nearCache.findNear(lat, lng, radiusMeters, offset, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<BranchDistance> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        return CursorPageResponse.<BranchResponse>builder()
+                .items(page.stream().map(BranchServiceImpl::toNearResponse).toList())
+                .limit(pageSize)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? CursorCodec.encode(String.valueOf(offset + pageSize)) : null)
+                .build();
+    }
+
+    private static BranchResponse toNearResponse(BranchDistance row) {
+        BranchResponse response = BranchResponseMapper.toResponse(row.branch());
+        response.setDistanceMeters(Math.round(row.distanceMeters() * 10) / 10.0);
+        return response;
+    }
+
+    @Override
+    public List<LocalTtlCache.Stats> cacheStats() {
+        List<LocalTtlCache.Stats> stats = new ArrayList<>(branchRepository.cacheStats());
+        stats.add(nearCache.stats());
+        return stats;
+    }
 }
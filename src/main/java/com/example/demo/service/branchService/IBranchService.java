@@ -3,6 +3,10 @@ package com.example.demo.service.branchService;
 import com.example.demo.domain.dto.req.CreateBranchReq;
 import com.example.demo.domain.dto.req.UpdateBranchReq;
 import com.example.demo.domain.dto.res.BranchResponse;
+import com.example.demo.service.branchService.repository.BranchFilter;
+import com.example.demo.share.cache.LocalTtlCache;
+import com.example.demo.share.pagination.CursorPageResponse;
+import com.example.demo.share.pagination.PageResponse;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,7 +15,11 @@ public interface IBranchService {
 
     BranchResponse createBranch(CreateBranchReq req);
 
-    List<BranchResponse> getAllBranches();
+    /**
+     * @param sort      name | province
+     * @param direction asc | desc
+     */
+    PageResponse<BranchResponse> getBranches(BranchFilter filter, String sort, String direction, int page, int size);
 
     Optional<BranchResponse> getBranchById(String branchId);
 
@@ -21,6 +29,17 @@ public interface IBranchService {
 
     List<BranchResponse> searchBranches(String q);
 
+    /**
+     * Branch quanh (lat, lng), gần nhất trước, kèm distanceMeters.
+     *
+     * @param radiusMeters bán kính (mét), tối đa 50 km
+     * @param cursor       nextCursor của trang trước (null = trang đầu)
+     */
+    CursorPageResponse<BranchResponse> findNear(double lat, double lng, double radiusMeters, String cursor, int limit);
+
+    // Hit ratio / load time / eviction của cache branch
+    List<LocalTtlCache.Stats> cacheStats();
+
 }
 
 
@@ -0,0 +1,136 @@
+package com.example.demo.service.branchService.geo;
+
+import com.example.demo.domain.entities.AddressEntity;
+import com.example.demo.domain.entities.BranchEntity;
+import com.example.demo.service.branchService.repository.BranchDistance;
+import com.example.demo.service.branchService.repository.IBranchRepository;
+import com.example.demo.service.redisConfig.branch.BranchChangeBus;
+import com.example.demo.share.cache.LocalTtlCache;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cache lưới geohash cho /api/branches/near (pan bản đồ = nhiều request sát nhau).
+ *
+ * - Key = (ô geohash chứa điểm tìm, bán kính làm tròn lên theo bậc)
+ * - Nạp 1 lần / ô: $geoNear từ tâm ô với bán kính + nửa đường chéo ô
+ *   → chứa mọi branch cách bất kỳ điểm nào trong ô ≤ bán kính bậc
+ * - Mỗi request tính lại khoảng cách thật (haversine), lọc, sort, cắt trang trong RAM
+ * - Ô quá nhiều branch (chạm {@code max-candidates}) → chỉ nhớ cờ, request đi thẳng Mongo
+ * - Branch đổi (local hoặc qua {@link BranchChangeBus}) → xoá toàn bộ cache
+ */
+@Slf4j
+@Component
+public class BranchNearCache {
+
+    // Bậc bán kính (mét); bán kính request được làm tròn lên bậc gần nhất
+    private static final int[] RADIUS_BUCKETS = {500, 1_000, 2_000, 5_000, 10_000, 20_000, 50_000};
+
+    private final IBranchRepository branchRepository;
+    private final BranchChangeBus changeBus;
+    private final LocalTtlCache<CellKey, CellBranches> cells;
+    private final int maxCandidates;
+
+    public BranchNearCache(
+            IBranchRepository branchRepository,
+            BranchChangeBus changeBus,
+            @Value("${app.branch.near-cache.max-size:2000}") int maxSize,
+            @Value("${app.branch.near-cache.ttl-seconds:120}") long ttlSeconds,
+            @Value("${app.branch.near-cache.max-candidates:2000}") int maxCandidates
+    ) {
+        this.branchRepository = branchRepository;
+        this.changeBus = changeBus;
+        this.cells = new LocalTtlCache<>("branch.near", maxSize, Duration.ofSeconds(ttlSeconds));
+        this.maxCandidates = maxCandidates;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        changeBus.subscribe(change -> cells.invalidateAll());
+    }
+
+    /**
+     * Branch cách (lat, lng) ≤ radiusMeters, gần nhất trước; tối đa {@code limit} phần tử từ vị trí {@code skip}.
+     */
+    public List<BranchDistance> findNear(double lat, double lng, double radiusMeters, int skip, int limit) {
+        int bucket = bucketFor(radiusMeters);
+        if (bucket < 0) {
+            return branchRepository.findNear(lat, lng, radiusMeters, skip, limit);
+        }
+
+        String cell = Geohash.encode(lat, lng, precisionFor(bucket));
+        CellBranches candidates = cells.get(new CellKey(cell, bucket), this::loadCell);
+
+        // Ô quá dày: chỉ nhớ cờ để lần sau khỏi nạp thử, truy vấn thẳng Mongo
+        if (candidates.overflow()) {
+            return branchRepository.findNear(lat, lng, radiusMeters, skip, limit);
+        }
+
+        List<BranchDistance> matches = new ArrayList<>();
+        for (BranchEntity branch : candidates.branches()) {
+            AddressEntity addr = branch.getAddress();
+            double distance = Geohash.distanceMeters(lat, lng, addr.getLatitude(), addr.getLongitude());
+            if (distance <= radiusMeters) {
+                matches.add(new BranchDistance(branch, distance));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(BranchDistance::distanceMeters));
+
+        if (skip >= matches.size()) {
+            return List.of();
+        }
+        return matches.subList(skip, Math.min(matches.size(), skip + limit));
+    }
+
+    public void invalidateAll() {
+        cells.invalidateAll();
+    }
+
+    public LocalTtlCache.Stats stats() {
+        return cells.stats();
+    }
+
+    private CellBranches loadCell(CellKey key) {
+        Geohash.Cell cell = Geohash.decode(key.geohash());
+        double radius = key.radiusBucket() + cell.halfDiagonalMeters();
+
+        List<BranchDistance> loaded = branchRepository.findNear(
+                cell.centerLat(), cell.centerLng(), radius, 0, maxCandidates
+        );
+        if (loaded.size() >= maxCandidates) {
+            log.debug("[BRANCH_NEAR] cell {} r={} has >= {} branches, bypass cache",
+                    key.geohash(), key.radiusBucket(), maxCandidates);
+            return new CellBranches(List.of(), true);
+        }
+        return new CellBranches(loaded.stream().map(BranchDistance::branch).toList(), false);
+    }
+
+    static int bucketFor(double radiusMeters) {
+        for (int bucket : RADIUS_BUCKETS) {
+            if (radiusMeters <= bucket) {
+                return bucket;
+            }
+        }
+        return -1;
+    }
+
+    // Ô nhỏ hơn bán kính để vùng nạp thêm (nửa đường chéo) không phình quá nhiều
+    static int precisionFor(int bucket) {
+        if (bucket <= 1_000) return 6;
+        if (bucket <= 10_000) return 5;
+        return 4;
+    }
+
+    private record CellKey(String geohash, int radiusBucket) {
+    }
+
+    private record CellBranches(List<BranchEntity> branches, boolean overflow) {
+    }
+}
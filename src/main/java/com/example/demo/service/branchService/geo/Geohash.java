@@ -0,0 +1,122 @@
+package com.example.demo.service.branchService.geo;
+
+import java.util.Arrays;
+
+/**
+ * Geohash (base32) tối giản: encode toạ độ → ô lưới, decode ô → khung toạ độ.
+ *
+ * Kích thước ô (xấp xỉ): precision 4 ≈ 39 x 19.5 km, 5 ≈ 4.9 x 4.9 km, 6 ≈ 1.2 x 0.6 km.
+ */
+public final class Geohash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final int[] DECODE = new int[128];
+
+    // Bán kính trái đất dùng bởi Mongo $geoNear (spherical, mét)
+    public static final double EARTH_RADIUS_METERS = 6_378_100;
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < BASE32.length; i++) {
+            DECODE[BASE32[i]] = i;
+        }
+    }
+
+    private Geohash() {
+    }
+
+    public static String encode(double lat, double lng, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+
+        StringBuilder sb = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (sb.length() < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch <<= 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                sb.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return sb.toString();
+    }
+
+    public static Cell decode(String hash) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        boolean evenBit = true;
+
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            int value = c < DECODE.length ? DECODE[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid geohash: " + hash);
+            }
+            for (int mask = 16; mask > 0; mask >>= 1) {
+                if (evenBit) {
+                    double mid = (minLng + maxLng) / 2;
+                    if ((value & mask) != 0) minLng = mid; else maxLng = mid;
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if ((value & mask) != 0) minLat = mid; else maxLat = mid;
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new Cell(minLat, maxLat, minLng, maxLng);
+    }
+
+    /**
+     * Khoảng cách mặt cầu (haversine), mét.
+     */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    public record Cell(double minLat, double maxLat, double minLng, double maxLng) {
+
+        public double centerLat() {
+            return (minLat + maxLat) / 2;
+        }
+
+        public double centerLng() {
+            return (minLng + maxLng) / 2;
+        }
+
+        // Từ tâm tới góc xa nhất của ô (mét)
+        public double halfDiagonalMeters() {
+            double toLow = distanceMeters(centerLat(), centerLng(), minLat, minLng);
+            double toHigh = distanceMeters(centerLat(), centerLng(), maxLat, maxLng);
+            return Math.max(toLow, toHigh);
+        }
+    }
+}
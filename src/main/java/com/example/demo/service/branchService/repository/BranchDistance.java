@@ -0,0 +1,9 @@
+package com.example.demo.service.branchService.repository;
+
+import com.example.demo.domain.entities.BranchEntity;
+
+/**
+ * 1 kết quả tìm theo vị trí: branch + khoảng cách (mét) tới điểm tìm.
+ */
+public record BranchDistance(BranchEntity branch, double distanceMeters) {
+}
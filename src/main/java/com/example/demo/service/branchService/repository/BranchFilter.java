@@ -0,0 +1,25 @@
+package com.example.demo.service.branchService.repository;
+
+/**
+ * Lọc branch theo địa chỉ (so khớp chính xác, null = bỏ qua).
+ */
+public record BranchFilter(String province, String district, String ward) {
+
+    public static BranchFilter none() {
+        return new BranchFilter(null, null, null);
+    }
+
+    public BranchFilter {
+        province = blankToNull(province);
+        district = blankToNull(district);
+        ward = blankToNull(ward);
+    }
+
+    public boolean isEmpty() {
+        return province == null && district == null && ward == null;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
@@ -4,6 +4,9 @@ import com.example.demo.domain.dto.req.CreateBranchReq;
 import com.example.demo.domain.dto.req.UpdateBranchReq;
 import com.example.demo.domain.entities.BranchEntity;
 
+import com.example.demo.share.cache.LocalTtlCache;
+import org.springframework.data.domain.Sort;
+
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +15,12 @@ public interface IBranchRepository {
     // Create from request (mapping handled by infra)
     BranchEntity create(CreateBranchReq req);
 
-    // Update from request, return Optional.empty() if not found
+    /**
+     * Update từng field bằng $set (1 round trip, trả document mới).
+     * Optional.empty() nếu không tồn tại.
+     *
+     * @throws org.springframework.dao.OptimisticLockingFailureException req.version lệch với DB
+     */
     Optional<BranchEntity> update(String id, UpdateBranchReq req);
 
     // Basic operations
@@ -20,10 +28,38 @@ public interface IBranchRepository {
 
     List<BranchEntity> findAll();
 
+    // 1 trang theo filter + sort (sort luôn kèm _id để thứ tự ổn định)
+    List<BranchEntity> findPage(BranchFilter filter, Sort sort, int page, int size);
+
+    /**
+     * Tổng số branch khớp filter.
+     * Không filter → estimatedDocumentCount (metadata), có filter → countDocuments cache ngắn hạn.
+     */
+    long count(BranchFilter filter);
+
     Optional<BranchEntity> findById(String id);
 
     void deleteById(String id);
 
-    List<BranchEntity> search(String q);
+    /**
+     * Ứng viên cho search: branch có đủ mọi token query (đã fold) làm tiền tố trong searchPrefixes.
+     * Tối đa {@code limit} kết quả, theo thứ tự tương thích với xếp hạng:
+     * khớp trọn mọi token trước, rồi mới tới khớp tiền tố; trong mỗi nhóm theo name.
+     *
+     * Giới hạn: index không phân biệt khớp ở name hay ở địa chỉ → khi 1 nhóm có hơn
+     * {@code limit} branch, phần bị cắt là các tên xếp sau theo alphabet, không theo điểm.
+     */
+    List<BranchEntity> searchByPrefixes(List<String> queryTokens, int limit);
+
+    /**
+     * $geoNear trên index 2dsphere: branch cách (lat, lng) ≤ radiusMeters, gần nhất trước.
+     * Branch chưa có toạ độ không bao giờ xuất hiện.
+     */
+    List<BranchDistance> findNear(double lat, double lng, double radiusMeters, int skip, int limit);
+
+    // Số liệu cache (implementation không cache → rỗng)
+    default List<LocalTtlCache.Stats> cacheStats() {
+        return List.of();
+    }
 
 }
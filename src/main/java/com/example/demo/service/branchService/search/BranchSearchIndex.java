@@ -0,0 +1,301 @@
+package com.example.demo.service.branchService.search;
+
+import com.example.demo.domain.entities.BranchEntity;
+import com.example.demo.service.branchService.repository.IBranchRepository;
+import com.example.demo.service.redisConfig.branch.BranchChangeBus;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Inverted index trong RAM cho search branch (autocomplete theo từng phím gõ).
+ *
+ * - token (đã fold) → tập branchId, lưu trong map có thứ tự → tra tiền tố bằng subMap
+ * - Build lúc startup từ Mongo, cập nhật từng phần khi create / update / delete
+ * - Node khác nhận thay đổi qua {@link BranchChangeBus} (repository publish), rebuild định kỳ bù message bị mất
+ * - Chưa build xong → {@link #isReady()} = false, service dùng Mongo
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BranchSearchIndex {
+
+    private final IBranchRepository branchRepository;
+    private final BranchChangeBus changeBus;
+
+    @Value("${app.branch.search-index.enabled:true}")
+    private boolean enabled;
+
+    private volatile Snapshot snapshot = Snapshot.empty();
+    private volatile boolean ready;
+
+    // Ghi tuần tự (upsert / remove / rebuild), đọc không khoá
+    private final Object writeLock = new Object();
+
+    // Branch thay đổi trong lúc rebuild đang đọc Mongo → áp lại bản mới nhất sau khi swap
+    private Set<String> changedDuringRebuild;
+
+    @PostConstruct
+    void subscribe() {
+        changeBus.subscribe(this::onRemoteChange);
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    // =========================
+    // 🔍 QUERY
+    // =========================
+
+    /**
+     * Top-k branch khớp mọi token của query (token cuối / mọi token đều khớp theo tiền tố).
+     */
+    public List<BranchEntity> search(String q, int k) {
+        List<String> queryTokens = BranchSearchText.tokens(q);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+
+        // Token dài nhất thường chọn lọc nhất → lấy ứng viên từ nó, lọc bằng các token còn lại
+        String driver = queryTokens.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+        Set<String> candidateIds = current.idsWithPrefix(driver);
+
+        PriorityQueue<Scored> top = new PriorityQueue<>(Comparator.comparingDouble(Scored::score)
+                .thenComparing(s -> s.branch().getName() == null ? "" : s.branch().getName(),
+                        Comparator.reverseOrder()));
+
+        for (String id : candidateIds) {
+            Entry entry = current.entries.get(id);
+            if (entry == null || !entry.matchesAll(queryTokens)) {
+                continue;
+            }
+            top.offer(new Scored(entry.branch(), BranchSearchText.score(entry.branch(), queryTokens)));
+            if (top.size() > k) {
+                top.poll();
+            }
+        }
+
+        return top.stream()
+                .sorted(Comparator.comparingDouble(Scored::score).reversed()
+                        .thenComparing(s -> s.branch().getName() == null ? "" : s.branch().getName()))
+                .map(Scored::branch)
+                .toList();
+    }
+
+    public int size() {
+        return snapshot.entries.size();
+    }
+
+    // =========================
+    // ✏️ INCREMENTAL UPDATE
+    // =========================
+    // Thay đổi trên node này (node khác nhận qua BranchChangeBus)
+    public void upsert(BranchEntity branch) {
+        applyUpsert(branch);
+    }
+
+    public void remove(String branchId) {
+        applyRemove(branchId);
+    }
+
+    private void applyUpsert(BranchEntity branch) {
+        synchronized (writeLock) {
+            snapshot.index(branch);
+            markChanged(branch.getId());
+        }
+    }
+
+    private void applyRemove(String branchId) {
+        synchronized (writeLock) {
+            snapshot.unindex(branchId);
+            markChanged(branchId);
+        }
+    }
+
+    private void markChanged(String branchId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(branchId);
+        }
+    }
+
+    private void onRemoteChange(BranchChangeBus.Change change) {
+        if (!enabled) {
+            return;
+        }
+        switch (change.type()) {
+            case UPSERT -> branchRepository.findById(change.branchId())
+                    .ifPresentOrElse(this::applyUpsert, () -> applyRemove(change.branchId()));
+            case DELETE -> applyRemove(change.branchId());
+        }
+    }
+
+    // =========================
+    // 🔄 BUILD / REBUILD
+    // =========================
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.branch.search-index.rebuild-interval-ms:600000}",
+            fixedDelayString = "${app.branch.search-index.rebuild-interval-ms:600000}"
+    )
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        synchronized (writeLock) {
+            changedDuringRebuild = new HashSet<>();
+        }
+
+        List<BranchEntity> all;
+        try {
+            all = branchRepository.findAll();
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                changedDuringRebuild = null;
+            }
+            log.warn("[BRANCH_INDEX] Rebuild failed: {}", e.getMessage());
+            return;
+        }
+
+        Snapshot fresh = Snapshot.empty();
+        all.forEach(fresh::index);
+
+        synchronized (writeLock) {
+            // Snapshot cũ đã nhận mọi thay đổi incremental → nguồn mới nhất cho các id này
+            for (String id : changedDuringRebuild) {
+                Entry latest = snapshot.entries.get(id);
+                if (latest != null) {
+                    fresh.index(latest.branch());
+                } else {
+                    fresh.unindex(id);
+                }
+            }
+            changedDuringRebuild = null;
+            snapshot = fresh;
+            ready = true;
+        }
+
+        log.info("🔍 Branch search index built: {} branches, {} tokens in {} ms",
+                fresh.entries.size(), fresh.postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // =========================
+    // 🧱 DATA
+    // =========================
+    private record Entry(BranchEntity branch, List<String> tokens) {
+
+        boolean matchesAll(List<String> queryTokens) {
+            for (String q : queryTokens) {
+                boolean found = false;
+                for (String token : tokens) {
+                    if (token.startsWith(q)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private record Scored(BranchEntity branch, double score) {
+    }
+
+    /**
+     * Ghi (dưới writeLock) không bao giờ làm reader thấy branch "biến mất" giữa chừng:
+     * Entry là bất biến và được thay nguyên khối (copy-on-write theo entry),
+     * posting mới được thêm trước khi swap, posting cũ chỉ gỡ sau khi swap.
+     * Reader có thể thấy id ở posting cũ / mới trong khoảnh khắc đó, nhưng luôn lọc lại
+     * bằng {@link Entry#matchesAll} trên đúng 1 phiên bản Entry.
+     */
+    private static final class Snapshot {
+
+        // token → branchIds
+        private final NavigableMap<String, Set<String>> postings;
+        // branchId → branch + token
+        private final Map<String, Entry> entries;
+
+        private Snapshot(NavigableMap<String, Set<String>> postings, Map<String, Entry> entries) {
+            this.postings = postings;
+            this.entries = entries;
+        }
+
+        static Snapshot empty() {
+            return new Snapshot(new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>());
+        }
+
+        // Thêm mới hoặc thay thế (posting mới → swap Entry → gỡ posting không còn dùng)
+        void index(BranchEntity branch) {
+            String id = branch.getId();
+            List<String> tokens = List.copyOf(BranchSearchText.tokens(branch.getName(), branch.getAddress()));
+
+            for (String token : tokens) {
+                postings.computeIfAbsent(token, t -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+            Entry old = entries.put(id, new Entry(branch, tokens));
+
+            if (old != null) {
+                for (String token : old.tokens()) {
+                    if (!tokens.contains(token)) {
+                        removePosting(token, id);
+                    }
+                }
+            }
+        }
+
+        void unindex(String branchId) {
+            Entry old = entries.remove(branchId);
+            if (old == null) {
+                return;
+            }
+            for (String token : old.tokens()) {
+                removePosting(token, branchId);
+            }
+        }
+
+        private void removePosting(String token, String branchId) {
+            postings.computeIfPresent(token, (t, ids) -> {
+                ids.remove(branchId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+
+        // Hợp các posting có token bắt đầu bằng prefix (chỉ đọc; posting đơn lẻ trả view, không copy)
+        Set<String> idsWithPrefix(String prefix) {
+            Map<String, Set<String>> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+            if (range.size() == 1) {
+                return Collections.unmodifiableSet(range.values().iterator().next());
+            }
+            Set<String> ids = new HashSet<>();
+            range.values().forEach(ids::addAll);
+            return ids;
+        }
+    }
+}
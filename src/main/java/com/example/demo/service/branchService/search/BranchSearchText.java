@@ -0,0 +1,132 @@
+package com.example.demo.service.branchService.search;
+
+import com.example.demo.domain.entities.AddressEntity;
+import com.example.demo.domain.entities.BranchEntity;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hoá text tiếng Việt cho tìm kiếm branch.
+ *
+ * - fold: lowercase + bỏ dấu ("Quận 1" → "quan 1", "Đống Đa" → "dong da")
+ * - tokens: tách theo ký tự không phải chữ / số
+ * - prefixes: mọi tiền tố của từng token (≤ MAX_PREFIX_LENGTH) → lưu vào multikey index,
+ *   query "qua 1" = $all ["qua", "1"]
+ */
+public final class BranchSearchText {
+
+    // Tăng khi đổi cách fold / tokenize → backfill tính lại toàn bộ
+    public static final int VERSION = 1;
+
+    public static final int MAX_PREFIX_LENGTH = 20;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALNUM = Pattern.compile("[^a-z0-9]+");
+
+    private BranchSearchText() {
+    }
+
+    public static String fold(String text) {
+        if (text == null || text.isBlank()) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT)
+                .replace('đ', 'd');
+        String stripped = COMBINING_MARKS
+                .matcher(Normalizer.normalize(lower, Normalizer.Form.NFD))
+                .replaceAll("");
+        return NON_ALNUM.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    public static List<String> tokens(String text) {
+        String folded = fold(text);
+        if (folded.isEmpty()) {
+            return List.of();
+        }
+        return List.of(folded.split(" "));
+    }
+
+    // Token của name + các thành phần địa chỉ (không trùng, giữ thứ tự)
+    public static List<String> tokens(String name, AddressEntity address) {
+        Set<String> result = new LinkedHashSet<>(tokens(name));
+        if (address != null) {
+            result.addAll(tokens(address.getStreet()));
+            result.addAll(tokens(address.getWard()));
+            result.addAll(tokens(address.getDistrict()));
+            result.addAll(tokens(address.getProvince()));
+        }
+        return new ArrayList<>(result);
+    }
+
+    public static List<String> prefixes(List<String> tokens) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String token : tokens) {
+            int max = Math.min(token.length(), MAX_PREFIX_LENGTH);
+            for (int i = 1; i <= max; i++) {
+                result.add(token.substring(0, i));
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    // Token query → key tra trong prefixes (cắt ở MAX_PREFIX_LENGTH)
+    public static List<String> queryKeys(List<String> queryTokens) {
+        return queryTokens.stream()
+                .map(t -> t.length() > MAX_PREFIX_LENGTH ? t.substring(0, MAX_PREFIX_LENGTH) : t)
+                .distinct()
+                .toList();
+    }
+
+    // =========================
+    // 🏅 RANKING
+    // =========================
+
+    /**
+     * Điểm của 1 branch với query (cao hơn = liên quan hơn).
+     * Khớp trọn token > khớp tiền tố; khớp ở name > khớp ở địa chỉ.
+     */
+    public static double score(BranchEntity branch, List<String> queryTokens) {
+        List<String> nameTokens = tokens(branch.getName());
+        List<String> allTokens = tokens(branch.getName(), branch.getAddress());
+
+        double score = 0;
+        for (String q : queryTokens) {
+            if (nameTokens.contains(q)) {
+                score += 4;
+            } else if (nameTokens.stream().anyMatch(t -> t.startsWith(q))) {
+                score += 3;
+            } else if (allTokens.contains(q)) {
+                score += 2;
+            } else if (allTokens.stream().anyMatch(t -> t.startsWith(q))) {
+                score += 1;
+            }
+        }
+
+        // Tên bắt đầu bằng đúng cụm query → ưu tiên
+        if (fold(branch.getName()).startsWith(String.join(" ", queryTokens))) {
+            score += 2;
+        }
+        return score;
+    }
+
+    public static List<BranchEntity> rank(List<BranchEntity> candidates, List<String> queryTokens, int limit) {
+        return candidates.stream()
+                .map(b -> new Scored(b, score(b, queryTokens)))
+                .sorted(Comparator.comparingDouble(Scored::score).reversed()
+                        .thenComparingInt(s -> s.branch().getName() == null ? 0 : s.branch().getName().length())
+                        .thenComparing(s -> String.valueOf(s.branch().getName())))
+                .limit(limit)
+                .map(Scored::branch)
+                .toList();
+    }
+
+    private record Scored(BranchEntity branch, double score) {
+    }
+}
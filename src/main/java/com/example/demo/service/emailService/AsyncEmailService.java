@@ -1,73 +1,114 @@
 package com.example.demo.service.emailService;
 
+import com.example.demo.config.async.BoundedEmailExecutor;
+import com.example.demo.domain.entities.EmailOutboxMessage;
+import com.example.demo.domain.enums.EmailType;
+import com.example.demo.service.emailService.batch.BatchMailSender;
+import com.example.demo.service.emailService.outbox.EmailOutboxWorker;
+import com.example.demo.service.emailService.outbox.IEmailOutboxRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gửi mail bất đồng bộ qua outbox:
+ * request thread chỉ ghi 1 document vào email_outbox (không chờ SMTP),
+ * {@link EmailOutboxWorker} gửi, retry và dead-letter.
+ * Bấm "gửi lại" liên tục → các mail cùng loại cho cùng người nhận còn chờ gộp thành 1.
+ * Mail đã ghi thì không mất khi restart.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AsyncEmailService {
 
-    private final IEmailService emailService;
+    private final IEmailOutboxRepository outbox;
+    private final EmailOutboxWorker worker;
+    private final BoundedEmailExecutor emailTaskExecutor;
+    private final BatchMailSender batchSender;
+
+    private final Map<EmailType, LongAdder> queued = counters();
+    private final Map<EmailType, LongAdder> suppressed = counters();
+
+    // Gửi trùng (cùng loại, cùng người nhận) trong cửa sổ này gộp thành 1 mail, bản mới nhất thắng
+    @Value("${app.mail.coalesce.window-ms:2000}")
+    private long coalesceWindowMs;
 
     /**
-     * 📧 Gửi email verify - ASYNC (non-blocking)
+     * 📧 Gửi email verify
      *
-     * @param to    Email người nhận
-     * @param token Verify token
+     * @param to       Email người nhận
+     * @param token    Verify token
+     * @param validFor Thời gian sống của token (quá hạn thì không gửi nữa)
      */
-    @Async("emailTaskExecutor")
-    public void sendVerifyEmailAsync(String to, String token) {
-
-        String threadName = Thread.currentThread().getName();
-        log.info("[ASYNC-{}] 🚀 Start sending verify email to: {}", threadName, to);
-
-        long startTime = System.currentTimeMillis();
-
-        try {
-            emailService.sendVerifyEmail(to, token);
-
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("[ASYNC-{}] ✅ Verify email sent successfully to: {} (took {}ms)",
-                    threadName, to, duration);
-
-        } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            log.error("[ASYNC-{}] ❌ Failed to send verify email to: {} (took {}ms). Error: {}",
-                    threadName, to, duration, e.getMessage(), e);
-
-            // TODO: Có thể save vào DB để retry sau
-            // emailRetryRepository.save(new EmailRetry(to, token, "VERIFY", e.getMessage()));
-        }
+    public void sendVerifyEmailAsync(String to, String token, Duration validFor) {
+        enqueue(EmailType.VERIFY_EMAIL, to, Map.of(EmailOutboxWorker.PAYLOAD_TOKEN, token), validFor);
     }
 
     /**
-     * 📧 Gửi OTP forgot password - ASYNC (non-blocking)
+     * 📧 Gửi OTP forgot password
      *
-     * @param to  Email người nhận
-     * @param otp Mã OTP
+     * @param to       Email người nhận
+     * @param otp      Mã OTP
+     * @param validFor Thời gian sống của OTP
      */
-    @Async("emailTaskExecutor")
-    public void sendForgotPasswordOtpAsync(String to, String otp) {
-
-        String threadName = Thread.currentThread().getName();
-        log.info("[ASYNC-{}] 🚀 Start sending OTP to: {}", threadName, to);
+    public void sendForgotPasswordOtpAsync(String to, String otp, Duration validFor) {
+        enqueue(EmailType.FORGOT_PASSWORD_OTP, to, Map.of(EmailOutboxWorker.PAYLOAD_OTP, otp), validFor);
+    }
 
-        long startTime = System.currentTimeMillis();
+    public EmailPipelineStats stats() {
+        return new EmailPipelineStats(
+                emailTaskExecutor.stats(), worker.stats(), batchSender.stats(),
+                sums(queued), sums(suppressed)
+        );
+    }
 
-        try {
-            emailService.sendForgotPasswordOtp(to, otp);
+    private void enqueue(EmailType type, String to, Map<String, String> payload, Duration validFor) {
+        Instant now = Instant.now();
+
+        IEmailOutboxRepository.Enqueued result = outbox.enqueue(EmailOutboxMessage.builder()
+                .type(type)
+                .recipient(to)
+                .payload(payload)
+                .locale(LocaleContextHolder.getLocale().toLanguageTag())
+                .deliverBefore(validFor != null ? now.plus(validFor) : null)
+                .build(), Duration.ofMillis(coalesceWindowMs));
+
+        if (result.coalesced()) {
+            suppressed.get(type).increment();
+            log.info("[OUTBOX] 🔁 {} to {} coalesced into pending mail (id={})", type, to, result.id());
+            return;
+        }
 
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("[ASYNC-{}] ✅ OTP sent successfully to: {} (took {}ms)",
-                    threadName, to, duration);
+        queued.get(type).increment();
+        log.info("[OUTBOX] 📥 {} to {} queued (id={})", type, to, result.id());
+        // Có cửa sổ gộp → mail đến hạn khi hết cửa sổ (tính từ sau lúc ghi), hẹn worker đúng lúc đó
+        if (coalesceWindowMs <= 0) {
+            worker.wakeUp();
+        } else {
+            worker.wakeUpAt(Instant.now().plusMillis(coalesceWindowMs));
+        }
+    }
 
-        } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            log.error("[ASYNC-{}] ❌ Failed to send OTP to: {} (took {}ms). Error: {}",
-                    threadName, to, duration, e.getMessage(), e);
+    private static Map<EmailType, LongAdder> counters() {
+        Map<EmailType, LongAdder> counters = new EnumMap<>(EmailType.class);
+        for (EmailType type : EmailType.values()) {
+            counters.put(type, new LongAdder());
         }
+        return counters;
+    }
+
+    private static Map<EmailType, Long> sums(Map<EmailType, LongAdder> counters) {
+        Map<EmailType, Long> sums = new EnumMap<>(EmailType.class);
+        counters.forEach((type, counter) -> sums.put(type, counter.sum()));
+        return sums;
     }
-}
\ No newline at end of file
+}
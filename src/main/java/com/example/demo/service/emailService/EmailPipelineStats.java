@@ -0,0 +1,22 @@
+package com.example.demo.service.emailService;
+
+import com.example.demo.config.async.BoundedEmailExecutor;
+import com.example.demo.domain.enums.EmailType;
+import com.example.demo.service.emailService.batch.BatchMailSender;
+import com.example.demo.service.emailService.outbox.EmailOutboxWorker;
+
+import java.util.Map;
+
+/**
+ * Số liệu đường gửi mail: executor (queue depth / active sends / reject), outbox worker, batch SMTP,
+ * số mail vào outbox và số lần gửi trùng bị gộp theo loại.
+ */
+public record EmailPipelineStats(
+        BoundedEmailExecutor.Stats executor,
+        EmailOutboxWorker.Stats outbox,
+        BatchMailSender.Stats batches,
+        Map<EmailType, Long> queued,
+        // Gửi trùng đã gộp vào mail đang chờ (không tốn thêm lượt SMTP)
+        Map<EmailType, Long> suppressed
+) {
+}
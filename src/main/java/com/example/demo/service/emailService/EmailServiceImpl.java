@@ -1,20 +1,31 @@
 package com.example.demo.service.emailService;
 
+import com.example.demo.service.emailService.template.MailTemplateRegistry;
+import com.example.demo.service.emailService.template.MailTemplateRegistry.RenderedMail;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.Locale;
+import java.util.Map;
+
 @Slf4j
- @Service
+@Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements IEmailService {
 
+    // Tên template trong resources/templates/mail
+    private static final String TEMPLATE_FORGOT_PASSWORD_OTP = "forgot-password-otp";
+    private static final String TEMPLATE_VERIFY_EMAIL = "verify-email";
+
     private final JavaMailSender mailSender;
+    private final MailTemplateRegistry templates;
 
     @Value("${app.mail.from}")
     private String from;
@@ -27,72 +38,8 @@ public class EmailServiceImpl implements IEmailService {
 
     @Override
     public void sendForgotPasswordOtp(String to, String otp) {
-
-        log.info("Preparing to send forgot password OTP email to={}, otp={}", to, otp);
-
+        MimeMessage message = composeForgotPasswordOtp(to, otp, null);
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper =
-                    new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(from);
-            helper.setTo(to);
-            helper.setSubject("Mã OTP đặt lại mật khẩu");
-
-            String htmlContent = """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <style>
-                    body {
-                        font-family: Arial, sans-serif;
-                        background-color: #f4f6f8;
-                        padding: 20px;
-                    }
-                    .container {
-                        max-width: 500px;
-                        margin: auto;
-                        background: #ffffff;
-                        padding: 30px;
-                        border-radius: 8px;
-                        box-shadow: 0 4px 10px rgba(0,0,0,0.1);
-                        text-align: center;
-                    }
-                    .otp {
-                        font-size: 28px;
-                        font-weight: bold;
-                        letter-spacing: 6px;
-                        color: #ff5722;
-                        margin: 20px 0;
-                    }
-                    .footer {
-                        margin-top: 30px;
-                        font-size: 12px;
-                        color: #888888;
-                    }
-                </style>
-            </head>
-            <body>
-                <div class="container">
-                    <h2>Đặt lại mật khẩu 🔐</h2>
-                    <p>Bạn đã yêu cầu đặt lại mật khẩu cho tài khoản <b>TroSmart</b>.</p>
-                    <p>Mã OTP của bạn là:</p>
-
-                    <div class="otp">%s</div>
-
-                    <p>Mã có hiệu lực trong <b>5 phút</b>.</p>
-
-                    <div class="footer">
-                        <p>Nếu bạn không yêu cầu thao tác này, hãy bỏ qua email.</p>
-                    </div>
-                </div>
-            </body>
-            </html>
-        """.formatted(otp);
-
-            helper.setText(htmlContent, true);
-
             mailSender.send(message);
             log.info("Forgot password OTP email sent to {} successfully", to);
 
@@ -102,14 +49,42 @@ public class EmailServiceImpl implements IEmailService {
         }
     }
 
+    @Override
+    public MimeMessage composeForgotPasswordOtp(String to, String otp, Locale locale) {
+
+        // Không log OTP / link: ai đọc được log là đặt lại được mật khẩu / xác nhận hộ
+        log.info("Preparing forgot password OTP email to={}", to);
+
+        RenderedMail mail = templates.render(TEMPLATE_FORGOT_PASSWORD_OTP, locale, Map.of("otp", otp));
+        return compose(to, mail, "Tạo email OTP đặt lại mật khẩu thất bại");
+    }
 
     @Override
     public void sendVerifyEmail(String to, String token) {
+        MimeMessage message = composeVerifyEmail(to, token, null);
+        try {
+            mailSender.send(message);
+            log.info("Verify email sent to {} successfully", to);
+
+        } catch (Exception e) {
+            log.error("Failed to send verify email to {}. exception: {}", to, e.toString(), e);
+            throw new RuntimeException("Gửi email xác nhận thất bại", e);
+        }
+    }
+
+    @Override
+    public MimeMessage composeVerifyEmail(String to, String token, Locale locale) {
 
         String verifyLink = backendUrl + verifyEndpoint + "?token=" + token;
 
-        log.info("Preparing to send verify email to={}, link={}", to, verifyLink);
+        log.info("Preparing verify email to={}", to);
+
+        RenderedMail mail = templates.render(TEMPLATE_VERIFY_EMAIL, locale, Map.of("verifyLink", verifyLink));
+        return compose(to, mail, "Tạo email xác nhận thất bại");
+    }
 
+    // multipart/alternative: text thuần + HTML (client không hiện HTML vẫn đọc được)
+    private MimeMessage compose(String to, RenderedMail mail, String failureMessage) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper =
@@ -117,73 +92,12 @@ public class EmailServiceImpl implements IEmailService {
 
             helper.setFrom(from);
             helper.setTo(to);
-            helper.setSubject("Xác nhận email");
-
-            String htmlContent = """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <meta charset="UTF-8">
-                    <style>
-                        body {
-                            font-family: Arial, sans-serif;
-                            background-color: #f4f6f8;
-                            padding: 20px;
-                        }
-                        .container {
-                            max-width: 500px;
-                            margin: auto;
-                            background: #ffffff;
-                            padding: 30px;
-                            border-radius: 8px;
-                            box-shadow: 0 4px 10px rgba(0,0,0,0.1);
-                            text-align: center;
-                        }
-                        .btn {
-                            display: inline-block;
-                            margin-top: 20px;
-                            padding: 12px 24px;
-                            background-color: #4CAF50;
-                            color: #ffffff;
-                            text-decoration: none;
-                            border-radius: 5px;
-                            font-weight: bold;
-                        }
-                        .footer {
-                            margin-top: 30px;
-                            font-size: 12px;
-                            color: #888888;
-                        }
-                    </style>
-                </head>
-                <body>
-                    <div class="container">
-                        <h2>Chào bạn 👋</h2>
-                        <p>Cảm ơn bạn đã đăng ký tài khoản tại <b>TroSmart</b>.</p>
-                        <p>Vui lòng nhấn nút bên dưới để xác nhận email:</p>
-
-                        <a href="%s" class="btn">Xác nhận email</a>
-
-                        <div class="footer">
-                            <p>Nếu bạn không tạo tài khoản, vui lòng bỏ qua email này.</p>
-                        </div>
-                    </div>
-                </body>
-                </html>
-            """.formatted(verifyLink);
-
-            helper.setText(htmlContent, true);
+            helper.setSubject(mail.subject());
+            helper.setText(mail.text(), mail.html());
+            return message;
 
-            mailSender.send(message);
-            log.info("Verify email sent to {} successfully (link={})", to, verifyLink);
-
-        } catch (Exception e) {
-            log.error("Failed to send verify email to {} (link={}). exception: {}", to, verifyLink, e.toString(), e);
-            throw new RuntimeException("Gửi email xác nhận thất bại", e);
+        } catch (MessagingException e) {
+            throw new MailPreparationException(failureMessage, e);
         }
-
-
-
-
     }
 }
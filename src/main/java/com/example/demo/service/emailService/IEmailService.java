@@ -1,5 +1,9 @@
 package com.example.demo.service.emailService;
 
+import jakarta.mail.internet.MimeMessage;
+
+import java.util.Locale;
+
 public interface IEmailService {
 
     void sendVerifyEmail(String to, String token);
@@ -7,5 +11,11 @@ public interface IEmailService {
     // 🆕 Forgot password OTP
     void sendForgotPasswordOtp(String to, String otp);
 
+    // Dựng sẵn MimeMessage (chưa gửi) → gửi theo batch trên 1 kết nối SMTP
+    // locale null → ngôn ngữ mặc định
+    MimeMessage composeVerifyEmail(String to, String token, Locale locale);
+
+    MimeMessage composeForgotPasswordOtp(String to, String otp, Locale locale);
+
 
 }
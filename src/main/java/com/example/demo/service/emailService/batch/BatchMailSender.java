@@ -0,0 +1,161 @@
+package com.example.demo.service.emailService.batch;
+
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gửi nhiều mail trên 1 phiên SMTP (connect + STARTTLS + AUTH 1 lần / nhóm)
+ * thay vì 1 phiên / mail như {@code mailSender.send(message)}.
+ *
+ * - Chia thành nhóm tối đa {@code max-per-connection} mail, mỗi nhóm = 1 Transport
+ *   ({@link JavaMailSender#send(MimeMessage...)}: kết nối bị rớt giữa nhóm → tự connect lại)
+ * - Mail lỗi không phải do người nhận bị từ chối (mất kết nối, timeout...) → thử lại 1 lần trên phiên mới
+ * - Ghi latency từng nhóm
+ */
+@Slf4j
+@Component
+public class BatchMailSender {
+
+    private final JavaMailSender mailSender;
+    private final int maxPerConnection;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder totalBatchMillis = new LongAdder();
+    private final AtomicLong maxBatchMillis = new AtomicLong();
+    private volatile long lastBatchMillis;
+
+    public BatchMailSender(
+            JavaMailSender mailSender,
+            @Value("${app.mail.batch.max-per-connection:25}") int maxPerConnection
+    ) {
+        this.mailSender = mailSender;
+        this.maxPerConnection = Math.max(1, maxPerConnection);
+    }
+
+    public int maxPerConnection() {
+        return maxPerConnection;
+    }
+
+    /**
+     * @param outgoing key (do bên gọi chọn) → message, thứ tự gửi theo thứ tự duyệt map
+     * @return key → lỗi của những mail không gửi được (rỗng = gửi hết)
+     */
+    public <K> Map<K, Exception> send(Map<K, MimeMessage> outgoing) {
+        Map<K, Exception> failed = new LinkedHashMap<>();
+        List<Map.Entry<K, MimeMessage>> entries = new ArrayList<>(outgoing.entrySet());
+
+        for (int from = 0; from < entries.size(); from += maxPerConnection) {
+            List<Map.Entry<K, MimeMessage>> group = entries.subList(from, Math.min(entries.size(), from + maxPerConnection));
+
+            Map<K, Exception> groupFailed = sendGroup(group);
+
+            // Lỗi tầng kết nối → 1 lần nữa trên phiên mới; người nhận bị từ chối thì thôi
+            List<Map.Entry<K, MimeMessage>> retryable = group.stream()
+                    .filter(e -> groupFailed.containsKey(e.getKey()) && isRetryable(groupFailed.get(e.getKey())))
+                    .toList();
+            if (!retryable.isEmpty()) {
+                retries.add(retryable.size());
+                retryable.forEach(e -> groupFailed.remove(e.getKey()));
+                groupFailed.putAll(sendGroup(retryable));
+            }
+
+            failed.putAll(groupFailed);
+        }
+
+        failures.add(failed.size());
+        return failed;
+    }
+
+    public Stats stats() {
+        long count = batches.sum();
+        return new Stats(
+                count,
+                messages.sum(),
+                failures.sum(),
+                retries.sum(),
+                count == 0 ? 0 : (double) totalBatchMillis.sum() / count,
+                maxBatchMillis.get(),
+                lastBatchMillis
+        );
+    }
+
+    // 1 nhóm = 1 phiên SMTP
+    private <K> Map<K, Exception> sendGroup(List<Map.Entry<K, MimeMessage>> group) {
+        Map<MimeMessage, K> keys = new IdentityHashMap<>();
+        MimeMessage[] batch = new MimeMessage[group.size()];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = group.get(i).getValue();
+            keys.put(batch[i], group.get(i).getKey());
+        }
+
+        Map<K, Exception> failed = new LinkedHashMap<>();
+        long start = System.currentTimeMillis();
+        try {
+            mailSender.send(batch);
+        } catch (MailSendException e) {
+            e.getFailedMessages().forEach((message, error) -> {
+                K key = keys.get(message);
+                if (key != null) {
+                    failed.put(key, error);
+                }
+            });
+            // Không rõ mail nào lỗi → coi cả nhóm lỗi
+            if (failed.isEmpty()) {
+                keys.values().forEach(key -> failed.put(key, e));
+            }
+        } catch (MailException e) {
+            // Ví dụ sai AUTH: không mail nào đi được
+            keys.values().forEach(key -> failed.put(key, e));
+        }
+
+        long took = System.currentTimeMillis() - start;
+        record(group.size(), took);
+        log.debug("[MAIL_BATCH] {} messages over 1 connection in {}ms ({} failed)", group.size(), took, failed.size());
+        return failed;
+    }
+
+    private void record(int size, long took) {
+        batches.increment();
+        messages.add(size);
+        totalBatchMillis.add(took);
+        maxBatchMillis.accumulateAndGet(took, Math::max);
+        lastBatchMillis = took;
+    }
+
+    // Người nhận bị từ chối / sai AUTH / message hỏng: gửi lại ngay cũng vậy
+    private static boolean isRetryable(Exception e) {
+        return !(e instanceof SendFailedException)
+                && !(e instanceof MailAuthenticationException)
+                && !(e instanceof MailPreparationException);
+    }
+
+    public record Stats(
+            long batches,
+            long messages,
+            long failures,
+            long retries,
+            double avgBatchMillis,
+            long maxBatchMillis,
+            long lastBatchMillis
+    ) {
+    }
+}
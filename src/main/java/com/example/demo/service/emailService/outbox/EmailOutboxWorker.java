@@ -0,0 +1,398 @@
+package com.example.demo.service.emailService.outbox;
+
+import com.example.demo.config.async.BoundedEmailExecutor;
+import com.example.demo.domain.entities.EmailOutboxMessage;
+import com.example.demo.domain.enums.EmailOutboxStatus;
+import com.example.demo.service.emailService.IEmailService;
+import com.example.demo.service.emailService.batch.BatchMailSender;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Worker gửi mail từ outbox (collection email_outbox).
+ *
+ * - 1 thread "email-outbox" claim batch có lease, chia nhóm theo {@link BatchMailSender}
+ *   (1 phiên SMTP / nhóm), các nhóm gửi song song trên emailTaskExecutor
+ * - emailTaskExecutor đầy → nhóm được trả lại outbox (spill), worker tạm dừng claim tới lượt poll sau
+ * - Lỗi → retry với exponential backoff (full jitter); hết lượt hoặc quá deliverBefore → DEAD
+ * - Nhiều node chạy cùng lúc an toàn: lease quyết định ai gửi; node chết → hết lease mail được claim lại
+ * - Poll định kỳ + {@link #wakeUp()} / {@link #wakeUpAt(Instant)} sau enqueue để mail mới không phải chờ chu kỳ poll
+ */
+@Slf4j
+@Component
+public class EmailOutboxWorker {
+
+    public static final String PAYLOAD_TOKEN = "token";
+    public static final String PAYLOAD_OTP = "otp";
+
+    private final IEmailOutboxRepository outbox;
+    private final IEmailService emailService;
+    private final BatchMailSender batchSender;
+    private final Executor sendExecutor;
+    private final TaskScheduler scheduler;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final Duration sentRetention;
+    private final Duration deadRetention;
+    private final Duration spillDelay;
+
+    private final String owner = UUID.randomUUID().toString();
+    private final ExecutorService drainThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "email-outbox");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+    private final LongAdder leaseLost = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+
+    public EmailOutboxWorker(
+            IEmailOutboxRepository outbox,
+            IEmailService emailService,
+            BatchMailSender batchSender,
+            @Qualifier("emailTaskExecutor") Executor sendExecutor,
+            TaskScheduler scheduler,
+            @Value("${app.mail.outbox.enabled:true}") boolean enabled,
+            @Value("${app.mail.outbox.batch-size:100}") int batchSize,
+            @Value("${app.mail.outbox.group-lease-seconds:60}") long groupLeaseSeconds,
+            @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${app.mail.outbox.backoff-base-seconds:15}") long backoffBaseSeconds,
+            @Value("${app.mail.outbox.backoff-max-seconds:1800}") long backoffMaxSeconds,
+            @Value("${app.mail.outbox.sent-retention-hours:72}") long sentRetentionHours,
+            @Value("${app.mail.outbox.dead-retention-days:30}") long deadRetentionDays,
+            @Value("${app.mail.outbox.spill-delay-ms:5000}") long spillDelayMs
+    ) {
+        this.outbox = outbox;
+        this.emailService = emailService;
+        this.batchSender = batchSender;
+        this.sendExecutor = sendExecutor;
+        this.scheduler = scheduler;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lease = batchLease(batchSize, batchSender.maxPerConnection(), Duration.ofSeconds(groupLeaseSeconds));
+        this.maxAttempts = maxAttempts;
+        this.backoffBase = Duration.ofSeconds(backoffBaseSeconds);
+        this.backoffMax = Duration.ofSeconds(backoffMaxSeconds);
+        this.sentRetention = Duration.ofHours(sentRetentionHours);
+        this.deadRetention = Duration.ofDays(deadRetentionDays);
+        this.spillDelay = Duration.ofMillis(spillDelayMs);
+    }
+
+    /**
+     * Gọi sau enqueue: không chặn thread gọi, chỉ báo thread worker chạy ngay.
+     */
+    public void wakeUp() {
+        if (!enabled) {
+            return;
+        }
+        wakeRequested.set(true);
+        if (draining.get()) {
+            return; // vòng drain hiện tại sẽ thấy cờ và chạy thêm 1 lượt
+        }
+        try {
+            drainThread.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            log.debug("[OUTBOX] worker is shutting down, mail stays in outbox");
+        }
+    }
+
+    /**
+     * Mail chưa đến hạn (còn trong cửa sổ gộp): hẹn chạy đúng lúc đến hạn thay vì chờ lượt poll.
+     */
+    public void wakeUpAt(Instant dueAt) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            scheduler.schedule(this::wakeUp, dueAt);
+        } catch (TaskRejectedException e) {
+            log.debug("[OUTBOX] scheduler is shutting down, mail waits for next poll");
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.mail.outbox.poll-interval-ms:2000}",
+            fixedDelayString = "${app.mail.outbox.poll-interval-ms:2000}"
+    )
+    public void poll() {
+        if (enabled) {
+            wakeUp();
+        }
+    }
+
+    public Stats stats() {
+        Map<EmailOutboxStatus, Long> counts;
+        try {
+            counts = outbox.countByStatus();
+        } catch (DataAccessException e) {
+            counts = Map.of();
+        }
+        return new Stats(
+                sent.sum(), retried.sum(), dead.sum(), leaseLost.sum(), spilled.sum(),
+                counts.getOrDefault(EmailOutboxStatus.PENDING, -1L),
+                counts.getOrDefault(EmailOutboxStatus.DEAD, -1L)
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainThread.shutdownNow();
+    }
+
+    // =========================
+    // 🔄 DRAIN
+    // =========================
+    private void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (wakeRequested.getAndSet(false)) {
+                drainDue();
+            }
+        } catch (RuntimeException e) {
+            // Mail đã claim giữ nguyên lease → tự được claim lại khi hết hạn
+            log.warn("[OUTBOX] drain failed, retry next poll: {}", e.getMessage());
+        } finally {
+            draining.set(false);
+        }
+
+        // wakeUp() đến đúng lúc vòng trên vừa thoát
+        if (wakeRequested.get() && !drainThread.isShutdown()) {
+            wakeUp();
+        }
+    }
+
+    // Claim đến khi hết mail đến hạn (batch không đầy = đã hết)
+    private void drainDue() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<EmailOutboxMessage> batch = outbox.claim(owner, batchSize, lease);
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            AtomicBoolean saturated = new AtomicBoolean();
+            CompletableFuture<?>[] sends = prepare(batch).stream()
+                    .map(group -> submit(group, saturated))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(sends).join();
+
+            // Executor đầy: claim tiếp chỉ để trả lại → chờ lượt poll sau
+            if (batch.size() < batchSize || saturated.get()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Bỏ mail quá hạn, dựng MimeMessage cho phần còn lại rồi chia nhóm (1 nhóm = 1 phiên SMTP).
+     */
+    private List<Map<EmailOutboxMessage, MimeMessage>> prepare(List<EmailOutboxMessage> batch) {
+        Instant now = Instant.now();
+        List<Map<EmailOutboxMessage, MimeMessage>> groups = new ArrayList<>();
+        Map<EmailOutboxMessage, MimeMessage> group = new LinkedHashMap<>();
+
+        for (EmailOutboxMessage message : batch) {
+            if (message.getDeliverBefore() != null && now.isAfter(message.getDeliverBefore())) {
+                finishDead(message, "expired before delivery", now);
+                continue;
+            }
+            try {
+                group.put(message, compose(message));
+            } catch (Exception e) {
+                onFailure(message, e, now);
+                continue;
+            }
+            if (group.size() >= batchSender.maxPerConnection()) {
+                groups.add(group);
+                group = new LinkedHashMap<>();
+            }
+        }
+        if (!group.isEmpty()) {
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    private CompletableFuture<Void> submit(Map<EmailOutboxMessage, MimeMessage> group, AtomicBoolean saturated) {
+        GroupSend task = new GroupSend(group, saturated);
+        try {
+            sendExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.spill();
+        }
+        return task.done;
+    }
+
+    private void deliver(Map<EmailOutboxMessage, MimeMessage> group) {
+        Instant now = Instant.now();
+        Map<EmailOutboxMessage, Exception> failed = batchSender.send(group);
+
+        for (EmailOutboxMessage message : group.keySet()) {
+            Exception error = failed.get(message);
+            if (error != null) {
+                onFailure(message, error, now);
+                continue;
+            }
+
+            if (outbox.markSent(message.getId(), message.getLeaseToken(), now.plus(sentRetention))) {
+                sent.increment();
+                log.info("[OUTBOX] ✅ {} sent to {} (attempt {})",
+                        message.getType(), message.getRecipient(), message.getAttempts());
+            } else {
+                // Gửi quá lâu, lease đã bị node khác lấy → mail có thể bị gửi 2 lần
+                leaseLost.increment();
+                log.warn("[OUTBOX] lease lost after sending {} to {}", message.getId(), message.getRecipient());
+            }
+        }
+    }
+
+    private MimeMessage compose(EmailOutboxMessage message) {
+        Map<String, String> payload = message.getPayload();
+        Locale locale = message.getLocale() != null ? Locale.forLanguageTag(message.getLocale()) : null;
+        return switch (message.getType()) {
+            case VERIFY_EMAIL -> emailService.composeVerifyEmail(
+                    message.getRecipient(), payload.get(PAYLOAD_TOKEN), locale);
+            case FORGOT_PASSWORD_OTP -> emailService.composeForgotPasswordOtp(
+                    message.getRecipient(), payload.get(PAYLOAD_OTP), locale);
+        };
+    }
+
+    private void onFailure(EmailOutboxMessage message, Exception e, Instant now) {
+        String error = rootMessage(e);
+
+        if (message.getAttempts() >= maxAttempts) {
+            finishDead(message, error, now);
+            return;
+        }
+
+        Instant next = now.plus(backoff(message.getAttempts()));
+        if (message.getDeliverBefore() != null && next.isAfter(message.getDeliverBefore())) {
+            finishDead(message, error, now);
+            return;
+        }
+
+        if (outbox.reschedule(message.getId(), message.getLeaseToken(), next, error)) {
+            retried.increment();
+        }
+        log.warn("[OUTBOX] ⚠️ {} to {} failed (attempt {}/{}), retry at {}: {}",
+                message.getType(), message.getRecipient(), message.getAttempts(), maxAttempts, next, error);
+    }
+
+    private void finishDead(EmailOutboxMessage message, String error, Instant now) {
+        if (outbox.markDead(message.getId(), message.getLeaseToken(), error, now.plus(deadRetention))) {
+            dead.increment();
+        }
+        log.error("[OUTBOX] ❌ {} to {} dead-lettered after {} attempts: {}",
+                message.getType(), message.getRecipient(), message.getAttempts(), error);
+    }
+
+    /**
+     * Lease phải phủ cả batch: batch chia thành ⌈batchSize / maxPerConnection⌉ nhóm,
+     * tệ nhất các nhóm chạy nối tiếp (executor chỉ còn 1 slot) → mỗi nhóm 1 phần lease.
+     */
+    static Duration batchLease(int batchSize, int maxPerConnection, Duration groupLease) {
+        int groups = Math.max(1, (batchSize + maxPerConnection - 1) / maxPerConnection);
+        return groupLease.multipliedBy(groups);
+    }
+
+    // base * 2^(attempt-1), chặn trên backoffMax, jitter trong [½, 1] để retry không dồn cục
+    private Duration backoff(int attempt) {
+        long capped = Math.min(backoffMax.toMillis(), backoffBase.toMillis() << Math.min(attempt - 1, 20));
+        long jittered = capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+        return Duration.ofMillis(jittered);
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getClass().getSimpleName() + ": " + root.getMessage();
+    }
+
+    /**
+     * 1 nhóm = 1 phiên SMTP; executor đầy → trả lease về outbox, gửi lại sau spillDelay.
+     */
+    private final class GroupSend implements BoundedEmailExecutor.Spillable {
+
+        private final Map<EmailOutboxMessage, MimeMessage> group;
+        private final AtomicBoolean saturated;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private GroupSend(Map<EmailOutboxMessage, MimeMessage> group, AtomicBoolean saturated) {
+            this.group = group;
+            this.saturated = saturated;
+        }
+
+        @Override
+        public void run() {
+            try {
+                deliver(group);
+            } finally {
+                done.complete(null);
+            }
+        }
+
+        @Override
+        public void spill() {
+            saturated.set(true);
+            try {
+                Instant next = Instant.now().plus(spillDelay);
+                for (EmailOutboxMessage message : group.keySet()) {
+                    if (outbox.requeue(message.getId(), message.getLeaseToken(), next)) {
+                        spilled.increment();
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Không trả được thì lease tự hết hạn
+                log.warn("[OUTBOX] spill failed, mails wait for lease expiry: {}", e.getMessage());
+            } finally {
+                done.complete(null);
+            }
+        }
+    }
+
+    /**
+     * @param pending số mail PENDING trong outbox (-1 nếu không đọc được)
+     */
+    public record Stats(
+            long sent, long retried, long dead, long leaseLost, long spilled, long pending, long deadTotal
+    ) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.service.emailService.outbox;
+
+import com.example.demo.domain.entities.EmailOutboxMessage;
+import com.example.demo.domain.enums.EmailOutboxStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+public interface IEmailOutboxRepository {
+
+    /**
+     * Ghi 1 mail PENDING, gửi sớm nhất sau {@code coalesceWindow}.
+     * Đã có mail cùng loại + cùng người nhận đang chờ (chưa bị claim) → ghi đè payload
+     * của mail đó (bản mới nhất thắng) thay vì thêm mail mới.
+     */
+    Enqueued enqueue(EmailOutboxMessage message, Duration coalesceWindow);
+
+    /**
+     * Claim tối đa {@code limit} mail đến hạn, giữ lease {@code lease}.
+     * Worker chết giữa chừng → hết lease mail tự được claim lại (at-least-once).
+     */
+    List<EmailOutboxMessage> claim(String owner, int limit, Duration lease);
+
+    // 3 hàm dưới: false = lease đã mất (worker khác đã claim lại), không ghi gì
+    boolean markSent(String id, String leaseToken, Instant expireAt);
+
+    // reschedule / requeue: đã có mail mới hơn cùng loại + người nhận đang chờ → SUPERSEDED, không gửi lại
+    boolean reschedule(String id, String leaseToken, Instant nextAttemptAt, String error);
+
+    boolean markDead(String id, String leaseToken, String error, Instant expireAt);
+
+    // Trả lease mà chưa gửi (executor đầy): không tính là 1 lần thử
+    boolean requeue(String id, String leaseToken, Instant nextAttemptAt);
+
+    Map<EmailOutboxStatus, Long> countByStatus();
+
+    // coalesced = true: đã gộp vào mail đang chờ
+    record Enqueued(String id, boolean coalesced) {
+    }
+}
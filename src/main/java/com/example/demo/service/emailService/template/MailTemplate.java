@@ -0,0 +1,73 @@
+package com.example.demo.service.emailService.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Template đã "biên dịch": cắt sẵn thành đoạn tĩnh xen kẽ biến {{name}}.
+ * Render = nối đoạn tĩnh + giá trị biến (không regex / format lúc gửi).
+ */
+public final class MailTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String name;
+    // statics.size() == variables.size() + 1
+    private final List<String> statics;
+    private final List<String> variables;
+    private final int staticLength;
+
+    private MailTemplate(String name, List<String> statics, List<String> variables) {
+        this.name = name;
+        this.statics = statics;
+        this.variables = variables;
+        this.staticLength = statics.stream().mapToInt(String::length).sum();
+    }
+
+    public static MailTemplate compile(String name, String source) {
+        List<String> statics = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, pos);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalStateException("Unclosed {{ in mail template " + name);
+            }
+            statics.add(source.substring(pos, open));
+            variables.add(source.substring(open + OPEN.length(), close).trim());
+            pos = close + CLOSE.length();
+        }
+        statics.add(source.substring(pos));
+
+        return new MailTemplate(name, List.copyOf(statics), List.copyOf(variables));
+    }
+
+    public List<String> variables() {
+        return variables;
+    }
+
+    /**
+     * @param escaper áp lên từng giá trị biến (HTML escape cho bản HTML, identity cho bản text)
+     */
+    public String render(Map<String, String> values, UnaryOperator<String> escaper) {
+        StringBuilder sb = new StringBuilder(staticLength + 64 * variables.size());
+        for (int i = 0; i < variables.size(); i++) {
+            sb.append(statics.get(i));
+            String value = values.get(variables.get(i));
+            if (value == null) {
+                throw new IllegalArgumentException("Missing variable '" + variables.get(i) + "' for mail template " + name);
+            }
+            sb.append(escaper.apply(value));
+        }
+        sb.append(statics.get(statics.size() - 1));
+        return sb.toString();
+    }
+}
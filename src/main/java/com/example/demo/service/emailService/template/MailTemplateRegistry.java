@@ -0,0 +1,108 @@
+package com.example.demo.service.emailService.template;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Nạp 1 lần lúc startup mọi template trong classpath:templates/mail/.
+ *
+ * Mỗi mail = cặp file cùng tên:
+ * - {name}[_{lang}].html – bản HTML
+ * - {name}[_{lang}].txt  – bản text thuần, dòng đầu "Subject: ..." rồi 1 dòng trống
+ * Không có bản theo ngôn ngữ → dùng bản mặc định (không hậu tố, tiếng Việt).
+ */
+@Slf4j
+@Component
+public class MailTemplateRegistry {
+
+    private static final String LOCATION = "classpath:templates/mail/";
+    private static final String SUBJECT_PREFIX = "Subject:";
+
+    private final Map<String, Compiled> templates = new HashMap<>();
+
+    @Value("${app.mail.default-locale:vi}")
+    private String defaultLanguage;
+
+    @PostConstruct
+    void load() throws IOException {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+        for (Resource html : resolver.getResources(LOCATION + "*.html")) {
+            String key = stripExtension(html.getFilename());
+            Resource text = html.createRelative(key + ".txt");
+            if (!text.exists()) {
+                throw new IllegalStateException("Missing plain-text part " + key + ".txt for mail template " + key);
+            }
+            templates.put(key, compile(key, read(html), read(text)));
+        }
+        log.info("✅ Loaded {} mail templates: {}", templates.size(), templates.keySet());
+    }
+
+    /**
+     * @param locale null → ngôn ngữ mặc định
+     */
+    public RenderedMail render(String name, Locale locale, Map<String, String> values) {
+        Compiled template = resolve(name, locale);
+        return new RenderedMail(
+                template.subject(),
+                template.html().render(values, HtmlUtils::htmlEscape),
+                template.text().render(values, UnaryOperator.identity())
+        );
+    }
+
+    private Compiled resolve(String name, Locale locale) {
+        if (locale != null && !locale.getLanguage().isEmpty() && !locale.getLanguage().equals(defaultLanguage)) {
+            Compiled localized = templates.get(name + "_" + locale.getLanguage());
+            if (localized != null) {
+                return localized;
+            }
+        }
+        Compiled fallback = templates.get(name);
+        if (fallback == null) {
+            throw new IllegalArgumentException("Unknown mail template: " + name);
+        }
+        return fallback;
+    }
+
+    static Compiled compile(String key, String html, String text) {
+        if (!text.startsWith(SUBJECT_PREFIX)) {
+            throw new IllegalStateException("Mail template " + key + ".txt must start with '" + SUBJECT_PREFIX + "'");
+        }
+        int lineEnd = text.indexOf('\n');
+        String subject = text.substring(SUBJECT_PREFIX.length(), lineEnd < 0 ? text.length() : lineEnd).trim();
+        String body = lineEnd < 0 ? "" : text.substring(lineEnd + 1).stripLeading();
+
+        return new Compiled(subject, MailTemplate.compile(key + ".html", html), MailTemplate.compile(key + ".txt", body));
+    }
+
+    private static String read(Resource resource) {
+        try (var in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String stripExtension(String filename) {
+        return filename.substring(0, filename.lastIndexOf('.'));
+    }
+
+    record Compiled(String subject, MailTemplate html, MailTemplate text) {
+    }
+
+    public record RenderedMail(String subject, String html, String text) {
+    }
+}
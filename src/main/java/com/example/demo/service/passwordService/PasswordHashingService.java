@@ -0,0 +1,207 @@
+package com.example.demo.service.passwordService;
+
+import com.example.demo.exception.BusinessException;
+import com.example.demo.exception.CommonError;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Chạy BCrypt (matches / encode) trên pool riêng có giới hạn thay vì trên thread Tomcat.
+ *
+ * - Số worker = số core → hashing không chiếm hết CPU của các endpoint rẻ
+ * - Hàng đợi có giới hạn; đầy hoặc chờ quá lâu → 503 + Retry-After ngay lập tức
+ * - Đo thời gian chờ trong queue và thời gian hash
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitMillis;
+    private final long retryAfterSeconds;
+    private final int queueCapacity;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+
+    public PasswordHashingService(
+            PasswordEncoder passwordEncoder,
+            @Value("${app.password-hashing.workers:0}") int workers,
+            @Value("${app.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.password-hashing.max-wait-ms:2000}") long maxWaitMillis,
+            @Value("${app.password-hashing.retry-after-seconds:2}") long retryAfterSeconds
+    ) {
+        int poolSize = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+
+        this.passwordEncoder = passwordEncoder;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitMillis = maxWaitMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        log.info("✅ Password hashing pool initialized: workers={}, queue={}, maxWait={}ms",
+                poolSize, queueCapacity, maxWaitMillis);
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Hash đã lưu có cost THẤP hơn cost hiện tại → hash lại trong nền (không bao giờ hạ cost).
+     * Không chặn request; pool đang bận quá nửa queue thì bỏ qua, lần login sau làm tiếp.
+     *
+     * @param writer ghi hash mới xuống DB
+     */
+    public void rehashInBackground(CharSequence rawPassword, String encodedPassword, Consumer<String> writer) {
+        if (!passwordEncoder.upgradeEncoding(encodedPassword)
+                || executor.getQueue().size() > queueCapacity / 2) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    writer.accept(passwordEncoder.encode(rawPassword));
+                    rehashed.increment();
+                } catch (Exception e) {
+                    log.warn("[PASSWORD_HASHING] Background rehash failed: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue vừa đầy → bỏ qua
+        }
+    }
+
+    public Stats stats() {
+        long done = completed.sum();
+        return new Stats(
+                executor.getQueue().size(),
+                executor.getActiveCount(),
+                done,
+                rejected.sum(),
+                timedOut.sum(),
+                rehashed.sum(),
+                done == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(queueWaitNanos.sum() / done),
+                done == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(hashNanos.sum() / done)
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // =========================
+    // ⚙️ EXECUTION
+    // =========================
+    private <T> T run(Callable<T> hashing) {
+        long enqueuedAt = System.nanoTime();
+
+        FutureTask<T> task = new FutureTask<>(() -> {
+            long startedAt = System.nanoTime();
+            queueWaitNanos.add(startedAt - enqueuedAt);
+            try {
+                return hashing.call();
+            } finally {
+                hashNanos.add(System.nanoTime() - startedAt);
+                completed.increment();
+            }
+        });
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw overloaded();
+        }
+
+        return await(task);
+    }
+
+    private <T> T await(Future<T> task) {
+        try {
+            return task.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Chưa chạy thì bỏ khỏi queue luôn, đang chạy thì để chạy xong
+            task.cancel(false);
+            executor.remove((Runnable) task);
+            timedOut.increment();
+            throw overloaded();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.cancel(false);
+            throw overloaded();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private BusinessException overloaded() {
+        log.warn("[PASSWORD_HASHING] Overloaded: queue={}, active={}",
+                executor.getQueue().size(), executor.getActiveCount());
+        return new BusinessException(
+                CommonError.SERVICE_UNAVAILABLE,
+                "Hệ thống đang bận. Thử lại sau " + retryAfterSeconds + " giây.",
+                retryAfterSeconds
+        );
+    }
+
+    /**
+     * @param queued             số task đang chờ
+     * @param active             số worker đang hash
+     * @param completed          tổng số lần hash đã xong
+     * @param rejected           số lần bị từ chối vì queue đầy
+     * @param timedOut           số lần chờ quá max-wait
+     * @param rehashed           số hash đã được nâng cost trong nền
+     * @param avgQueueWaitMicros thời gian chờ trung bình trong queue
+     * @param avgHashMicros      thời gian hash trung bình
+     */
+    public record Stats(
+            int queued,
+            int active,
+            long completed,
+            long rejected,
+            long timedOut,
+            long rehashed,
+            long avgQueueWaitMicros,
+            long avgHashMicros
+    ) {
+    }
+}
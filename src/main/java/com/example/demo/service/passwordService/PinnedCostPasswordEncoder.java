@@ -0,0 +1,129 @@
+package com.example.demo.service.passwordService;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder với cost cố định (lấy từ config, giống nhau trên mọi node).
+ *
+ * Cost được pin thay vì tự calibrate lúc khởi động: mỗi node đo ra 1 cost khác nhau
+ * thì hash sẽ bị "nâng" rồi lại "hạ" qua lại tuỳ node nào xử lý login.
+ *
+ * - {@link #recommendCost} chỉ đo và log cost gợi ý cho phần cứng hiện tại,
+ *   KHÔNG tự đổi cost đang dùng → người vận hành chủ động pin cost mới vào config
+ * - {@link #upgradeEncoding(String)} = true chỉ khi hash đã lưu có cost THẤP hơn
+ *   cost hiện tại → login rehash lên, không bao giờ hạ cost
+ */
+@Slf4j
+public class PinnedCostPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN =
+            Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$[./A-Za-z0-9]{53}$");
+
+    private static final String SAMPLE_PASSWORD = "calibration-Passw0rd";
+
+    private final int cost;
+    private final BCryptPasswordEncoder delegate;
+
+    public PinnedCostPasswordEncoder(int cost) {
+        this.cost = cost;
+        this.delegate = new BCryptPasswordEncoder(cost);
+    }
+
+    /**
+     * Cost lớn nhất có thời gian hash ≤ targetLatency (không thấp hơn minCost).
+     * Chỉ mang tính tham khảo: kết quả được log, encoder vẫn dùng cost đã cấu hình.
+     */
+    public static int recommendCost(Duration targetLatency, int minCost, int maxCost, int configuredCost) {
+        List<CostBenchmark> results = benchmark(minCost, maxCost, 3, targetLatency.multipliedBy(2));
+
+        int chosen = minCost;
+        for (CostBenchmark result : results) {
+            if (result.millisPerHash() <= targetLatency.toMillis()) {
+                chosen = Math.max(chosen, result.cost());
+            }
+        }
+
+        int recommended = chosen;
+        log.info("🔐 BCrypt calibration (target {}ms, configured cost={}):",
+                targetLatency.toMillis(), configuredCost);
+        results.forEach(r -> log.info("   cost={} → {} ms/hash, {} hashes/sec/core{}",
+                r.cost(),
+                r.millisPerHash(),
+                String.format("%.1f", r.hashesPerSecondPerCore()),
+                r.cost() == recommended ? "  ← recommended" : ""));
+
+        if (recommended != configuredCost) {
+            log.warn("🔐 Recommended BCrypt cost {} differs from configured app.password-hashing.cost={} (not applied)",
+                    recommended, configuredCost);
+        }
+        return recommended;
+    }
+
+    /**
+     * Đo thời gian hash (median của {@code samples} lần) trên 1 thread cho từng cost.
+     * Dừng sớm khi 1 cost đã chậm hơn {@code stopAbove} (cost sau chậm gấp đôi).
+     */
+    public static List<CostBenchmark> benchmark(int minCost, int maxCost, int samples, Duration stopAbove) {
+        // Warm-up JIT
+        new BCryptPasswordEncoder(4).encode(SAMPLE_PASSWORD);
+
+        List<CostBenchmark> results = new ArrayList<>();
+        for (int c = minCost; c <= maxCost; c++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(c);
+            long[] timings = new long[samples];
+
+            for (int i = 0; i < samples; i++) {
+                long start = System.nanoTime();
+                encoder.encode(SAMPLE_PASSWORD);
+                timings[i] = System.nanoTime() - start;
+            }
+
+            Arrays.sort(timings);
+            double millis = timings[samples / 2] / 1_000_000.0;
+            results.add(new CostBenchmark(c, Math.round(millis), 1000.0 / millis));
+
+            if (millis > stopAbove.toMillis()) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.matches()) {
+            return false;
+        }
+        return Integer.parseInt(matcher.group(1)) < cost;
+    }
+
+    public record CostBenchmark(int cost, long millisPerHash, double hashesPerSecondPerCore) {
+    }
+}
@@ -4,6 +4,7 @@ import com.example.demo.service.redisConfig.blacklist.AccessTokenBlacklistServic
 import com.example.demo.service.redisConfig.otp.ForgotPasswordOtpService;
 import com.example.demo.service.redisConfig.rate_limit.LoginRateLimitService;
 import com.example.demo.service.redisConfig.rate_limit.OtpRateLimitService;
+import com.example.demo.service.redisConfig.revocation.TokenRevocationService;
 import com.example.demo.service.redisConfig.token.RefreshTokenService;
 import com.example.demo.service.redisConfig.token.ResetPasswordTokenService;
 import com.example.demo.service.redisConfig.token.VerifyEmailTokenService;
@@ -24,4 +25,5 @@ public class RedisFacade {
     public final VerifyEmailTokenService verifyEmailToken;
 
     public final AccessTokenBlacklistService accessTokenBlacklist;
+    public final TokenRevocationService tokenRevocation;
 }
@@ -170,24 +170,6 @@ public class RedisService {
         );
     }
 
-    // =====================================================
-    // 🔒 BLACKLIST ACCESS TOKEN
-    // =====================================================
-
-    public void blacklistAccessToken(String jti, long ttlMillis) {
-        redisTemplate.opsForValue().set(
-                "blacklist:access:" + jti,
-                "true",
-                Duration.ofMillis(ttlMillis)
-        );
-    }
-
-    public boolean isAccessTokenBlacklisted(String jti) {
-        return Boolean.TRUE.equals(
-                redisTemplate.hasKey("blacklist:access:" + jti)
-        );
-    }
-
     // =====================================================
     // 🔁 REFRESH TOKEN
     // =====================================================
@@ -1,28 +1,132 @@
 package com.example.demo.service.redisConfig.blacklist;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Blacklist access token 2 tầng:
+ * - Redis: nguồn sự thật ("blacklist:access:{jti}", TTL = thời gian sống còn lại của token)
+ * - Local: map jti → expiresAt trong RAM, filter chỉ đọc tầng này (không tốn round trip Redis)
+ *
+ * Đồng bộ giữa các node qua channel {@link #CHANNEL}; resync toàn bộ lúc startup
+ * và định kỳ để bù cho message pub/sub bị mất (pub/sub là at-most-once).
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class AccessTokenBlacklistService {
+public class AccessTokenBlacklistService implements MessageListener {
+
+    private static final String PREFIX = "blacklist:access:";
+    public static final String CHANNEL = "blacklist:access:events";
 
     private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // jti → expiresAt (epoch millis)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
 
     public void blacklist(String jti, Duration ttl) {
-        redis.opsForValue().set(
-                "blacklist:access:" + jti,
-                "true",
-                ttl
-        );
+        if (jti == null || ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+
+        redis.opsForValue().set(PREFIX + jti, "true", ttl);
+        revoked.put(jti, expiresAt);
+        redis.convertAndSend(CHANNEL, jti + ":" + expiresAt);
     }
 
+    /**
+     * Chỉ đọc tầng local.
+     */
     public boolean isBlacklisted(String jti) {
-        return Boolean.TRUE.equals(
-                redis.hasKey("blacklist:access:" + jti)
-        );
+        Long expiresAt = revoked.get(jti);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt <= System.currentTimeMillis()) {
+            revoked.remove(jti, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    // =========================
+    // 📡 PUB/SUB
+    // =========================
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int sep = body.lastIndexOf(':');
+        if (sep <= 0) {
+            log.warn("[BLACKLIST] Ignore malformed event: {}", body);
+            return;
+        }
+        try {
+            revoked.put(body.substring(0, sep), Long.parseLong(body.substring(sep + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("[BLACKLIST] Ignore malformed event: {}", body);
+        }
+    }
+
+    // =========================
+    // 🔄 RESYNC
+    // =========================
+    @EventListener(ApplicationReadyEvent.class)
+    public void resyncOnStartup() {
+        resync();
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.blacklist.resync-interval-ms:60000}",
+            fixedDelayString = "${app.blacklist.resync-interval-ms:60000}"
+    )
+    public void resync() {
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+
+        try (Cursor<String> keys = redis.scan(
+                ScanOptions.scanOptions().match(PREFIX + "*").count(500).build())) {
+
+            while (keys.hasNext()) {
+                String key = keys.next();
+                Long ttlMillis = redis.getExpire(key, TimeUnit.MILLISECONDS);
+                if (ttlMillis == null || ttlMillis <= 0) {
+                    continue;
+                }
+                revoked.put(key.substring(PREFIX.length()), now + ttlMillis);
+                loaded++;
+            }
+        } catch (Exception e) {
+            log.warn("[BLACKLIST] Resync from Redis failed: {}", e.getMessage());
+            return;
+        }
+
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        log.debug("[BLACKLIST] Resynced {} revoked tokens, local size={}", loaded, revoked.size());
     }
 }
@@ -0,0 +1,90 @@
+package com.example.demo.service.redisConfig.branch;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Báo thay đổi branch cho các node khác qua channel {@link #CHANNEL}.
+ *
+ * Payload: "{nodeId}|{UPSERT|DELETE}|{branchId}" – node tự bỏ qua message của chính mình.
+ * Pub/sub là at-most-once → bên nhận phải có resync định kỳ.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BranchChangeBus implements MessageListener {
+
+    public static final String CHANNEL = "branch:changes";
+
+    public enum Type { UPSERT, DELETE }
+
+    public record Change(Type type, String branchId) {
+    }
+
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<Change>> subscribers = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public void subscribe(Consumer<Change> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void publish(Type type, String branchId) {
+        try {
+            redis.convertAndSend(CHANNEL, nodeId + "|" + type + "|" + branchId);
+        } catch (DataAccessException e) {
+            // Node khác sẽ tự khớp lại ở lần resync kế tiếp
+            log.warn("[BRANCH_CHANGES] Publish failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 3);
+        if (parts.length != 3) {
+            log.warn("[BRANCH_CHANGES] Ignore malformed event: {}", body);
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return;
+        }
+
+        Change change;
+        try {
+            change = new Change(Type.valueOf(parts[1]), parts[2]);
+        } catch (IllegalArgumentException e) {
+            log.warn("[BRANCH_CHANGES] Ignore malformed event: {}", body);
+            return;
+        }
+
+        for (Consumer<Change> subscriber : subscribers) {
+            try {
+                subscriber.accept(change);
+            } catch (RuntimeException e) {
+                log.warn("[BRANCH_CHANGES] Subscriber failed for {}: {}", change, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.service.redisConfig.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Báo các node khác xoá 1 key khỏi near-cache của họ, qua channel {@link #CHANNEL}.
+ *
+ * Payload: "{nodeId}|{cacheName}|{key}" – node tự bỏ qua message của chính mình.
+ * Pub/sub là at-most-once → cache phía nhận phải có TTL.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CacheInvalidationBus implements MessageListener {
+
+    public static final String CHANNEL = "cache:invalidate";
+
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public void register(String cacheName, Consumer<String> evictLocal) {
+        handlers.put(cacheName, evictLocal);
+    }
+
+    public void publish(String cacheName, String key) {
+        try {
+            redis.convertAndSend(CHANNEL, nodeId + "|" + cacheName + "|" + key);
+        } catch (DataAccessException e) {
+            // Node khác tự hết hạn theo TTL
+            log.warn("[CACHE_INVALIDATE] Publish failed for {}:{}: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 3);
+        if (parts.length != 3) {
+            log.warn("[CACHE_INVALIDATE] Ignore malformed event: {}", body);
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return;
+        }
+
+        Consumer<String> handler = handlers.get(parts[1]);
+        if (handler != null) {
+            handler.accept(parts[2]);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.service.redisConfig.rate_limit;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limit "sai N lần trong window → khoá" chạy bằng Lua script phía Redis.
+ *
+ * Mỗi thao tác (check / ghi nhận thất bại) chỉ tốn đúng 1 round trip và atomic,
+ * không còn race giữa INCR và EXPIRE.
+ *
+ * Đứng trước Redis là {@link LocalRateLimitTier}: identifier đang bị khoá hoặc bắn quá dồn dập
+ * bị chặn ngay tại node; số lần bị chặn local được reconcile định kỳ thành số lần thất bại
+ * trên Redis để giới hạn toàn cluster vẫn đúng.
+ */
+@SuppressWarnings("rawtypes")
+public abstract class AttemptRateLimiter {
+
+    private static final RedisScript<List> CHECK_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/attempt_check.lua"), List.class);
+
+    private static final RedisScript<List> RECORD_FAILURE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/attempt_record_failure.lua"), List.class);
+
+    private static final RedisScript<List> RECONCILE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/attempt_reconcile.lua"), List.class);
+
+    private final StringRedisTemplate redis;
+    private final LocalRateLimitTier localTier;
+    private final String scope;
+    private final String attemptPrefix;
+    private final String blockPrefix;
+    private final int maxAttempts;
+    private final Duration attemptWindow;
+    private final Duration blockDuration;
+
+    protected AttemptRateLimiter(
+            StringRedisTemplate redis,
+            LocalRateLimitTier localTier,
+            String scope,
+            String attemptPrefix,
+            String blockPrefix,
+            int maxAttempts,
+            Duration attemptWindow,
+            Duration blockDuration
+    ) {
+        this.redis = redis;
+        this.localTier = localTier;
+        this.scope = scope;
+        this.attemptPrefix = attemptPrefix;
+        this.blockPrefix = blockPrefix;
+        this.maxAttempts = maxAttempts;
+        this.attemptWindow = attemptWindow;
+        this.blockDuration = blockDuration;
+
+        localTier.registerReconciler(scope, this::reconcileInRedis);
+    }
+
+    /**
+     * Trạng thái hiện tại (blocked + retry-after + số lần còn lại).
+     * Bị chặn ở tầng local → 0 round trip; ngược lại đúng 1 round trip Redis.
+     */
+    public AttemptStatus check(String identifier) {
+        long localWait = localTier.tryAcquire(scope, identifier);
+        if (localWait > 0) {
+            return new AttemptStatus(true, 0, localWait);
+        }
+
+        AttemptStatus status = checkRedis(identifier);
+        if (status.blocked()) {
+            localTier.block(scope, identifier, status.retryAfterSeconds());
+        }
+        return status;
+    }
+
+    /**
+     * Ghi nhận 1 lần thất bại, tự khoá khi đạt ngưỡng.
+     */
+    public AttemptStatus recordFailed(String identifier) {
+        return recordFailuresInRedis(identifier, 1);
+    }
+
+    private AttemptStatus checkRedis(String identifier) {
+        List result = redis.execute(
+                CHECK_SCRIPT,
+                keys(identifier),
+                String.valueOf(maxAttempts)
+        );
+        return toStatus(result);
+    }
+
+    private AttemptStatus recordFailuresInRedis(String identifier, long count) {
+        List result = redis.execute(
+                RECORD_FAILURE_SCRIPT,
+                keys(identifier),
+                String.valueOf(maxAttempts),
+                String.valueOf(attemptWindow.toSeconds()),
+                String.valueOf(blockDuration.toSeconds()),
+                String.valueOf(count)
+        );
+        AttemptStatus status = toStatus(result);
+        if (status.blocked()) {
+            localTier.block(scope, identifier, status.retryAfterSeconds());
+        }
+        return status;
+    }
+
+    /**
+     * Reconcile cả lô identifier của tầng local trong 1 lần gọi script:
+     * cộng số lần bị chặn local thành thất bại, trả về retry-after của từng identifier.
+     */
+    private long[] reconcileInRedis(List<String> identifiers, long[] localRejects) {
+        List<String> keys = new ArrayList<>(identifiers.size() * 2);
+        identifiers.forEach(identifier -> keys.addAll(keys(identifier)));
+
+        Object[] args = new Object[3 + identifiers.size()];
+        args[0] = String.valueOf(maxAttempts);
+        args[1] = String.valueOf(attemptWindow.toSeconds());
+        args[2] = String.valueOf(blockDuration.toSeconds());
+        for (int i = 0; i < localRejects.length; i++) {
+            args[3 + i] = String.valueOf(localRejects[i]);
+        }
+
+        List result = redis.execute(RECONCILE_SCRIPT, keys, args);
+        long[] blockSeconds = new long[identifiers.size()];
+        if (result != null) {
+            for (int i = 0; i < blockSeconds.length && i < result.size(); i++) {
+                blockSeconds[i] = ((Number) result.get(i)).longValue();
+            }
+        }
+        return blockSeconds;
+    }
+
+    public void clear(String identifier) {
+        redis.delete(attemptPrefix + identifier);
+        localTier.clear(scope, identifier);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    private List<String> keys(String identifier) {
+        return List.of(blockPrefix + identifier, attemptPrefix + identifier);
+    }
+
+    private AttemptStatus toStatus(List result) {
+        if (result == null || result.size() < 3) {
+            // Redis trả về bất thường → không chặn user
+            return new AttemptStatus(false, maxAttempts, 0);
+        }
+        return new AttemptStatus(
+                ((Number) result.get(0)).longValue() == 1,
+                ((Number) result.get(1)).intValue(),
+                ((Number) result.get(2)).longValue()
+        );
+    }
+}
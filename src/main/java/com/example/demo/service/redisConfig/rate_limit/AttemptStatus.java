@@ -0,0 +1,11 @@
+package com.example.demo.service.redisConfig.rate_limit;
+
+/**
+ * Kết quả 1 lần check / ghi nhận thất bại của rate limiter.
+ *
+ * @param blocked           đang bị khoá hay không
+ * @param remainingAttempts số lần thử còn lại trước khi bị khoá
+ * @param retryAfterSeconds thời gian khoá còn lại (0 nếu không bị khoá)
+ */
+public record AttemptStatus(boolean blocked, int remainingAttempts, long retryAfterSeconds) {
+}
@@ -0,0 +1,288 @@
+package com.example.demo.service.redisConfig.rate_limit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tầng rate limit in-process đứng trước Redis.
+ *
+ * - Token bucket lock-free (CAS) cho mỗi key → chặn burst ngay tại node, không tốn round trip
+ * - Nhớ các key đã bị Redis khoá (block) tới khi hết retry-after → request sau không gọi Redis / Mongo
+ * - Giới hạn số key theo max-entries, dọn key idle
+ * - Định kỳ reconcile với Redis: đẩy số request bị chặn local lên tầng Redis
+ *   (để giới hạn toàn cluster vẫn đúng) và làm mới trạng thái block,
+ *   gom theo scope thành từng lô → 1 round trip cho mỗi lô thay vì mỗi key
+ */
+@Slf4j
+@Component
+public class LocalRateLimitTier {
+
+    /**
+     * Đồng bộ 1 lô key của scope với tầng Redis (1 round trip cho cả lô).
+     */
+    @FunctionalInterface
+    public interface Reconciler {
+        /**
+         * @param identifiers  identifier (không gồm scope)
+         * @param localRejects số request bị chặn local kể từ lần reconcile trước, cùng thứ tự
+         * @return số giây còn bị khoá theo Redis cho từng identifier (0 = không khoá)
+         */
+        long[] reconcile(List<String> identifiers, long[] localRejects);
+    }
+
+    // Số identifier tối đa trong 1 lần gọi Reconciler
+    static final int RECONCILE_BATCH_SIZE = 256;
+
+    private final double capacity;
+    private final double refillPerMillis;
+    private final int maxEntries;
+    private final long idleMillis;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Reconciler> reconcilers = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    private final LongAdder localRejects = new LongAdder();
+    private final LongAdder untracked = new LongAdder();
+
+    public LocalRateLimitTier(
+            @Value("${app.rate-limit.local.capacity:20}") double capacity,
+            @Value("${app.rate-limit.local.refill-per-second:2}") double refillPerSecond,
+            @Value("${app.rate-limit.local.max-entries:100000}") int maxEntries,
+            @Value("${app.rate-limit.local.idle-seconds:600}") long idleSeconds
+    ) {
+        this.capacity = capacity;
+        this.refillPerMillis = refillPerSecond / 1000.0;
+        this.maxEntries = maxEntries;
+        this.idleMillis = idleSeconds * 1000;
+    }
+
+    public void registerReconciler(String scope, Reconciler reconciler) {
+        reconcilers.put(scope, reconciler);
+    }
+
+    /**
+     * Xin 1 token local với cấu hình mặc định (app.rate-limit.local.*).
+     *
+     * @return 0 nếu được đi tiếp (sang tầng Redis), ngược lại số giây nên chờ
+     */
+    public long tryAcquire(String scope, String identifier) {
+        return tryAcquire(scope, identifier, capacity, refillPerMillis * 1000);
+    }
+
+    /**
+     * Xin 1 token local với cấu hình riêng. Dùng cùng capacity / tốc độ với rule Redis
+     * thì tầng local không bao giờ chặn nhầm request mà Redis cho qua
+     * (mỗi node chỉ thấy 1 phần traffic).
+     */
+    public long tryAcquire(String scope, String identifier, double capacity, double refillPerSecond) {
+        long now = System.currentTimeMillis();
+        Bucket bucket = bucket(scope, identifier, capacity, now);
+        if (bucket == null) {
+            // Hết chỗ theo dõi → không chặn local, để Redis quyết định
+            return 0;
+        }
+
+        long blockedFor = bucket.blockedForSeconds(now);
+        if (blockedFor > 0) {
+            bucket.reject();
+            return blockedFor;
+        }
+
+        long waitMillis = bucket.take(now, capacity, refillPerSecond / 1000.0);
+        if (waitMillis > 0) {
+            bucket.reject();
+            return Math.max(1, (waitMillis + 999) / 1000);
+        }
+        return 0;
+    }
+
+    /**
+     * Ghi nhớ quyết định khoá từ Redis để chặn local tới khi hết hạn.
+     */
+    public void block(String scope, String identifier, long seconds) {
+        if (seconds <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Bucket bucket = bucket(scope, identifier, capacity, now);
+        if (bucket != null) {
+            bucket.blockedUntil.accumulateAndGet(now + seconds * 1000, Math::max);
+        }
+    }
+
+    public void clear(String scope, String identifier) {
+        buckets.remove(key(scope, identifier));
+    }
+
+    public Stats stats() {
+        return new Stats(buckets.size(), localRejects.sum(), untracked.sum());
+    }
+
+    // =========================
+    // 🔄 RECONCILE
+    // =========================
+    @Scheduled(
+            initialDelayString = "${app.rate-limit.local.reconcile-interval-ms:5000}",
+            fixedDelayString = "${app.rate-limit.local.reconcile-interval-ms:5000}"
+    )
+    public void reconcile() {
+        long now = System.currentTimeMillis();
+
+        Map<String, List<Pending>> byScope = new HashMap<>();
+        buckets.forEach((key, bucket) -> {
+            if (!reconcilers.containsKey(bucket.scope)) {
+                // Không có tầng Redis để đẩy lên (vd. scope "rule:*" của RateLimitAspect)
+                // → bỏ số reject còn treo, nếu không bucket sẽ không bao giờ bị dọn
+                bucket.pendingRejects.reset();
+                return;
+            }
+            long rejects = bucket.pendingRejects.sumThenReset();
+            if (rejects == 0 && bucket.blockedForSeconds(now) == 0) {
+                return;
+            }
+            byScope.computeIfAbsent(bucket.scope, k -> new ArrayList<>()).add(new Pending(bucket, rejects));
+        });
+
+        byScope.forEach((scope, pending) -> {
+            Reconciler reconciler = reconcilers.get(scope);
+            for (int from = 0; from < pending.size(); from += RECONCILE_BATCH_SIZE) {
+                int to = Math.min(pending.size(), from + RECONCILE_BATCH_SIZE);
+                reconcileBatch(scope, reconciler, pending.subList(from, to), now);
+            }
+        });
+
+        evictIdle(now);
+    }
+
+    private void reconcileBatch(String scope, Reconciler reconciler, List<Pending> batch, long now) {
+        List<String> identifiers = new ArrayList<>(batch.size());
+        long[] rejects = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            identifiers.add(batch.get(i).bucket().identifier);
+            rejects[i] = batch.get(i).rejects();
+        }
+
+        try {
+            long[] blockSeconds = reconciler.reconcile(identifiers, rejects);
+            for (int i = 0; i < batch.size(); i++) {
+                long seconds = i < blockSeconds.length ? blockSeconds[i] : 0;
+                batch.get(i).bucket().blockedUntil.set(seconds > 0 ? now + seconds * 1000 : 0);
+            }
+        } catch (Exception e) {
+            // Redis lỗi → giữ nguyên trạng thái local, trả lại số reject cho lần sau
+            batch.forEach(p -> p.bucket().pendingRejects.add(p.rejects()));
+            log.warn("[RATE_LIMIT_LOCAL] Reconcile failed for scope={} ({} keys): {}",
+                    scope, batch.size(), e.getMessage());
+        }
+    }
+
+    // =========================
+    // 🧹 BOUNDING
+    // =========================
+    private Bucket bucket(String scope, String identifier, double initialTokens, long now) {
+        String key = key(scope, identifier);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxEntries) {
+                evictIdle(now);
+                if (buckets.size() >= maxEntries) {
+                    untracked.increment();
+                    return null;
+                }
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(scope, identifier, initialTokens, now));
+        }
+        bucket.lastSeen = now;
+        return bucket;
+    }
+
+    private void evictIdle(long now) {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(b ->
+                    now - b.lastSeen > idleMillis
+                            && b.blockedForSeconds(now) == 0
+                            && b.pendingRejects.sum() == 0
+            );
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private static String key(String scope, String identifier) {
+        return scope + ":" + identifier;
+    }
+
+    private final class Bucket {
+
+        private final String scope;
+        private final String identifier;
+        private final AtomicReference<State> state;
+        private final AtomicLong blockedUntil = new AtomicLong();
+        private final LongAdder pendingRejects = new LongAdder();
+        private volatile long lastSeen;
+
+        private Bucket(String scope, String identifier, double initialTokens, long now) {
+            this.scope = scope;
+            this.identifier = identifier;
+            this.state = new AtomicReference<>(new State(initialTokens, now));
+            this.lastSeen = now;
+        }
+
+        /**
+         * @return 0 nếu lấy được token, ngược lại số ms cần chờ
+         */
+        private long take(long now, double capacity, double refillPerMillis) {
+            while (true) {
+                State current = state.get();
+                double tokens = Math.min(
+                        capacity,
+                        current.tokens() + Math.max(0, now - current.timestamp()) * refillPerMillis
+                );
+                if (tokens < 1) {
+                    return (long) Math.ceil((1 - tokens) / refillPerMillis);
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, now))) {
+                    return 0;
+                }
+            }
+        }
+
+        private long blockedForSeconds(long now) {
+            long left = blockedUntil.get() - now;
+            return left > 0 ? (left + 999) / 1000 : 0;
+        }
+
+        private void reject() {
+            // Chỉ scope có reconciler mới cần đếm để đẩy lên Redis
+            if (reconcilers.containsKey(scope)) {
+                pendingRejects.increment();
+            }
+            localRejects.increment();
+        }
+    }
+
+    private record State(double tokens, long timestamp) {
+    }
+
+    private record Pending(Bucket bucket, long rejects) {
+    }
+
+    public record Stats(int trackedKeys, long localRejects, long untrackedKeys) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.service.redisConfig.rate_limit;
+
+/**
+ * Kết quả 1 lần xin quota từ rate limiter.
+ *
+ * @param allowed           request được phép đi tiếp hay không
+ * @param limit             quota tối đa của bucket / window
+ * @param remaining         quota còn lại sau request này
+ * @param retryAfterSeconds chờ bao lâu để có quota tiếp theo (0 nếu allowed)
+ * @param resetSeconds      bao lâu nữa quota được nạp đầy lại
+ */
+public record RateLimitDecision(
+        boolean allowed,
+        long limit,
+        long remaining,
+        long retryAfterSeconds,
+        long resetSeconds
+) {
+
+    public static RateLimitDecision allow(long limit) {
+        return new RateLimitDecision(true, limit, limit, 0, 0);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.service.redisConfig.rate_limit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rate limiter tổng quát (token bucket / sliding window) chạy bằng Lua script:
+ * mỗi request = đúng 1 round trip, atomic trên toàn cluster.
+ */
+@Service
+@RequiredArgsConstructor
+@SuppressWarnings("rawtypes")
+public class RedisRateLimiter {
+
+    private static final String PREFIX = "ratelimit:";
+
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/token_bucket.lua"), List.class);
+
+    private static final RedisScript<List> SLIDING_WINDOW_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/sliding_window.lua"), List.class);
+
+    private final StringRedisTemplate redis;
+
+    public enum Algorithm {
+        TOKEN_BUCKET,
+        SLIDING_WINDOW
+    }
+
+    /**
+     * @param key      định danh bucket (đã gồm tên rule + identity)
+     * @param capacity TOKEN_BUCKET: dung lượng bucket; SLIDING_WINDOW: số request tối đa trong window
+     * @param window   TOKEN_BUCKET: thời gian nạp đầy bucket; SLIDING_WINDOW: độ dài window
+     */
+    public RateLimitDecision tryAcquire(String key, Algorithm algorithm, long capacity, Duration window) {
+        List result = switch (algorithm) {
+            case TOKEN_BUCKET -> redis.execute(
+                    TOKEN_BUCKET_SCRIPT,
+                    List.of(PREFIX + "tb:" + key),
+                    String.valueOf(capacity),
+                    String.valueOf(window.toMillis())
+            );
+            case SLIDING_WINDOW -> redis.execute(
+                    SLIDING_WINDOW_SCRIPT,
+                    List.of(PREFIX + "sw:" + key),
+                    String.valueOf(capacity),
+                    String.valueOf(window.toMillis()),
+                    UUID.randomUUID().toString()
+            );
+        };
+
+        if (result == null || result.size() < 4) {
+            return RateLimitDecision.allow(capacity);
+        }
+
+        return new RateLimitDecision(
+                ((Number) result.get(0)).longValue() == 1,
+                capacity,
+                Math.max(0, ((Number) result.get(1)).longValue()),
+                ceilSeconds(((Number) result.get(2)).longValue()),
+                ceilSeconds(((Number) result.get(3)).longValue())
+        );
+    }
+
+    private static long ceilSeconds(long millis) {
+        return (millis + 999) / 1000;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demo.service.redisConfig.revocation;
+
+import com.example.demo.service.redisConfig.token.RefreshTokenService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thu hồi token theo user: "mọi token phát hành trước thời điểm T đều không hợp lệ".
+ *
+ * - Redis: 1 key / user "revoke:epoch:{userId}" = epoch (giây), TTL = access token TTL
+ *   (sau khoảng đó mọi token cũ đã tự hết hạn) → O(1) cho logout all / đổi mật khẩu
+ * - Logout 1 phiên vẫn dùng blacklist theo jti (AccessTokenBlacklistService)
+ * - Local: map userId → epoch, filter chỉ đọc map này
+ * - Đồng bộ giữa các node bằng keyspace notification của Redis (set / expired / del)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService implements MessageListener {
+
+    private static final String PREFIX = "revoke:epoch:";
+    private static final String KEYSPACE_PATTERN = "__keyspace@*__:" + PREFIX + "*";
+
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final RefreshTokenService refreshTokens;
+
+    @Value("${jwt.access-token-expiration}")
+    private long accessTokenExpirationMillis;
+
+    @Value("${app.revocation.configure-keyspace-events:true}")
+    private boolean configureKeyspaceEvents;
+
+    // userId → epoch (epoch seconds)
+    private final Map<String, Long> epochs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this, new PatternTopic(KEYSPACE_PATTERN));
+    }
+
+    /**
+     * Thu hồi toàn bộ token của user đã phát hành tới thời điểm hiện tại (access + refresh).
+     * Dùng chung cho logout all devices / đổi mật khẩu / reset mật khẩu.
+     */
+    public void revokeAll(String userId) {
+        if (userId == null) {
+            return;
+        }
+
+        long epoch = Instant.now().getEpochSecond();
+
+        redis.opsForValue().set(
+                PREFIX + userId,
+                String.valueOf(epoch),
+                Duration.ofMillis(accessTokenExpirationMillis)
+        );
+        epochs.merge(userId, epoch, Math::max);
+        refreshTokens.delete(userId);
+    }
+
+    /**
+     * JWT chỉ lưu iat theo giây → so sánh chặt: token phát hành trong cùng giây với lần thu hồi vẫn hợp lệ.
+     * Reset mật khẩu xong client đăng nhập lại ngay (cùng giây) → token mới không bị chặn;
+     * đổi lại token cũ phát hành trong phần giây trước lần thu hồi còn dùng được (≤ 1s).
+     */
+    public boolean isRevoked(String userId, Instant issuedAt) {
+        if (userId == null || issuedAt == null) {
+            return false;
+        }
+        Long epoch = epochs.get(userId);
+        return epoch != null && issuedAt.getEpochSecond() < epoch;
+    }
+
+    // =========================
+    // 📡 KEYSPACE EVENTS
+    // =========================
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String event = new String(message.getBody(), StandardCharsets.UTF_8);
+
+        int idx = channel.indexOf(PREFIX);
+        if (idx < 0) {
+            return;
+        }
+        String userId = channel.substring(idx + PREFIX.length());
+
+        switch (event) {
+            case "set" -> reload(userId);
+            case "expired", "del" -> epochs.remove(userId);
+            default -> { /* expire, ... → bỏ qua */ }
+        }
+    }
+
+    private void reload(String userId) {
+        String value = redis.opsForValue().get(PREFIX + userId);
+        if (value == null) {
+            epochs.remove(userId);
+            return;
+        }
+        epochs.merge(userId, Long.parseLong(value), Math::max);
+    }
+
+    // =========================
+    // 🔄 RESYNC
+    // =========================
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (configureKeyspaceEvents) {
+            enableKeyspaceEvents();
+        }
+        resync();
+    }
+
+    /**
+     * Bật notify-keyspace-events cho string + generic + expired.
+     * Redis managed thường chặn CONFIG → cấu hình phía server (xem docker-compose.yml).
+     */
+    private void enableKeyspaceEvents() {
+        try {
+            redis.execute((RedisCallback<Void>) connection -> {
+                connection.serverCommands().setConfig("notify-keyspace-events", "K$gx");
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("[REVOCATION] Cannot enable keyspace events ({}), relying on periodic resync",
+                    e.getMessage());
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.revocation.resync-interval-ms:60000}",
+            fixedDelayString = "${app.revocation.resync-interval-ms:60000}"
+    )
+    public void resync() {
+        Map<String, Long> fresh = new HashMap<>();
+
+        try (Cursor<String> keys = redis.scan(
+                ScanOptions.scanOptions().match(PREFIX + "*").count(500).build())) {
+
+            while (keys.hasNext()) {
+                String key = keys.next();
+                String value = redis.opsForValue().get(key);
+                if (value != null) {
+                    fresh.put(key.substring(PREFIX.length()), Long.parseLong(value));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("[REVOCATION] Resync from Redis failed: {}", e.getMessage());
+            return;
+        }
+
+        fresh.forEach((userId, epoch) -> epochs.merge(userId, epoch, Math::max));
+
+        // Epoch cũ hơn access token TTL không còn chặn được token nào → bỏ
+        long staleBefore = Instant.now().minusMillis(accessTokenExpirationMillis).getEpochSecond();
+        epochs.values().removeIf(epoch -> epoch < staleBefore);
+        log.debug("[REVOCATION] Resynced {} user epochs", epochs.size());
+    }
+}
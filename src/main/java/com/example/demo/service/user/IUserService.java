@@ -4,10 +4,13 @@ import com.example.demo.domain.dto.req.ChangePasswordReq;
 import com.example.demo.domain.dto.req.CreateUserReq;
 import com.example.demo.domain.dto.req.UpdateUserReq;
 import com.example.demo.domain.dto.res.UserResponse;
+import com.example.demo.domain.entities.UserCredential;
 import com.example.demo.domain.entities.UserEntity;
+import com.example.demo.share.cache.LocalTtlCache;
+import com.example.demo.share.pagination.CursorPageResponse;
 
-import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface IUserService {
 
@@ -23,19 +26,30 @@ public interface IUserService {
     // =========================
     // 📄 READ
     // =========================
-    List<UserResponse> getAllUsers();
+    // Keyset pagination theo _id, cursor = token mờ từ trang trước
+    CursorPageResponse<UserResponse> getUsers(String cursor, int limit);
+
+    // Export toàn bộ user, từng dòng một (không giữ cả danh sách trong RAM)
+    void exportUsers(Consumer<UserResponse> consumer);
 
     Optional<UserEntity> getByEmail(String email);
 
+    // Login: chỉ id, hash, role, emailVerified + field của response
+    Optional<UserCredential> getCredentialByEmail(String email);
+
+    // Profile từ near-cache (không kèm hash mật khẩu)
     Optional<UserEntity> getUserById(String userId);
 
+    // Hit / miss / eviction của near-cache profile
+    LocalTtlCache.Stats cacheStats();
+
     // =========================
     // ✏️ UPDATE
     // =========================
     UserResponse updateUser(String userId, UpdateUserReq req);
 
     // Verify user's email (emailVerified = true)
-    UserResponse verifyEmail(String userId);
+    void verifyEmail(String userId);
 
     // =========================
     // 🧱 LOW-LEVEL (🆕)
@@ -44,4 +58,10 @@ public interface IUserService {
 
     // Change user's password
     void changePassword(String userId, ChangePasswordReq req);
+
+    // Đổi hash mật khẩu nếu hash hiện tại vẫn là expectedHash
+    boolean updatePassword(String userId, String expectedHash, String newHash);
+
+    // Rehash sau login (cost BCrypt thay đổi) – chỉ ghi nếu hash chưa bị đổi
+    boolean replacePasswordHash(String userId, String expectedHash, String newHash);
 }
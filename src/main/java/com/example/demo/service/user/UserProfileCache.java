@@ -0,0 +1,64 @@
+package com.example.demo.service.user;
+
+import com.example.demo.domain.entities.UserEntity;
+import com.example.demo.service.redisConfig.cache.CacheInvalidationBus;
+import com.example.demo.share.cache.LocalTtlCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Near-cache hồ sơ user theo userId (refresh token, endpoint cần role / profile).
+ *
+ * - Không giữ hash mật khẩu; trả bản copy để caller sửa không ảnh hưởng cache
+ * - Mọi thay đổi user đi qua {@link UserServiceImpl} → {@link #evict(String)},
+ *   node khác xoá theo {@link CacheInvalidationBus}
+ */
+@Component
+public class UserProfileCache {
+
+    private static final String NAME = "user-profile";
+
+    private final CacheInvalidationBus invalidationBus;
+    private final LocalTtlCache<String, Optional<UserEntity>> cache;
+
+    public UserProfileCache(
+            CacheInvalidationBus invalidationBus,
+            @Value("${app.user.profile-cache.max-size:50000}") int maxSize,
+            @Value("${app.user.profile-cache.ttl-seconds:300}") long ttlSeconds
+    ) {
+        this.invalidationBus = invalidationBus;
+        this.cache = new LocalTtlCache<>(NAME, maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    @PostConstruct
+    void subscribe() {
+        invalidationBus.register(NAME, cache::invalidate);
+    }
+
+    public Optional<UserEntity> get(String userId, Supplier<Optional<UserEntity>> loader) {
+        return cache.get(userId, id -> loader.get().map(UserProfileCache::withoutPassword))
+                .map(UserProfileCache::copy);
+    }
+
+    public void evict(String userId) {
+        cache.invalidate(userId);
+        invalidationBus.publish(NAME, userId);
+    }
+
+    public LocalTtlCache.Stats stats() {
+        return cache.stats();
+    }
+
+    private static UserEntity withoutPassword(UserEntity user) {
+        return user.toBuilder().password(null).build();
+    }
+
+    private static UserEntity copy(UserEntity user) {
+        return user.toBuilder().build();
+    }
+}
@@ -5,14 +5,23 @@ import com.example.demo.domain.dto.req.ChangePasswordReq;
 import com.example.demo.domain.dto.req.CreateUserReq;
 import com.example.demo.domain.dto.req.UpdateUserReq;
 import com.example.demo.domain.dto.res.UserResponse;
+import com.example.demo.domain.entities.UserCredential;
 import com.example.demo.domain.entities.UserEntity;
 import com.example.demo.domain.enums.Role;
 import com.example.demo.exception.BusinessException;
+import com.example.demo.exception.CommonError;
 import com.example.demo.exception.user.UserError;
 import com.example.demo.infrastructure.user.mapper.UserResponseMapper;
+import com.example.demo.service.passwordService.PasswordHashingService;
+import com.example.demo.service.redisConfig.RedisFacade;
+import com.example.demo.service.user.repository.DuplicateUserFieldException;
 import com.example.demo.service.user.repository.IUserRepository;
+import com.example.demo.share.cache.LocalTtlCache;
+import com.example.demo.share.pagination.CursorCodec;
+import com.example.demo.share.pagination.CursorPageResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
@@ -20,13 +29,18 @@ import java.time.Year;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements IUserService {
 
     private final IUserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashing;
+    private final RedisFacade redis;
+    private final UserProfileCache profileCache;
+
+    private static final int MAX_PAGE_SIZE = 200;
 
 
     @Override
@@ -37,23 +51,6 @@ public class UserServiceImpl implements IUserService {
             throw new BusinessException(UserError.USERNAME_INVALID);
         }
 
-        Optional<UserEntity> existingByEmail = userRepository.findByEmail(req.getEmail());
-        if (existingByEmail.isPresent()) {
-            UserEntity existingUser = existingByEmail.get();
-
-            // ✅ Đã verify → chặn
-            if (existingUser.isEmailVerified()) {
-                throw new BusinessException(UserError.EMAIL_EXISTS);
-            }
-
-            // ⚠️ Chưa verify → để AuthService xử lý resend
-            throw new BusinessException(UserError.EMAIL_NOT_VERIFIED);
-        }
-
-        if (userRepository.existsByUsername(normalizedUsername)) {
-            throw new BusinessException(UserError.USERNAME_EXISTS);
-        }
-
         int age = Year.now().getValue() - req.getYear();
         if (age < 18) {
             throw new BusinessException(UserError.UNDER_AGE);
@@ -62,7 +59,7 @@ public class UserServiceImpl implements IUserService {
         UserEntity user = UserEntity.builder()
                 .username(normalizedUsername)
                 .email(req.getEmail())
-                .password(passwordEncoder.encode(req.getPassword()))
+                .password(passwordHashing.encode(req.getPassword()))
                 .year(req.getYear())
                 .role(Role.USER)
                 .emailVerified(false)
@@ -70,16 +67,56 @@ public class UserServiceImpl implements IUserService {
                 .updatedAt(Instant.now())
                 .build();
 
-        return UserResponseMapper.toResponse(userRepository.save(user));
+        // Insert trước, unique index quyết định trùng (1 round trip, không race)
+        try {
+            return UserResponseMapper.toResponse(userRepository.insert(user));
+        } catch (DuplicateUserFieldException e) {
+            throw duplicateOnRegister(e, req.getEmail());
+        }
     }
 
+    private BusinessException duplicateOnRegister(DuplicateUserFieldException e, String email) {
+        if (e.getField() == DuplicateUserFieldException.Field.USERNAME) {
+            return new BusinessException(UserError.USERNAME_EXISTS);
+        }
+
+        // Trùng email → chỉ lúc này mới đọc lại để phân biệt đã verify hay chưa
+        boolean verified = userRepository.findByEmail(email)
+                .map(UserEntity::isEmailVerified)
+                .orElse(false);
+
+        // ✅ Đã verify → chặn
+        // ⚠️ Chưa verify → để AuthService xử lý resend
+        return new BusinessException(verified ? UserError.EMAIL_EXISTS : UserError.EMAIL_NOT_VERIFIED);
+    }
+
+
+    @Override
+    public CursorPageResponse<UserResponse> getUsers(String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        String[] decoded = CursorCodec.decode(cursor, 1);
+        String afterId = decoded == null ? null : decoded[0];
+        if (afterId != null && !ObjectId.isValid(afterId)) {
+            throw new BusinessException(CommonError.INVALID_REQUEST, "Cursor không hợp lệ");
+        }
+
+        // Lấy dư 1 phần tử để biết còn trang sau hay không
+        List<UserEntity> rows = userRepository.findPageAfter(afterId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<UserEntity> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        return CursorPageResponse.<UserResponse>builder()
+                .items(page.stream().map(UserResponseMapper::toResponse).toList())
+                .limit(pageSize)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? CursorCodec.encode(page.get(page.size() - 1).getId()) : null)
+                .build();
+    }
 
     @Override
-    public List<UserResponse> getAllUsers() {
-        return userRepository.findAll()
-                .stream()
-                .map(UserResponseMapper::toResponse)
-                .toList();
+    public void exportUsers(Consumer<UserResponse> consumer) {
+        userRepository.forEach(user -> consumer.accept(UserResponseMapper.toResponse(user)));
     }
 
     @Override
@@ -87,63 +124,70 @@ public class UserServiceImpl implements IUserService {
         return userRepository.findByEmail(email);
     }
 
+    @Override
+    public Optional<UserCredential> getCredentialByEmail(String email) {
+        return userRepository.findCredentialByEmail(email);
+    }
+
     @Override
     public Optional<UserEntity> getUserById(String userId) {
-        return userRepository.findById(userId);
+        // Profile (không kèm hash mật khẩu), đa số lần gọi không chạm Mongo
+        return profileCache.get(userId, () -> userRepository.findById(userId));
     }
 
     @Override
-    public UserResponse updateUser(String userId, UpdateUserReq req) {
+    public LocalTtlCache.Stats cacheStats() {
+        return profileCache.stats();
+    }
 
-        // 1️⃣ Fetch existing user
-        UserEntity existing = userRepository.findById(userId)
-                .orElseThrow(() -> new BusinessException(UserError.USER_NOT_FOUND));
+    @Override
+    public UserResponse updateUser(String userId, UpdateUserReq req) {
 
-        // 2️⃣ Update username if provided
+        // 1️⃣ Username (normalized, unique index quyết định trùng)
+        String normalizedUsername = null;
         if (req.getUsername() != null) {
-            String normalizedUsername = normalizeUsername(req.getUsername());
-
-            if (normalizedUsername != null && !normalizedUsername.isBlank()) {
-                // If username changed, ensure uniqueness (DÙNG normalized)
-                if (!normalizedUsername.equals(existing.getUsername())
-                        && userRepository.existsByUsername(normalizedUsername)) {
-                    throw new BusinessException(UserError.USERNAME_EXISTS);
-                }
-                existing.setUsername(normalizedUsername);
+            String normalized = normalizeUsername(req.getUsername());
+            if (normalized != null && !normalized.isBlank()) {
+                normalizedUsername = normalized;
             }
         }
 
-        // 3️⃣ Update year if provided
+        // 2️⃣ Year
         if (req.getYear() != null) {
             int age = Year.now().getValue() - req.getYear();
             if (age < 18) {
                 throw new BusinessException(UserError.UNDER_AGE);
             }
-            existing.setYear(req.getYear());
         }
 
-        // 4️⃣ Persist
-        UserEntity saved = userRepository.save(existing);
+        // 3️⃣ $set 1 round trip, trả document mới
+        try {
+            UserEntity updated = userRepository
+                    .updateProfile(userId, normalizedUsername, req.getYear(), req.getVersion())
+                    .orElseThrow(() -> new BusinessException(UserError.USER_NOT_FOUND));
+            profileCache.evict(userId);
 
-        // 5️⃣ Map to response
-        return UserResponseMapper.toResponse(saved);
+            return UserResponseMapper.toResponse(updated);
+        } catch (DuplicateUserFieldException e) {
+            throw new BusinessException(UserError.USERNAME_EXISTS);
+        } catch (OptimisticLockingFailureException e) {
+            throw new BusinessException(CommonError.CONFLICT);
+        }
     }
 
     @Override
-    public UserResponse verifyEmail(String userId) {
-        UserEntity existing = userRepository.findById(userId)
-                .orElseThrow(() -> new BusinessException(UserError.USER_NOT_FOUND));
-
-        if (!existing.isEmailVerified()) {
-            existing.setEmailVerified(true);
-            existing = userRepository.save(existing);
+    public void verifyEmail(String userId) {
+        // 1 updateOne có điều kiện emailVerified = false (đã verify → no-op)
+        if (userRepository.markEmailVerified(userId)) {
+            profileCache.evict(userId);
         }
-
-        return UserResponseMapper.toResponse(existing);
     }
+
     @Override
     public UserEntity save(UserEntity user) {
-        return userRepository.save(user);
+        UserEntity saved = userRepository.save(user);
+        profileCache.evict(saved.getId());
+        return saved;
     }
 
     @Override
@@ -153,21 +197,38 @@ public class UserServiceImpl implements IUserService {
                 .orElseThrow(() -> new BusinessException(UserError.USER_NOT_FOUND));
 
         // 2️⃣ Verify current password
-        if (!passwordEncoder.matches(req.getCurrentPassword(), user.getPassword())) {
+        if (!passwordHashing.matches(req.getCurrentPassword(), user.getPassword())) {
             throw new BusinessException(UserError.CURRENT_PASSWORD_INCORRECT);
         }
 
         // 3️⃣ Check if new password is same as current password
-        if (passwordEncoder.matches(req.getNewPassword(), user.getPassword())) {
+        if (passwordHashing.matches(req.getNewPassword(), user.getPassword())) {
             throw new BusinessException(UserError.PASSWORD_SAME_AS_CURRENT);
         }
 
-        // 4️⃣ Update password
-        user.setPassword(passwordEncoder.encode(req.getNewPassword()));
-        user.setUpdatedAt(Instant.now());
+        // 4️⃣ Update password ($set có điều kiện: hash chưa bị request khác đổi)
+        String newHash = passwordHashing.encode(req.getNewPassword());
+        if (!userRepository.updatePassword(userId, user.getPassword(), newHash)) {
+            throw new BusinessException(CommonError.CONFLICT);
+        }
+        profileCache.evict(userId);
+
+        // 6️⃣ Thu hồi mọi phiên đăng nhập cũ (O(1) / user)
+        redis.tokenRevocation.revokeAll(userId);
+    }
 
-        // 5️⃣ Save
-        userRepository.save(user);
+    @Override
+    public boolean updatePassword(String userId, String expectedHash, String newHash) {
+        boolean updated = userRepository.updatePassword(userId, expectedHash, newHash);
+        if (updated) {
+            profileCache.evict(userId);
+        }
+        return updated;
+    }
+
+    @Override
+    public boolean replacePasswordHash(String userId, String expectedHash, String newHash) {
+        return userRepository.replacePasswordHash(userId, expectedHash, newHash);
     }
 
     /**
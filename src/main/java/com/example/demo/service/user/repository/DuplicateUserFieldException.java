@@ -0,0 +1,20 @@
+package com.example.demo.service.user.repository;
+
+import lombok.Getter;
+
+/**
+ * Ghi user vi phạm unique index (email / username).
+ * Repository dịch lỗi của Mongo về exception này để service không phụ thuộc tên index.
+ */
+@Getter
+public class DuplicateUserFieldException extends RuntimeException {
+
+    public enum Field { EMAIL, USERNAME }
+
+    private final Field field;
+
+    public DuplicateUserFieldException(Field field, Throwable cause) {
+        super("Duplicate user " + field.name().toLowerCase(), cause);
+        this.field = field;
+    }
+}
@@ -1,17 +1,35 @@
 package com.example.demo.service.user.repository;
 
 import com.example.demo.domain.dto.req.CreateUserReq;
+import com.example.demo.domain.entities.UserCredential;
 import com.example.demo.domain.entities.UserEntity;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface IUserRepository {
 
+    /**
+     * @throws DuplicateUserFieldException email / username đã tồn tại
+     */
     UserEntity save(UserEntity req);
 
+    /**
+     * Insert user mới (1 round trip, dựa vào unique index).
+     *
+     * @throws DuplicateUserFieldException email / username đã tồn tại
+     */
+    UserEntity insert(UserEntity user);
+
     List<UserEntity> findAll();
 
+    // Keyset: _id > afterId, sort _id tăng dần (afterId null = trang đầu), không kèm password
+    List<UserEntity> findPageAfter(String afterId, int limit);
+
+    // Duyệt toàn bộ user qua cursor Mongo (bộ nhớ cố định), không kèm password
+    void forEach(Consumer<UserEntity> consumer);
+
 
     boolean existsByEmail(String email);
 
@@ -20,6 +38,31 @@ public interface IUserRepository {
     // 👉 THÊM DÒNG NÀY
     Optional<UserEntity> findByEmail(String email);
 
+    // Projection cho login (không load cả document)
+    Optional<UserCredential> findCredentialByEmail(String email);
+
     // Find by id (needed for update)
     Optional<UserEntity> findById(String id);
+
+    // Đổi hash chỉ khi hash hiện tại vẫn là expectedHash (không ghi đè mật khẩu vừa đổi)
+    boolean replacePasswordHash(String id, String expectedHash, String newHash);
+
+    // =========================
+    // ✏️ ATOMIC UPDATE ($set, 1 round trip)
+    // =========================
+
+    /**
+     * $set username / year (null = giữ nguyên), trả document mới.
+     * Optional.empty() nếu không tồn tại.
+     *
+     * @throws org.springframework.dao.OptimisticLockingFailureException expectedVersion lệch với DB
+     * @throws DuplicateUserFieldException username đã tồn tại
+     */
+    Optional<UserEntity> updateProfile(String id, String username, Integer year, Long expectedVersion);
+
+    // emailVerified false → true; false nếu đã verify / không tồn tại
+    boolean markEmailVerified(String id);
+
+    // Đổi mật khẩu (cập nhật updatedAt), chỉ khi hash hiện tại vẫn là expectedHash
+    boolean updatePassword(String id, String expectedHash, String newHash);
 }
@@ -0,0 +1,208 @@
+package com.example.demo.share.cache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Cache in-process có giới hạn, TTL theo từng entry.
+ *
+ * - Single-flight: nhiều thread cùng miss 1 key → chỉ 1 thread gọi loader, các thread khác chờ kết quả
+ * - TTL có jitter ±10% → các key nạp cùng lúc không hết hạn cùng lúc
+ * - Invalidate trong lúc đang load → kết quả của lần load đó không được ghi vào cache
+ * - Đầy → xoá entry hết hạn trước, vẫn đầy thì bỏ bớt ~10% entry bất kỳ
+ *
+ * @param <K> key
+ * @param <V> value (null = không cache)
+ */
+@Slf4j
+public class LocalTtlCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final Duration ttl;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LocalTtlCache(String name, int maxSize, Duration ttl) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        if (maxSize <= 0) {
+            return loader.apply(key);
+        }
+
+        long now = System.currentTimeMillis();
+        Entry<V> cached = entries.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                hits.increment();
+                return cached.value();
+            }
+            if (entries.remove(key, cached)) {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return join(running);
+        }
+
+        long start = System.nanoTime();
+        try {
+            V value = loader.apply(key);
+            loads.increment();
+            loadNanos.add(System.nanoTime() - start);
+
+            // inFlight vẫn là của mình → chưa bị invalidate trong lúc load
+            if (inFlight.remove(key, mine) && value != null) {
+                put(key, value);
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public V getIfPresent(K key) {
+        Entry<V> cached = entries.get(key);
+        if (cached == null || cached.expiresAt() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return cached.value();
+    }
+
+    public void put(K key, V value) {
+        if (maxSize <= 0 || value == null) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            makeRoom();
+        }
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + jitteredTtlMillis()));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+        inFlight.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+        inFlight.clear();
+    }
+
+    public Stats stats() {
+        long loadCount = loads.sum();
+        return new Stats(
+                name,
+                hits.sum(),
+                misses.sum(),
+                loadCount,
+                loadCount == 0 ? 0 : loadNanos.sum() / loadCount / 1_000,
+                evictions.sum(),
+                entries.size()
+        );
+    }
+
+    // =========================
+    // 🧹 BOUNDING
+    // =========================
+    private long jitteredTtlMillis() {
+        long base = ttl.toMillis();
+        long jitter = base / 10;
+        return jitter == 0 ? base : base - jitter + ThreadLocalRandom.current().nextLong(2 * jitter + 1);
+    }
+
+    /**
+     * Chỉ 1 thread dọn tại một thời điểm, các thread khác ghi tiếp (vượt max tạm thời không đáng kể).
+     */
+    private void makeRoom() {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            entries.entrySet().removeIf(e -> {
+                boolean expired = e.getValue().expiresAt() <= now;
+                if (expired) evictions.increment();
+                return expired;
+            });
+
+            int toEvict = entries.size() - maxSize + Math.max(1, maxSize / 10);
+            Iterator<K> it = entries.keySet().iterator();
+            while (toEvict > 0 && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+                toEvict--;
+            }
+
+            log.debug("[CACHE:{}] sweep done, size={}", name, entries.size());
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    /**
+     * @param avgLoadMicros thời gian load trung bình (miss → loader)
+     */
+    public record Stats(
+            String name,
+            long hits,
+            long misses,
+            long loads,
+            long avgLoadMicros,
+            long evictions,
+            int size
+    ) {
+
+        @JsonProperty("hitRatio")
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+}
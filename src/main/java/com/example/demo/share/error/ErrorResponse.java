@@ -44,6 +44,7 @@ public final class ErrorResponse extends BaseResponse {
             case 422 -> "Validation Error";
             case 429 -> "Too Many Requests";
             case 500 -> "Internal Server Error";
+            case 503 -> "Service Unavailable";
             default -> "Error";
         };
     }
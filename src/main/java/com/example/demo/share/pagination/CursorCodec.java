@@ -0,0 +1,58 @@
+package com.example.demo.share.pagination;
+
+import com.example.demo.exception.BusinessException;
+import com.example.demo.exception.CommonError;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Continuation token cho keyset pagination.
+ *
+ * Token = base64url("v1|part1|part2...") → client coi như chuỗi mờ, không tự ghép.
+ */
+public final class CursorCodec {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "\u001F"; // không xuất hiện trong id / tên
+
+    private CursorCodec() {
+    }
+
+    public static String encode(String... parts) {
+        String raw = VERSION + SEPARATOR + String.join(SEPARATOR, parts);
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null nếu token rỗng (trang đầu)
+     * @throws BusinessException token sai định dạng
+     */
+    public static String[] decode(String token, int expectedParts) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+
+        String[] parts = raw.split(SEPARATOR, -1);
+        if (parts.length != expectedParts + 1 || !VERSION.equals(parts[0])) {
+            throw invalid();
+        }
+
+        String[] values = new String[expectedParts];
+        System.arraycopy(parts, 1, values, 0, expectedParts);
+        return values;
+    }
+
+    private static BusinessException invalid() {
+        return new BusinessException(CommonError.INVALID_REQUEST, "Cursor không hợp lệ");
+    }
+}
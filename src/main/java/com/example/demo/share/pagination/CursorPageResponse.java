@@ -0,0 +1,21 @@
+package com.example.demo.share.pagination;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 1 trang keyset pagination.
+ *
+ * @param <T> kiểu phần tử
+ */
+@Getter
+@Builder
+public class CursorPageResponse<T> {
+    private List<T> items;
+    private int limit;
+    private boolean hasMore;
+    // Truyền lại qua ?cursor= để lấy trang sau (null = hết)
+    private String nextCursor;
+}
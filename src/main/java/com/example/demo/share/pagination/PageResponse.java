@@ -0,0 +1,23 @@
+package com.example.demo.share.pagination;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 1 trang page / size.
+ *
+ * @param <T> kiểu phần tử
+ */
+@Getter
+@Builder
+public class PageResponse<T> {
+    private List<T> items;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+    // true = total lấy từ cache / ước lượng, có thể lệch vài phần tử
+    private boolean totalEstimated;
+}
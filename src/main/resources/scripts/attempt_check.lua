@@ -0,0 +1,14 @@
+-- Kiểm tra trạng thái rate limit trong 1 round trip
+-- KEYS[1] = block key, KEYS[2] = attempt key
+-- ARGV[1] = max attempts
+-- Trả về {blocked (0|1), remaining attempts, retry-after (giây)}
+
+local max = tonumber(ARGV[1])
+
+local blockTtl = redis.call('TTL', KEYS[1])
+if blockTtl > 0 then
+    return {1, 0, blockTtl}
+end
+
+local attempts = tonumber(redis.call('GET', KEYS[2]) or '0')
+return {0, math.max(0, max - attempts), 0}
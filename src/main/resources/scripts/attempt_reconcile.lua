@@ -0,0 +1,35 @@
+-- Reconcile nhiều identifier của tầng local trong 1 round trip
+-- KEYS[2i-1] = block key, KEYS[2i] = attempt key của identifier thứ i
+-- ARGV[1] = max attempts, ARGV[2] = attempt window (giây), ARGV[3] = block duration (giây)
+-- ARGV[3 + i] = số lần bị chặn local của identifier thứ i (0 = chỉ đọc trạng thái khoá)
+-- Trả về {retry-after (giây) của từng identifier}, 0 = không bị khoá
+
+local max = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local blockSeconds = tonumber(ARGV[3])
+
+local result = {}
+for i = 1, #KEYS / 2 do
+    local blockKey = KEYS[2 * i - 1]
+    local attemptKey = KEYS[2 * i]
+    local increment = tonumber(ARGV[3 + i])
+    local retryAfter = 0
+
+    local blockTtl = redis.call('TTL', blockKey)
+    if blockTtl > 0 then
+        retryAfter = blockTtl
+    elseif increment > 0 then
+        local attempts = redis.call('INCRBY', attemptKey, increment)
+        if redis.call('TTL', attemptKey) < 0 then
+            redis.call('EXPIRE', attemptKey, window)
+        end
+        if attempts >= max then
+            redis.call('SET', blockKey, 'blocked', 'EX', blockSeconds)
+            redis.call('DEL', attemptKey)
+            retryAfter = blockSeconds
+        end
+    end
+
+    result[i] = retryAfter
+end
+return result
@@ -0,0 +1,28 @@
+-- Ghi nhận lần thất bại: INCRBY + EXPIRE + block + DEL trong 1 lệnh atomic
+-- KEYS[1] = block key, KEYS[2] = attempt key
+-- ARGV[1] = max attempts, ARGV[2] = attempt window (giây)
+-- ARGV[3] = block duration (giây), ARGV[4] = số lần thất bại cần cộng
+-- Trả về {blocked (0|1), remaining attempts, retry-after (giây)}
+
+local max = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local blockSeconds = tonumber(ARGV[3])
+local increment = tonumber(ARGV[4])
+
+local blockTtl = redis.call('TTL', KEYS[1])
+if blockTtl > 0 then
+    return {1, 0, blockTtl}
+end
+
+local attempts = redis.call('INCRBY', KEYS[2], increment)
+if redis.call('TTL', KEYS[2]) < 0 then
+    redis.call('EXPIRE', KEYS[2], window)
+end
+
+if attempts >= max then
+    redis.call('SET', KEYS[1], 'blocked', 'EX', blockSeconds)
+    redis.call('DEL', KEYS[2])
+    return {1, 0, blockSeconds}
+end
+
+return {0, max - attempts, 0}
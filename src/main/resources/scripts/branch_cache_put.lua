@@ -0,0 +1,20 @@
+-- Ghi bù L2 cache branch sau khi đọc Mongo, không ghi đè bằng bản cũ hơn
+-- KEYS[1] = cache key
+-- ARGV[1] = JSON branch, ARGV[2] = version của bản vừa đọc, ARGV[3] = TTL (giây)
+-- Key đang là tombstone "~{version}" (ghi bởi update / delete) → chỉ ghi khi bản đọc được không cũ hơn
+-- Trả về 1 nếu đã ghi, 0 nếu bỏ qua
+
+local current = redis.call('GET', KEYS[1])
+if current then
+    if string.sub(current, 1, 1) ~= '~' then
+        -- Node khác đã nạp giá trị → giữ nguyên
+        return 0
+    end
+    local floor = tonumber(string.sub(current, 2))
+    if floor == nil or tonumber(ARGV[2]) < floor then
+        return 0
+    end
+end
+
+redis.call('SET', KEYS[1], ARGV[1], 'EX', tonumber(ARGV[3]))
+return 1
@@ -0,0 +1,34 @@
+-- Sliding window log: tối đa `limit` request trong `window` ms gần nhất
+-- KEYS[1] = window key (zset, score = thời điểm request)
+-- ARGV[1] = limit, ARGV[2] = window (ms), ARGV[3] = id duy nhất của request
+-- Trả về {allowed (0|1), remaining, retry-after (ms), reset (ms)}
+
+local limit = tonumber(ARGV[1])
+local windowMs = tonumber(ARGV[2])
+
+local t = redis.call('TIME')
+local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - windowMs)
+local count = redis.call('ZCARD', KEYS[1])
+
+local allowed = 0
+if count < limit then
+    redis.call('ZADD', KEYS[1], now, now .. '-' .. ARGV[3])
+    count = count + 1
+    allowed = 1
+end
+redis.call('PEXPIRE', KEYS[1], windowMs)
+
+local resetMs = 0
+local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+if oldest[2] then
+    resetMs = math.max(0, tonumber(oldest[2]) + windowMs - now)
+end
+
+local retryMs = 0
+if allowed == 0 then
+    retryMs = resetMs
+end
+
+return {allowed, limit - count, retryMs, resetMs}
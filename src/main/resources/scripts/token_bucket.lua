@@ -0,0 +1,34 @@
+-- Token bucket: nạp đầy `capacity` token trong `window` ms, mỗi request lấy 1 token
+-- KEYS[1] = bucket key (hash: tokens, ts)
+-- ARGV[1] = capacity, ARGV[2] = window (ms)
+-- Trả về {allowed (0|1), remaining, retry-after (ms), reset (ms)}
+
+local capacity = tonumber(ARGV[1])
+local windowMs = tonumber(ARGV[2])
+
+local t = redis.call('TIME')
+local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+local rate = capacity / windowMs
+
+local data = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(data[1]) or capacity
+local ts = tonumber(data[2]) or now
+
+tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)
+
+local allowed = 0
+if tokens >= 1 then
+    tokens = tokens - 1
+    allowed = 1
+end
+
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+redis.call('PEXPIRE', KEYS[1], windowMs)
+
+local retryMs = 0
+if allowed == 0 then
+    retryMs = math.ceil((1 - tokens) / rate)
+end
+local resetMs = math.ceil((capacity - tokens) / rate)
+
+return {allowed, math.floor(tokens), retryMs, resetMs}
@@ -0,0 +1,231 @@
+package com.example.demo.config.async;
+
+import com.example.demo.config.async.BoundedEmailExecutor.OverflowStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedEmailExecutorTest {
+
+    private BoundedEmailExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    // =========================
+    // 🎟️ SLOT ACCOUNTING
+    // =========================
+    @Test
+    void runsUpToMaxConcurrent_queuesUpToMaxQueued_thenSheds() throws Exception {
+        executor = new BoundedEmailExecutor("test", 2, 3, OverflowStrategy.SHED, false);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        BoundedEmailExecutor.Stats saturated = executor.stats();
+        assertEquals(2, saturated.activeSends());
+        assertEquals(3, saturated.queueDepth());
+
+        AtomicBoolean ranOnCaller = new AtomicBoolean();
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> ranOnCaller.set(true)));
+        assertFalse(ranOnCaller.get());
+        assertEquals(1, executor.stats().rejected());
+
+        release.countDown();
+        awaitUntil(() -> executor.stats().completed() == 5);
+
+        BoundedEmailExecutor.Stats drained = executor.stats();
+        assertEquals(0, drained.activeSends());
+        assertEquals(0, drained.queueDepth());
+        assertEquals(6, drained.submitted());
+    }
+
+    @Test
+    void failingTask_releasesItsSlot() throws Exception {
+        executor = new BoundedEmailExecutor("test", 1, 0, OverflowStrategy.SHED, true);
+
+        executor.execute(() -> {
+            throw new IllegalStateException("smtp down");
+        });
+        awaitUntil(() -> executor.stats().failed() == 1 && executor.stats().activeSends() == 0);
+
+        CountDownLatch ran = new CountDownLatch(1);
+        executor.execute(ran::countDown);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void concurrentSubmitters_neverExceedMaxConcurrent() throws Exception {
+        executor = new BoundedEmailExecutor("test", 4, 1_000, OverflowStrategy.SHED, true);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        List<Thread> submitters = IntStream.range(0, 8)
+                .mapToObj(t -> Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        executor.execute(() -> {
+                            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                            sleep(1);
+                            running.decrementAndGet();
+                        });
+                    }
+                }))
+                .toList();
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+
+        awaitUntil(() -> executor.stats().completed() == 800);
+        assertTrue(peak.get() <= 4, "peak=" + peak.get());
+        assertEquals(0, executor.stats().activeSends());
+    }
+
+    // =========================
+    // 📥 QUEUE DRAIN
+    // =========================
+    @Test
+    void queuedTasks_runInSubmissionOrder_onFreedSlot() throws Exception {
+        executor = new BoundedEmailExecutor("test", 1, 10, OverflowStrategy.SHED, true);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+
+        executor.execute(() -> {
+            await(release);
+            order.add(0);
+        });
+        for (int i = 1; i <= 5; i++) {
+            int n = i;
+            executor.execute(() -> order.add(n));
+        }
+        assertEquals(5, executor.stats().queueDepth());
+
+        release.countDown();
+        awaitUntil(() -> order.size() == 6);
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), order);
+        awaitUntil(() -> executor.stats().activeSends() == 0);
+    }
+
+    // =========================
+    // 🚦 OVERFLOW
+    // =========================
+    @Test
+    void spill_handsSpillableBackWithoutRunningIt() throws Exception {
+        executor = new BoundedEmailExecutor("test", 1, 1, OverflowStrategy.SPILL, true);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        executor.execute(() -> { });
+
+        AtomicBoolean ran = new AtomicBoolean();
+        AtomicInteger spills = new AtomicInteger();
+        AtomicBoolean spilledOnCaller = new AtomicBoolean();
+        Thread caller = Thread.currentThread();
+        executor.execute(new BoundedEmailExecutor.Spillable() {
+            @Override
+            public void run() {
+                ran.set(true);
+            }
+
+            @Override
+            public void spill() {
+                spills.incrementAndGet();
+                spilledOnCaller.set(Thread.currentThread() == caller);
+            }
+        });
+
+        assertEquals(1, spills.get());
+        assertTrue(spilledOnCaller.get());
+        assertEquals(1, executor.stats().spilled());
+
+        // Task không Spillable vẫn bị reject
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+
+        release.countDown();
+        awaitUntil(() -> executor.stats().completed() == 2);
+        assertFalse(ran.get());
+        assertEquals(1, executor.stats().rejected());
+    }
+
+    @Test
+    void shed_rejectsSpillableToo() {
+        executor = new BoundedEmailExecutor("test", 1, 0, OverflowStrategy.SHED, true);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+
+        AtomicInteger spills = new AtomicInteger();
+        RejectedExecutionException e = assertThrows(RejectedExecutionException.class,
+                () -> executor.execute(new BoundedEmailExecutor.Spillable() {
+                    @Override
+                    public void run() {
+                    }
+
+                    @Override
+                    public void spill() {
+                        spills.incrementAndGet();
+                    }
+                }));
+
+        assertTrue(e.getMessage().contains("strategy=SHED"));
+        assertEquals(0, spills.get());
+        assertSame(OverflowStrategy.SHED, executor.stats().strategy());
+        release.countDown();
+    }
+
+    // =========================
+    // 🧰 HELPERS
+    // =========================
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met within 5s");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("latch timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.demo.config.mongo;
+
+import com.example.demo.domain.model.EmailOutboxDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * So index khai báo trên {@link EmailOutboxDocument} với index thực tế: thiếu, lệch
+ * (kể cả TTL và partial filter) và các mode create / validate / fail.
+ */
+class MongoIndexBootstrapTest {
+
+    private IndexOperations indexOps;
+    private List<Document> actual;
+    private MongoIndexBootstrap bootstrap;
+
+    @BeforeEach
+    void setUp() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setInitialEntitySet(Set.of(EmailOutboxDocument.class));
+        mappingContext.afterPropertiesSet();
+
+        indexOps = mock(IndexOperations.class);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.indexOps(EmailOutboxDocument.class)).thenReturn(indexOps);
+
+        actual = matchingIndexes();
+        when(indexOps.getIndexInfo()).thenAnswer(inv -> actual.stream().map(IndexInfo::indexInfoOf).toList());
+
+        bootstrap = new MongoIndexBootstrap(mongoTemplate, mappingContext);
+    }
+
+    // =========================
+    // ✅ UP TO DATE
+    // =========================
+    @Test
+    void matchingIndexes_passEvenInFailMode() {
+        mode(" Fail ");
+
+        assertDoesNotThrow(bootstrap::ensureIndexes);
+        verify(indexOps, never()).ensureIndex(any());
+    }
+
+    // =========================
+    // ❓ MISSING
+    // =========================
+    @Test
+    void missingIndex_isCreatedInCreateMode() {
+        remove(EmailOutboxDocument.UK_COALESCE_KEY);
+        mode("create");
+
+        bootstrap.ensureIndexes();
+
+        ArgumentCaptor<IndexDefinition> created = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOps).ensureIndex(created.capture());
+        assertEquals(EmailOutboxDocument.UK_COALESCE_KEY, created.getValue().getIndexOptions().getString("name"));
+    }
+
+    @Test
+    void missingIndex_failsStartupInFailMode() {
+        remove(EmailOutboxDocument.TTL_EXPIRE_AT);
+        mode("fail");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, bootstrap::ensureIndexes);
+
+        assertTrue(e.getMessage().contains("missing index email_outbox." + EmailOutboxDocument.TTL_EXPIRE_AT));
+        verify(indexOps, never()).ensureIndex(any());
+    }
+
+    @Test
+    void missingIndex_isOnlyReportedInValidateMode() {
+        remove(EmailOutboxDocument.TTL_EXPIRE_AT);
+        mode("validate");
+
+        assertDoesNotThrow(bootstrap::ensureIndexes);
+        verify(indexOps, never()).ensureIndex(any());
+    }
+
+    // =========================
+    // ⚠️ MISMATCHED
+    // =========================
+    @Test
+    void ttlDrift_isReported() {
+        index(EmailOutboxDocument.TTL_EXPIRE_AT).put("expireAfterSeconds", 3600);
+        mode("fail");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, bootstrap::ensureIndexes);
+
+        assertTrue(e.getMessage().contains("expireAfterSeconds expected=0 found=3600"), e.getMessage());
+    }
+
+    @Test
+    void missingTtlOption_isReported() {
+        index(EmailOutboxDocument.TTL_EXPIRE_AT).remove("expireAfterSeconds");
+        mode("fail");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, bootstrap::ensureIndexes);
+
+        assertTrue(e.getMessage().contains("expireAfterSeconds expected=0 found=null"), e.getMessage());
+    }
+
+    @Test
+    void partialFilterDrift_isReported() {
+        // Unique thường thay vì partial → mail đã claim (không còn coalesceKey) đụng nhau
+        index(EmailOutboxDocument.UK_COALESCE_KEY).remove("partialFilterExpression");
+        mode("fail");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, bootstrap::ensureIndexes);
+
+        assertTrue(e.getMessage().contains("mismatched index email_outbox." + EmailOutboxDocument.UK_COALESCE_KEY), e.getMessage());
+        assertTrue(e.getMessage().contains("partialFilterExpression"), e.getMessage());
+    }
+
+    @Test
+    void keyAndUniqueDrift_isReported_butNeverDroppedInCreateMode() {
+        index(EmailOutboxDocument.IDX_STATUS_NEXT_ATTEMPT).put("key", new Document("status", 1).append("nextAttemptAt", -1));
+        index(EmailOutboxDocument.UK_COALESCE_KEY).put("unique", false);
+        mode("create");
+
+        assertDoesNotThrow(bootstrap::ensureIndexes);
+        verify(indexOps, never()).ensureIndex(any());
+        verify(indexOps, never()).dropIndex(any());
+
+        mode("fail");
+        IllegalStateException e = assertThrows(IllegalStateException.class, bootstrap::ensureIndexes);
+        assertTrue(e.getMessage().contains("keys expected="), e.getMessage());
+        assertTrue(e.getMessage().contains("unique expected=true found=false"), e.getMessage());
+    }
+
+    // =========================
+    // 🧰 HELPERS
+    // =========================
+    private static List<Document> matchingIndexes() {
+        List<Document> indexes = new ArrayList<>();
+        indexes.add(new Document("name", "_id_").append("key", new Document("_id", 1)));
+        indexes.add(new Document("name", EmailOutboxDocument.IDX_STATUS_NEXT_ATTEMPT)
+                .append("key", new Document("status", 1).append("nextAttemptAt", 1)));
+        indexes.add(new Document("name", EmailOutboxDocument.UK_COALESCE_KEY)
+                .append("key", new Document("coalesceKey", 1))
+                .append("unique", true)
+                .append("partialFilterExpression", Document.parse("{ 'coalesceKey': { '$exists': true } }")));
+        indexes.add(new Document("name", EmailOutboxDocument.TTL_EXPIRE_AT)
+                .append("key", new Document("expireAt", 1))
+                .append("expireAfterSeconds", 0));
+        return indexes;
+    }
+
+    private Document index(String name) {
+        return actual.stream()
+                .filter(d -> name.equals(d.getString("name")))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void remove(String name) {
+        actual.remove(index(name));
+    }
+
+    private void mode(String mode) {
+        ReflectionTestUtils.setField(bootstrap, "mode", mode);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.controller.user;
+
+import com.example.demo.domain.dto.res.UserResponse;
+import com.example.demo.service.user.IUserService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Export NDJSON: mỗi user 1 dòng JSON, ghi thẳng ra output stream.
+ */
+class UserControllersExportTest {
+
+    private static final int USERS = 1_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private IUserService userService;
+    private UserControllers controller;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        userService = mock(IUserService.class);
+        doAnswer(inv -> {
+            Consumer<UserResponse> consumer = inv.getArgument(0);
+            for (int i = 0; i < USERS; i++) {
+                consumer.accept(UserResponse.builder()
+                        .id("id-" + i)
+                        .username("user" + i)
+                        .email("user" + i + "@example.com")
+                        .year(1990)
+                        .role("USER")
+                        .emailVerified(true)
+                        .build());
+            }
+            return null;
+        }).when(userService).exportUsers(any(Consumer.class));
+
+        controller = new UserControllers(userService, null, objectMapper);
+    }
+
+    @Test
+    void export_writesOneJsonObjectPerLine() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = controller.exportUsers();
+
+        assertEquals("application/x-ndjson", String.valueOf(response.getHeaders().getContentType()));
+        assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains("users.ndjson"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+
+        String[] lines = body.split("\n");
+        assertEquals(USERS, lines.length);
+        for (int i = 0; i < USERS; i++) {
+            JsonNode row = objectMapper.readTree(lines[i]);
+            assertEquals("id-" + i, row.get("id").asText());
+            assertEquals("user" + i + "@example.com", row.get("email").asText());
+        }
+    }
+
+    @Test
+    void export_clientDisconnect_surfacesIOException() {
+        StreamingResponseBody body = controller.exportUsers().getBody();
+
+        OutputStream broken = new OutputStream() {
+            private int written;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (++written > 100) {
+                    throw new IOException("Broken pipe");
+                }
+            }
+        };
+
+        // UncheckedIOException bên trong consumer được bóc ra → container xử lý như lỗi ghi response
+        IOException ex = assertThrows(IOException.class, () -> body.writeTo(broken));
+        assertEquals("Broken pipe", ex.getMessage());
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.infrastructure.branch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BranchRepositoryImplSortTest {
+
+    @Test
+    void tiebreaker_followsAscendingSort() {
+        Sort sort = BranchRepositoryImpl.withIdTiebreaker(Sort.by(Sort.Direction.ASC, "name"));
+
+        assertEquals(Sort.by(Sort.Direction.ASC, "name", "_id"), sort);
+    }
+
+    @Test
+    void tiebreaker_followsDescendingSort() {
+        Sort sort = BranchRepositoryImpl.withIdTiebreaker(
+                Sort.by(Sort.Direction.DESC, "address.province").and(Sort.by(Sort.Direction.DESC, "name"))
+        );
+
+        assertEquals(Sort.by(Sort.Direction.DESC, "address.province", "name", "_id"), sort);
+    }
+
+    @Test
+    void tiebreaker_unsorted_defaultsToAscendingId() {
+        assertEquals(Sort.by(Sort.Direction.ASC, "_id"), BranchRepositoryImpl.withIdTiebreaker(Sort.unsorted()));
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.demo.infrastructure.email;
+
+import com.example.demo.domain.entities.EmailOutboxMessage;
+import com.example.demo.domain.enums.EmailOutboxStatus;
+import com.example.demo.domain.enums.EmailType;
+import com.example.demo.domain.model.EmailOutboxDocument;
+import com.example.demo.service.emailService.outbox.IEmailOutboxRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Gộp mail trùng của {@link EmailOutboxRepositoryImpl}: mail quay lại hàng chờ lấy lại coalesceKey,
+ * mail cũ hơn mail đang chờ thì bị thay thế.
+ */
+class EmailOutboxRepositoryImplTest {
+
+    private static final String ID = "665f1c2ab3e4d5f6a7b8c9d0";
+    private static final String LEASE = "lease-1";
+
+    private MongoTemplate mongoTemplate;
+    private EmailOutboxRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        repository = new EmailOutboxRepositoryImpl(mongoTemplate);
+    }
+
+    // =========================
+    // 🔁 RESCHEDULE / REQUEUE
+    // =========================
+    @Test
+    void reschedule_restoresCoalesceKey() {
+        leasedDocument();
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(EmailOutboxDocument.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        Instant next = Instant.now().plusSeconds(30);
+
+        assertTrue(repository.reschedule(ID, LEASE, next, "timeout"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(EmailOutboxDocument.class));
+
+        assertEquals(LEASE, query.getValue().getQueryObject().get("leaseToken"));
+        assertEquals(EmailOutboxStatus.PENDING, query.getValue().getQueryObject().get("status"));
+        assertEquals("VERIFY_EMAIL:user@example.com", set(update.getValue()).get("coalesceKey"));
+        assertEquals(next, set(update.getValue()).get("nextAttemptAt"));
+        assertTrue(unset(update.getValue()).containsKey("leaseToken"));
+    }
+
+    @Test
+    void requeue_restoresCoalesceKey() {
+        leasedDocument();
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(EmailOutboxDocument.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertTrue(repository.requeue(ID, LEASE, Instant.now().plusSeconds(5)));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(EmailOutboxDocument.class));
+        assertEquals("VERIFY_EMAIL:user@example.com", set(update.getValue()).get("coalesceKey"));
+    }
+
+    @Test
+    void reschedule_newerMailHoldsKey_supersedesStaleMail() {
+        leasedDocument();
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(EmailOutboxDocument.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key uk_email_outbox_coalesceKey"))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertTrue(repository.reschedule(ID, LEASE, Instant.now().plusSeconds(30), "timeout"));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), update.capture(), eq(EmailOutboxDocument.class));
+
+        Update superseded = update.getAllValues().get(1);
+        assertEquals(EmailOutboxStatus.SUPERSEDED, set(superseded).get("status"));
+        assertNotNull(set(superseded).get("expireAt"));
+        assertFalse(set(superseded).containsKey("coalesceKey"));
+        assertFalse(set(superseded).containsKey("nextAttemptAt"));
+        assertTrue(unset(superseded).containsKey("payload"));
+    }
+
+    @Test
+    void reschedule_leaseLost_writesNothing() {
+        when(mongoTemplate.findOne(any(Query.class), eq(EmailOutboxDocument.class))).thenReturn(null);
+
+        assertFalse(repository.reschedule(ID, LEASE, Instant.now(), "timeout"));
+
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(EmailOutboxDocument.class));
+    }
+
+    // =========================
+    // 📥 ENQUEUE
+    // =========================
+    @Test
+    void enqueue_mergeIntoWaitingMail_pullsNextAttemptForward() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(EmailOutboxDocument.class)))
+                .thenReturn(EmailOutboxDocument.builder().id(ID).build());
+
+        IEmailOutboxRepository.Enqueued result = repository.enqueue(message(), Duration.ofSeconds(2));
+
+        assertEquals(new IEmailOutboxRepository.Enqueued(ID, true), result);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(),
+                any(FindAndModifyOptions.class), eq(EmailOutboxDocument.class));
+
+        assertEquals("VERIFY_EMAIL:user@example.com", query.getValue().getQueryObject().get("coalesceKey"));
+        // Mail đích đang chờ backoff dài → bản mới vẫn đi sau cửa sổ gộp
+        Document min = (Document) update.getValue().getUpdateObject().get("$min");
+        assertNotNull(min.get("nextAttemptAt"));
+        assertEquals(Map.of("token", "new"), set(update.getValue()).get("payload"));
+    }
+
+    @Test
+    void coalesceKey_normalizesRecipient() {
+        assertEquals(
+                EmailOutboxRepositoryImpl.coalesceKey(EmailType.FORGOT_PASSWORD_OTP, "user@example.com"),
+                EmailOutboxRepositoryImpl.coalesceKey(EmailType.FORGOT_PASSWORD_OTP, "  User@Example.COM ")
+        );
+    }
+
+    // =========================
+    // 🧰 HELPERS
+    // =========================
+    private void leasedDocument() {
+        when(mongoTemplate.findOne(any(Query.class), eq(EmailOutboxDocument.class)))
+                .thenReturn(EmailOutboxDocument.builder()
+                        .id(ID)
+                        .type(EmailType.VERIFY_EMAIL)
+                        .recipient("User@Example.com")
+                        .build());
+    }
+
+    private static EmailOutboxMessage message() {
+        return EmailOutboxMessage.builder()
+                .type(EmailType.VERIFY_EMAIL)
+                .recipient("User@Example.com")
+                .payload(Map.of("token", "new"))
+                .build();
+    }
+
+    private static Document set(Update update) {
+        return (Document) update.getUpdateObject().get("$set");
+    }
+
+    private static Document unset(Update update) {
+        Document unset = (Document) update.getUpdateObject().get("$unset");
+        return unset != null ? unset : new Document();
+    }
+}
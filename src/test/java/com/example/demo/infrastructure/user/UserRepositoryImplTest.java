@@ -0,0 +1,187 @@
+package com.example.demo.infrastructure.user;
+
+import com.example.demo.domain.entities.UserEntity;
+import com.example.demo.domain.model.UserDocument;
+import com.example.demo.infrastructure.user.repository.MongoUserRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Update nguyên tử của {@link UserRepositoryImpl}: điều kiện trong query,
+ * $inc version và document cũ (trước khi có @Version) không có field version.
+ */
+class UserRepositoryImplTest {
+
+    private static final String ID = "665f1c2ab3e4d5f6a7b8c9d0";
+
+    private MongoUserRepository mongoUserRepository;
+    private MongoTemplate mongoTemplate;
+    private UserRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        mongoUserRepository = mock(MongoUserRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        repository = new UserRepositoryImpl(mongoUserRepository, mongoTemplate);
+    }
+
+    // =========================
+    // ✅ VERIFY EMAIL
+    // =========================
+    @Test
+    void markEmailVerified_onlyMatchesUnverifiedDocument() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UserDocument.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertTrue(repository.markEmailVerified(ID));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(UserDocument.class));
+
+        assertEquals(ID, query.getValue().getQueryObject().get("_id"));
+        assertEquals(false, query.getValue().getQueryObject().get("emailVerified"));
+        assertEquals(true, set(update.getValue()).get("emailVerified"));
+        assertEquals(1, inc(update.getValue()).get("version"));
+    }
+
+    @Test
+    void markEmailVerified_alreadyVerified_returnsFalse() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UserDocument.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertFalse(repository.markEmailVerified(ID));
+    }
+
+    // =========================
+    // 🔑 PASSWORD
+    // =========================
+    @Test
+    void updatePassword_requiresExpectedHash() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(UserDocument.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertFalse(repository.updatePassword(ID, "old-hash", "new-hash"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(UserDocument.class));
+
+        assertEquals("old-hash", query.getValue().getQueryObject().get("password"));
+        assertEquals("new-hash", set(update.getValue()).get("password"));
+        assertEquals(1, inc(update.getValue()).get("version"));
+    }
+
+    // =========================
+    // ✏️ PROFILE (@Version)
+    // =========================
+    @Test
+    void updateProfile_versionMismatchOnExistingDocument_throwsOptimisticLock() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(UserDocument.class))).thenReturn(null);
+        when(mongoUserRepository.existsById(ID)).thenReturn(true);
+
+        assertThrows(
+                OptimisticLockingFailureException.class,
+                () -> repository.updateProfile(ID, "new name", null, 3L)
+        );
+    }
+
+    @Test
+    void updateProfile_missingDocument_returnsEmpty() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(UserDocument.class))).thenReturn(null);
+        when(mongoUserRepository.existsById(ID)).thenReturn(false);
+
+        assertTrue(repository.updateProfile(ID, "new name", null, 3L).isEmpty());
+    }
+
+    @Test
+    void updateProfile_withoutVersion_legacyDocumentStartsVersioning() {
+        UserDocument updated = UserDocument.builder().id(ID).username("new name").version(1L).build();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(UserDocument.class))).thenReturn(updated);
+
+        UserEntity result = repository.updateProfile(ID, "new name", null, null).orElseThrow();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(),
+                any(FindAndModifyOptions.class), eq(UserDocument.class));
+
+        // Không có version trong điều kiện → document cũ (không có field version) vẫn match
+        assertFalse(query.getValue().getQueryObject().containsKey("version"));
+        assertEquals(1, inc(update.getValue()).get("version"));
+        assertEquals(1L, result.getVersion());
+    }
+
+    // =========================
+    // 💾 SAVE
+    // =========================
+    @Test
+    void save_legacyDocumentWithoutVersion_adoptsVersionInsteadOfInserting() {
+        when(mongoTemplate.findOne(any(Query.class), eq(UserDocument.class)))
+                .thenReturn(UserDocument.builder().id(ID).version(0L).build());
+        when(mongoUserRepository.save(any(UserDocument.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        UserEntity saved = repository.save(UserEntity.builder().id(ID).username("legacy").build());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(query.capture(), any(Update.class), eq(UserDocument.class));
+        assertTrue(query.getValue().getQueryObject().containsKey("version"));
+        assertNull(query.getValue().getQueryObject().get("version"));
+
+        // version khác null → Spring Data update theo version thay vì insert trùng _id
+        assertEquals(0L, saved.getVersion());
+    }
+
+    @Test
+    void save_documentNotInDb_keepsNullVersionForInsert() {
+        when(mongoTemplate.findOne(any(Query.class), eq(UserDocument.class))).thenReturn(null);
+        when(mongoUserRepository.save(any(UserDocument.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        UserEntity saved = repository.save(UserEntity.builder().id(ID).username("fresh").build());
+
+        assertNull(saved.getVersion());
+    }
+
+    @Test
+    void save_versionedDocument_skipsLegacyLookup() {
+        when(mongoUserRepository.save(any(UserDocument.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        repository.save(UserEntity.builder().id(ID).username("current").version(5L).build());
+
+        verify(mongoTemplate, never()).findOne(any(Query.class), eq(UserDocument.class));
+    }
+
+    // =========================
+    // 🧰 HELPERS
+    // =========================
+    private static Document set(Update update) {
+        return (Document) update.getUpdateObject().get("$set");
+    }
+
+    private static Document inc(Update update) {
+        return (Document) update.getUpdateObject().get("$inc");
+    }
+}
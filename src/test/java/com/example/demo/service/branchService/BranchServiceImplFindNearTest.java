@@ -0,0 +1,74 @@
+package com.example.demo.service.branchService;
+
+import com.example.demo.exception.BusinessException;
+import com.example.demo.exception.CommonError;
+import com.example.demo.service.branchService.geo.BranchNearCache;
+import com.example.demo.service.branchService.repository.IBranchRepository;
+import com.example.demo.service.branchService.search.BranchSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kiểm tra tham số của {@link BranchServiceImpl#findNear}: toạ độ / bán kính không hợp lệ
+ * (kể cả NaN, Infinity) bị chặn trước khi tới near-cache.
+ */
+class BranchServiceImplFindNearTest {
+
+    private BranchNearCache nearCache;
+    private BranchServiceImpl branchService;
+
+    @BeforeEach
+    void setUp() {
+        nearCache = mock(BranchNearCache.class);
+        branchService = new BranchServiceImpl(mock(IBranchRepository.class), mock(BranchSearchIndex.class), nearCache);
+    }
+
+    @Test
+    void nonFiniteCoordinates_areRejected() {
+        assertInvalid(() -> branchService.findNear(Double.NaN, 106.7, 1000, null, 10));
+        assertInvalid(() -> branchService.findNear(10.7, Double.NaN, 1000, null, 10));
+        assertInvalid(() -> branchService.findNear(Double.POSITIVE_INFINITY, 106.7, 1000, null, 10));
+        assertInvalid(() -> branchService.findNear(10.7, Double.NEGATIVE_INFINITY, 1000, null, 10));
+    }
+
+    @Test
+    void nonFiniteRadius_isRejected() {
+        assertInvalid(() -> branchService.findNear(10.7, 106.7, Double.NaN, null, 10));
+        assertInvalid(() -> branchService.findNear(10.7, 106.7, Double.POSITIVE_INFINITY, null, 10));
+    }
+
+    @Test
+    void outOfRangeValues_areRejected() {
+        assertInvalid(() -> branchService.findNear(90.1, 106.7, 1000, null, 10));
+        assertInvalid(() -> branchService.findNear(10.7, -180.1, 1000, null, 10));
+        assertInvalid(() -> branchService.findNear(10.7, 106.7, 0, null, 10));
+        assertInvalid(() -> branchService.findNear(10.7, 106.7, 50_001, null, 10));
+    }
+
+    @Test
+    void validQuery_reachesNearCache() {
+        when(nearCache.findNear(anyDouble(), anyDouble(), anyDouble(), anyInt(), anyInt())).thenReturn(List.of());
+
+        assertTrue(branchService.findNear(-90, 180, 50_000, null, 10).getItems().isEmpty());
+        verify(nearCache).findNear(-90, 180, 50_000, 0, 11);
+    }
+
+    private void assertInvalid(Executable call) {
+        BusinessException ex = assertThrows(BusinessException.class, call);
+        assertEquals(CommonError.INVALID_REQUEST, ex.getError());
+        verify(nearCache, never()).findNear(anyDouble(), anyDouble(), anyDouble(), anyInt(), anyInt());
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.demo.service.branchService.geo;
+
+import com.example.demo.domain.entities.AddressEntity;
+import com.example.demo.domain.entities.BranchEntity;
+import com.example.demo.service.branchService.repository.BranchDistance;
+import com.example.demo.service.branchService.repository.IBranchRepository;
+import com.example.demo.service.redisConfig.branch.BranchChangeBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cache lưới geohash của /api/branches/near: kết quả phải giống hệt truy vấn thẳng Mongo.
+ */
+class BranchNearCacheTest {
+
+    private static final double BASE_LAT = 10.7725;
+    private static final double BASE_LNG = 106.6980;
+
+    private final List<BranchEntity> branches = new ArrayList<>();
+    private IBranchRepository repository;
+    private BranchChangeBus changeBus;
+
+    @BeforeEach
+    void setUp() {
+        branches.clear();
+        repository = mock(IBranchRepository.class);
+        changeBus = mock(BranchChangeBus.class);
+
+        // Giả lập $geoNear: lọc theo haversine, gần nhất trước, skip/limit
+        when(repository.findNear(anyDouble(), anyDouble(), anyDouble(), anyInt(), anyInt()))
+                .thenAnswer(inv -> near(
+                        inv.getArgument(0), inv.getArgument(1), inv.getArgument(2),
+                        inv.getArgument(3), inv.getArgument(4)
+                ));
+    }
+
+    // =========================
+    // 📏 BUCKET / PRECISION
+    // =========================
+    @Test
+    void bucketFor_roundsUpToNextRadiusBucket() {
+        assertEquals(500, BranchNearCache.bucketFor(1));
+        assertEquals(500, BranchNearCache.bucketFor(500));
+        assertEquals(1_000, BranchNearCache.bucketFor(500.5));
+        assertEquals(5_000, BranchNearCache.bucketFor(2_001));
+        assertEquals(50_000, BranchNearCache.bucketFor(50_000));
+        assertEquals(-1, BranchNearCache.bucketFor(50_001));
+    }
+
+    @Test
+    void precisionFor_usesSmallerCellsForSmallerRadius() {
+        assertEquals(6, BranchNearCache.precisionFor(500));
+        assertEquals(6, BranchNearCache.precisionFor(1_000));
+        assertEquals(5, BranchNearCache.precisionFor(2_000));
+        assertEquals(5, BranchNearCache.precisionFor(10_000));
+        assertEquals(4, BranchNearCache.precisionFor(20_000));
+        assertEquals(4, BranchNearCache.precisionFor(50_000));
+    }
+
+    // =========================
+    // 🗺️ CELL CONTAINMENT
+    // =========================
+    @Test
+    void everyBranchWithinRadiusOfAnyPointInCell_isInCellCandidates() {
+        Random random = new Random(2024);
+
+        for (double radius : new double[]{300, 500, 800, 1_000, 1_500, 5_000, 9_000, 15_000, 50_000}) {
+            int bucket = BranchNearCache.bucketFor(radius);
+            Geohash.Cell cell = Geohash.decode(Geohash.encode(BASE_LAT, BASE_LNG, BranchNearCache.precisionFor(bucket)));
+
+            branches.clear();
+            seedAroundCell(cell, bucket, random);
+            BranchNearCache cache = newCache(1_000_000);
+
+            for (double[] point : pointsInCell(cell, random)) {
+                List<BranchDistance> expected = near(point[0], point[1], radius, 0, Integer.MAX_VALUE);
+                List<BranchDistance> actual = cache.findNear(point[0], point[1], radius, 0, Integer.MAX_VALUE);
+
+                // Khoảng cách bằng nhau có thể đổi chỗ → so tập id + dãy khoảng cách
+                String where = "r=" + radius + " at " + point[0] + "," + point[1];
+                assertEquals(ids(expected).stream().sorted().toList(), ids(actual).stream().sorted().toList(), where);
+                assertEquals(distances(expected), distances(actual), where);
+            }
+            // Mọi điểm trong ô dùng chung 1 lần nạp
+            assertEquals(1, cache.stats().loads(), "r=" + radius);
+        }
+    }
+
+    @Test
+    void paging_slicesSortedMatches() {
+        seedRandom(300, 3_000, new Random(1));
+        BranchNearCache cache = newCache(1_000_000);
+
+        List<BranchDistance> all = near(BASE_LAT, BASE_LNG, 2_000, 0, Integer.MAX_VALUE);
+        assertTrue(all.size() > 20);
+
+        assertEquals(ids(all.subList(0, 10)), ids(cache.findNear(BASE_LAT, BASE_LNG, 2_000, 0, 10)));
+        assertEquals(ids(all.subList(10, 20)), ids(cache.findNear(BASE_LAT, BASE_LNG, 2_000, 10, 10)));
+        assertEquals(ids(all.subList(all.size() - 1, all.size())),
+                ids(cache.findNear(BASE_LAT, BASE_LNG, 2_000, all.size() - 1, 10)));
+        assertTrue(cache.findNear(BASE_LAT, BASE_LNG, 2_000, all.size(), 10).isEmpty());
+    }
+
+    // =========================
+    // ↪️ BYPASS
+    // =========================
+    @Test
+    void denseCell_isFlaggedOnce_thenQueriesGoStraightToRepository() {
+        seedRandom(50, 200, new Random(3));
+        BranchNearCache cache = newCache(10);
+
+        List<BranchDistance> first = cache.findNear(BASE_LAT, BASE_LNG, 500, 0, 5);
+        List<BranchDistance> second = cache.findNear(BASE_LAT, BASE_LNG, 500, 0, 5);
+
+        assertEquals(ids(near(BASE_LAT, BASE_LNG, 500, 0, 5)), ids(first));
+        assertEquals(ids(first), ids(second));
+        assertEquals(1, cache.stats().loads());
+        verify(repository, times(2)).findNear(BASE_LAT, BASE_LNG, 500, 0, 5);
+        verify(repository, times(3)).findNear(anyDouble(), anyDouble(), anyDouble(), anyInt(), anyInt());
+    }
+
+    @Test
+    void radiusAboveLargestBucket_skipsCache() {
+        seedRandom(50, 200, new Random(4));
+        BranchNearCache cache = newCache(1_000_000);
+
+        cache.findNear(BASE_LAT, BASE_LNG, 60_000, 0, 10);
+
+        verify(repository).findNear(BASE_LAT, BASE_LNG, 60_000, 0, 10);
+        assertEquals(0, cache.stats().loads());
+    }
+
+    // =========================
+    // 🧹 INVALIDATION
+    // =========================
+    @Test
+    @SuppressWarnings("unchecked")
+    void branchChange_dropsCachedCells() {
+        BranchNearCache cache = newCache(1_000_000);
+        cache.subscribe();
+        ArgumentCaptor<Consumer<BranchChangeBus.Change>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(changeBus).subscribe(listener.capture());
+
+        assertTrue(cache.findNear(BASE_LAT, BASE_LNG, 1_000, 0, 10).isEmpty());
+
+        branches.add(branch("new", BASE_LAT, BASE_LNG));
+        assertTrue(cache.findNear(BASE_LAT, BASE_LNG, 1_000, 0, 10).isEmpty());
+
+        listener.getValue().accept(new BranchChangeBus.Change(BranchChangeBus.Type.UPSERT, "new"));
+        assertEquals(List.of("new"), ids(cache.findNear(BASE_LAT, BASE_LNG, 1_000, 0, 10)));
+    }
+
+    // =========================
+    // 🧰 HELPERS
+    // =========================
+    private BranchNearCache newCache(int maxCandidates) {
+        return new BranchNearCache(repository, changeBus, 1_000, 60, maxCandidates);
+    }
+
+    private List<BranchDistance> near(double lat, double lng, double radius, int skip, int limit) {
+        return branches.stream()
+                .map(b -> new BranchDistance(b, Geohash.distanceMeters(
+                        lat, lng, b.getAddress().getLatitude(), b.getAddress().getLongitude())))
+                .filter(d -> d.distanceMeters() <= radius)
+                .sorted(Comparator.comparingDouble(BranchDistance::distanceMeters))
+                .skip(skip)
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Branch rải đều quanh ô + vòng sát mép bán kính quanh các góc ô (chỗ dễ sót nhất).
+     */
+    private void seedAroundCell(Geohash.Cell cell, int bucket, Random random) {
+        double margin = (bucket * 1.3) / 111_320.0;
+        double lngScale = Math.cos(Math.toRadians(cell.centerLat()));
+        for (int i = 0; i < 2_000; i++) {
+            double lat = cell.minLat() - margin + random.nextDouble() * (cell.maxLat() - cell.minLat() + 2 * margin);
+            double lng = cell.minLng() - margin / lngScale
+                    + random.nextDouble() * (cell.maxLng() - cell.minLng() + 2 * margin / lngScale);
+            branches.add(branch("r" + i, lat, lng));
+        }
+
+        double[][] corners = {
+                {cell.minLat(), cell.minLng()}, {cell.minLat(), cell.maxLng()},
+                {cell.maxLat(), cell.minLng()}, {cell.maxLat(), cell.maxLng()}
+        };
+        for (int c = 0; c < corners.length; c++) {
+            for (int deg = 0; deg < 360; deg += 10) {
+                for (double factor : new double[]{0.98, 0.999, 1.02}) {
+                    double[] p = offset(corners[c][0], corners[c][1], bucket * factor, deg);
+                    branches.add(branch("c" + c + "-" + deg + "-" + factor, p[0], p[1]));
+                }
+            }
+        }
+    }
+
+    private void seedRandom(int count, double maxMeters, Random random) {
+        for (int i = 0; i < count; i++) {
+            double[] p = offset(BASE_LAT, BASE_LNG, random.nextDouble() * maxMeters, random.nextInt(360));
+            branches.add(branch("b" + i, p[0], p[1]));
+        }
+    }
+
+    // Góc ô (lùi vào trong 1 chút để vẫn thuộc ô), trung điểm cạnh, tâm và điểm ngẫu nhiên
+    private static List<double[]> pointsInCell(Geohash.Cell cell, Random random) {
+        double eps = 1e-9;
+        double lowLat = cell.minLat(), highLat = cell.maxLat() - eps;
+        double lowLng = cell.minLng(), highLng = cell.maxLng() - eps;
+
+        List<double[]> points = new ArrayList<>(List.of(
+                new double[]{lowLat, lowLng}, new double[]{lowLat, highLng},
+                new double[]{highLat, lowLng}, new double[]{highLat, highLng},
+                new double[]{cell.centerLat(), lowLng}, new double[]{cell.centerLat(), highLng},
+                new double[]{lowLat, cell.centerLng()}, new double[]{highLat, cell.centerLng()},
+                new double[]{cell.centerLat(), cell.centerLng()}
+        ));
+        for (int i = 0; i < 100; i++) {
+            points.add(new double[]{
+                    lowLat + random.nextDouble() * (highLat - lowLat),
+                    lowLng + random.nextDouble() * (highLng - lowLng)
+            });
+        }
+        return points;
+    }
+
+    private static double[] offset(double lat, double lng, double meters, double bearingDeg) {
+        double angular = meters / Geohash.EARTH_RADIUS_METERS;
+        double bearing = Math.toRadians(bearingDeg);
+        double lat1 = Math.toRadians(lat);
+        double lat2 = Math.asin(Math.sin(lat1) * Math.cos(angular)
+                + Math.cos(lat1) * Math.sin(angular) * Math.cos(bearing));
+        double lng2 = Math.toRadians(lng) + Math.atan2(
+                Math.sin(bearing) * Math.sin(angular) * Math.cos(lat1),
+                Math.cos(angular) - Math.sin(lat1) * Math.sin(lat2));
+        return new double[]{Math.toDegrees(lat2), Math.toDegrees(lng2)};
+    }
+
+    private static BranchEntity branch(String id, double lat, double lng) {
+        return BranchEntity.builder()
+                .id(id)
+                .name("Branch " + id)
+                .address(AddressEntity.builder().latitude(lat).longitude(lng).build())
+                .build();
+    }
+
+    private static List<String> ids(List<BranchDistance> results) {
+        return results.stream().map(d -> d.branch().getId()).toList();
+    }
+
+    private static List<Double> distances(List<BranchDistance> results) {
+        return results.stream().map(BranchDistance::distanceMeters).toList();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.service.branchService.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeohashTest {
+
+    // =========================
+    // 🔢 ENCODE / DECODE
+    // =========================
+    @Test
+    void encode_matchesReferenceHash() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("w3gv7", Geohash.encode(10.7725, 106.6980, 5));
+    }
+
+    @Test
+    void decode_returnsReferenceCell() {
+        Geohash.Cell cell = Geohash.decode("ezs42");
+
+        assertEquals(42.5830078125, cell.minLat(), 1e-12);
+        assertEquals(42.626953125, cell.maxLat(), 1e-12);
+        assertEquals(-5.625, cell.minLng(), 1e-12);
+        assertEquals(-5.5810546875, cell.maxLng(), 1e-12);
+    }
+
+    @Test
+    void decodeOfEncode_containsPoint_andCenterEncodesBack() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            double lat = -89 + random.nextDouble() * 178;
+            double lng = -179 + random.nextDouble() * 358;
+            int precision = 1 + random.nextInt(9);
+
+            String hash = Geohash.encode(lat, lng, precision);
+            Geohash.Cell cell = Geohash.decode(hash);
+
+            assertEquals(precision, hash.length());
+            assertTrue(lat >= cell.minLat() && lat <= cell.maxLat(), hash + " lat=" + lat);
+            assertTrue(lng >= cell.minLng() && lng <= cell.maxLng(), hash + " lng=" + lng);
+            assertEquals(hash, Geohash.encode(cell.centerLat(), cell.centerLng(), precision));
+        }
+    }
+
+    @Test
+    void longerHash_isNestedInShorterOne() {
+        String fine = Geohash.encode(21.0285, 105.8542, 9);
+
+        for (int precision = 1; precision < fine.length(); precision++) {
+            assertEquals(fine.substring(0, precision), Geohash.encode(21.0285, 105.8542, precision));
+        }
+    }
+
+    @Test
+    void decode_rejectsCharactersOutsideBase32() {
+        assertThrows(IllegalArgumentException.class, () -> Geohash.decode("w3ga"));
+        assertThrows(IllegalArgumentException.class, () -> Geohash.decode("w3gi"));
+        assertThrows(IllegalArgumentException.class, () -> Geohash.decode("w3gÄ"));
+    }
+
+    // =========================
+    // 📐 DISTANCE / CELL SIZE
+    // =========================
+    @Test
+    void distance_hoChiMinhToHanoi() {
+        double meters = Geohash.distanceMeters(10.7725, 106.6980, 21.0285, 105.8542);
+
+        assertEquals(1_145_000, meters, 5_000);
+        assertEquals(0, Geohash.distanceMeters(10.7725, 106.6980, 10.7725, 106.6980), 1e-9);
+    }
+
+    @Test
+    void halfDiagonal_matchesDocumentedCellSizes() {
+        // Gần xích đạo: precision 4 ≈ 39 x 19.5 km, 5 ≈ 4.9 x 4.9 km, 6 ≈ 1.2 x 0.6 km
+        assertEquals(21_800, halfDiagonal(0.1, 106.7, 4), 1_000);
+        assertEquals(3_450, halfDiagonal(0.1, 106.7, 5), 200);
+        assertEquals(680, halfDiagonal(0.1, 106.7, 6), 50);
+    }
+
+    @Test
+    void halfDiagonal_coversEveryPointOfCell() {
+        Random random = new Random(7);
+        for (double lat : new double[]{-60, -10.5, 0.01, 10.7725, 21.0285, 60}) {
+            for (int precision = 4; precision <= 6; precision++) {
+                Geohash.Cell cell = Geohash.decode(Geohash.encode(lat, 106.7, precision));
+                double halfDiagonal = cell.halfDiagonalMeters();
+
+                double[][] corners = {
+                        {cell.minLat(), cell.minLng()}, {cell.minLat(), cell.maxLng()},
+                        {cell.maxLat(), cell.minLng()}, {cell.maxLat(), cell.maxLng()}
+                };
+                for (double[] corner : corners) {
+                    assertTrue(distanceFromCenter(cell, corner[0], corner[1]) <= halfDiagonal + 1e-6);
+                }
+                for (int i = 0; i < 200; i++) {
+                    double pLat = cell.minLat() + random.nextDouble() * (cell.maxLat() - cell.minLat());
+                    double pLng = cell.minLng() + random.nextDouble() * (cell.maxLng() - cell.minLng());
+                    assertTrue(distanceFromCenter(cell, pLat, pLng) <= halfDiagonal + 1e-6);
+                }
+            }
+        }
+    }
+
+    private static double halfDiagonal(double lat, double lng, int precision) {
+        return Geohash.decode(Geohash.encode(lat, lng, precision)).halfDiagonalMeters();
+    }
+
+    private static double distanceFromCenter(Geohash.Cell cell, double lat, double lng) {
+        return Geohash.distanceMeters(cell.centerLat(), cell.centerLng(), lat, lng);
+    }
+}
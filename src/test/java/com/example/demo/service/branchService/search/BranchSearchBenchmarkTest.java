@@ -0,0 +1,118 @@
+package com.example.demo.service.branchService.search;
+
+import com.example.demo.domain.entities.AddressEntity;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * So sánh regex cũ (findByNameContainingIgnoreCase) với multikey index searchPrefixes
+ * trên 100k branch.
+ *
+ * Chạy: mvn test -Dtest=BranchSearchBenchmarkTest -Dbenchmark.mongo.uri=mongodb://localhost:27017
+ * (tạo rồi xoá collection benchmark.branches_search_bench)
+ */
+@EnabledIfSystemProperty(named = "benchmark.mongo.uri", matches = ".+")
+class BranchSearchBenchmarkTest {
+
+    private static final int BRANCHES = 100_000;
+    private static final int ITERATIONS = 30;
+
+    private static final String[] PROVINCES = {"TP. Hồ Chí Minh", "Hà Nội", "Đà Nẵng", "Cần Thơ", "Hải Phòng", "Đồng Nai"};
+    private static final String[] WARDS = {"Phường Bến Thành", "Phường Đa Kao", "Phường Tân Định", "Xã Đông Thạnh", "Phường Láng Hạ"};
+    private static final String[] STREETS = {"Lê Lợi", "Nguyễn Huệ", "Trần Hưng Đạo", "Điện Biên Phủ", "Hai Bà Trưng", "Lý Thường Kiệt"};
+    private static final String[] BRANDS = {"Trọ Xanh", "Nhà Trọ Bình An", "Căn Hộ Mini Đông Á", "Ký Túc Xá Sinh Viên", "Trọ Giá Rẻ"};
+
+    private static final String[] QUERIES = {"quan 1", "Quận 1", "binh an", "dien bien", "tro", "ky tuc xa quan 3"};
+
+    @Test
+    void regexVersusPrefixIndex() {
+        try (MongoClient client = MongoClients.create(System.getProperty("benchmark.mongo.uri"))) {
+            MongoCollection<Document> collection = client.getDatabase("benchmark").getCollection("branches_search_bench");
+            collection.drop();
+
+            try {
+                seed(collection);
+                collection.createIndex(Indexes.ascending("searchPrefixes"));
+
+                System.out.printf("%-20s | %12s | %6s | %12s | %6s%n", "query", "regex ms", "hits", "prefix ms", "hits");
+                for (String q : QUERIES) {
+                    Bson regex = Filters.regex("name", Pattern.compile(Pattern.quote(q), Pattern.CASE_INSENSITIVE));
+                    Bson prefix = Filters.all("searchPrefixes",
+                            BranchSearchText.queryKeys(BranchSearchText.tokens(q)));
+
+                    Result regexResult = measure(collection, regex);
+                    Result prefixResult = measure(collection, prefix);
+
+                    System.out.printf("%-20s | %12.2f | %6d | %12.2f | %6d%n",
+                            q, regexResult.avgMillis(), regexResult.hits(),
+                            prefixResult.avgMillis(), prefixResult.hits());
+                }
+            } finally {
+                collection.drop();
+            }
+        }
+    }
+
+    private static void seed(MongoCollection<Document> collection) {
+        Random random = new Random(42);
+        List<Document> batch = new ArrayList<>();
+
+        for (int i = 0; i < BRANCHES; i++) {
+            String name = BRANDS[random.nextInt(BRANDS.length)] + " Quận " + (1 + random.nextInt(12)) + " #" + i;
+            AddressEntity address = AddressEntity.builder()
+                    .street((1 + random.nextInt(300)) + " " + STREETS[random.nextInt(STREETS.length)])
+                    .ward(WARDS[random.nextInt(WARDS.length)])
+                    .district("Quận " + (1 + random.nextInt(12)))
+                    .province(PROVINCES[random.nextInt(PROVINCES.length)])
+                    .country("VN")
+                    .build();
+            List<String> tokens = BranchSearchText.tokens(name, address);
+
+            batch.add(new Document("name", name)
+                    .append("address", new Document("street", address.getStreet())
+                            .append("ward", address.getWard())
+                            .append("district", address.getDistrict())
+                            .append("province", address.getProvince())
+                            .append("country", address.getCountry()))
+                    .append("searchTokens", tokens)
+                    .append("searchPrefixes", BranchSearchText.prefixes(tokens))
+                    .append("searchVersion", BranchSearchText.VERSION));
+
+            if (batch.size() == 1_000) {
+                collection.insertMany(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            collection.insertMany(batch);
+        }
+    }
+
+    private static Result measure(MongoCollection<Document> collection, Bson filter) {
+        int hits = 0;
+        // Warm-up
+        collection.find(filter).limit(200).into(new ArrayList<>());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            hits = collection.find(filter).limit(200).into(new ArrayList<>()).size();
+        }
+        double avgMillis = (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+        return new Result(avgMillis, hits);
+    }
+
+    private record Result(double avgMillis, int hits) {
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.demo.service.branchService.search;
+
+import com.example.demo.domain.entities.AddressEntity;
+import com.example.demo.domain.entities.BranchEntity;
+import com.example.demo.service.branchService.repository.IBranchRepository;
+import com.example.demo.service.redisConfig.branch.BranchChangeBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BranchSearchIndexTest {
+
+    private IBranchRepository repository;
+    private BranchSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IBranchRepository.class);
+        index = new BranchSearchIndex(repository, mock(BranchChangeBus.class));
+        ReflectionTestUtils.setField(index, "enabled", true);
+    }
+
+    // =========================
+    // 🔍 QUERY
+    // =========================
+    @Test
+    void notReadyUntilFirstBuild() {
+        assertFalse(index.isReady());
+
+        build();
+
+        assertTrue(index.isReady());
+    }
+
+    @Test
+    void prefixLookup_matchesAnyTokenStartingWithQuery() {
+        build(
+                branch("1", "Trọ Quận 1", "Hồ Chí Minh"),
+                branch("2", "Trọ Quang Trung", "Hà Nội"),
+                branch("3", "Nhà Trọ Bình An", "Đà Nẵng")
+        );
+
+        assertEquals(List.of("1", "2"), ids(index.search("qua", 10)).stream().sorted().toList());
+        assertEquals(List.of("3"), ids(index.search("Bình", 10)));
+        assertTrue(index.search("xyz", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    void matchesAll_everyQueryTokenMustMatch() {
+        build(
+                branch("1", "Trọ Xanh", "Quận 1"),
+                branch("2", "Trọ Đỏ", "Quận 3"),
+                branch("3", "Căn Hộ Xanh", "Quận 1")
+        );
+
+        // "xanh" (name) + "1" (địa chỉ) → chỉ branch đủ cả 2 token
+        assertEquals(List.of("1", "3"), ids(index.search("xanh 1", 10)).stream().sorted().toList());
+        assertEquals(List.of("1"), ids(index.search("tro xanh quan", 10)));
+    }
+
+    @Test
+    void topK_returnsHighestScoresInOrder() {
+        build(
+                branch("addr", "Trọ Xanh", "Quận 1"),
+                branch("prefix", "Trọ Quang", "Hà Nội"),
+                branch("exact", "Trọ Quận Mới", "Hà Nội"),
+                branch("leading", "Quận Trung Tâm", "Hà Nội")
+        );
+
+        assertEquals(List.of("leading", "exact", "prefix"), ids(index.search("quan", 3)));
+        assertEquals(List.of("leading"), ids(index.search("quan", 1)));
+    }
+
+    // =========================
+    // ✏️ INCREMENTAL UPDATE
+    // =========================
+    @Test
+    void upsert_replacesOldTokens() {
+        build(branch("1", "Trọ Xanh", "Quận 1"));
+
+        index.upsert(branch("1", "Trọ Đỏ", "Quận 1"));
+
+        assertTrue(index.search("xanh", 10).isEmpty());
+        assertEquals(List.of("1"), ids(index.search("do", 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void remove_dropsBranchFromEveryPosting() {
+        build(branch("1", "Trọ Xanh", "Quận 1"), branch("2", "Trọ Đỏ", "Quận 1"));
+
+        index.remove("1");
+
+        assertEquals(List.of("2"), ids(index.search("tro", 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void concurrentUpserts_neverHideBranchWhoseNameIsUnchanged() throws Exception {
+        build(branch("1", "Trọ Xanh", "Quận 1"));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            int i = 0;
+            while (running.get()) {
+                index.upsert(branch("1", "Trọ Xanh", "Quận " + (i++ % 12)));
+            }
+        });
+        writer.start();
+
+        int misses = 0;
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                if (index.search("xanh", 10).isEmpty()) {
+                    misses++;
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+
+        assertEquals(0, misses);
+    }
+
+    // =========================
+    // 🔄 REBUILD
+    // =========================
+    @Test
+    void rebuild_keepsChangesMadeWhileReadingMongo() {
+        build(branch("1", "Trọ Xanh", "Quận 1"), branch("2", "Trọ Đỏ", "Quận 1"));
+
+        // findAll trả dữ liệu cũ; trong lúc đó node nhận update "1" và delete "2"
+        AtomicInteger calls = new AtomicInteger();
+        when(repository.findAll()).thenAnswer(inv -> {
+            if (calls.incrementAndGet() == 1) {
+                index.upsert(branch("1", "Trọ Vàng", "Quận 1"));
+                index.remove("2");
+            }
+            return List.of(branch("1", "Trọ Xanh", "Quận 1"), branch("2", "Trọ Đỏ", "Quận 1"));
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of("1"), ids(index.search("vang", 10)));
+        assertTrue(index.search("xanh", 10).isEmpty());
+        assertTrue(index.search("do", 10).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void rebuild_failure_keepsPreviousSnapshot() {
+        build(branch("1", "Trọ Xanh", "Quận 1"));
+        when(repository.findAll()).thenThrow(new IllegalStateException("mongo down"));
+
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of("1"), ids(index.search("xanh", 10)));
+    }
+
+    // =========================
+    // 🧰 HELPERS
+    // =========================
+    private void build(BranchEntity... branches) {
+        when(repository.findAll()).thenReturn(List.of(branches));
+        index.rebuild();
+    }
+
+    private static List<String> ids(List<BranchEntity> branches) {
+        return branches.stream().map(BranchEntity::getId).toList();
+    }
+
+    private static BranchEntity branch(String id, String name, String district) {
+        return BranchEntity.builder()
+                .id(id)
+                .name(name)
+                .address(AddressEntity.builder().district(district).build())
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.service.branchService.search;
+
+import com.example.demo.domain.entities.AddressEntity;
+import com.example.demo.domain.entities.BranchEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BranchSearchTextTest {
+
+    // =========================
+    // 🔤 FOLD / TOKENS
+    // =========================
+    @Test
+    void fold_stripsVietnameseDiacritics() {
+        assertEquals("quan 1", BranchSearchText.fold("Quận 1"));
+        assertEquals("dong da", BranchSearchText.fold("Đống Đa"));
+        assertEquals("dien bien phu", BranchSearchText.fold("ĐIỆN BIÊN PHỦ"));
+        assertEquals("ky tuc xa", BranchSearchText.fold("Ký Túc Xá"));
+    }
+
+    @Test
+    void fold_lowerAndUpperD_foldToSameLetter() {
+        assertEquals(BranchSearchText.fold("đ"), BranchSearchText.fold("Đ"));
+        assertEquals("d", BranchSearchText.fold("Đ"));
+    }
+
+    @Test
+    void fold_punctuationBecomesSingleSpace() {
+        assertEquals("tp ho chi minh", BranchSearchText.fold("  TP. Hồ   Chí-Minh!! "));
+        assertEquals("", BranchSearchText.fold(null));
+        assertEquals("", BranchSearchText.fold("  .,;  "));
+    }
+
+    @Test
+    void tokens_queryWithoutDiacriticsMatchesStoredText() {
+        assertEquals(BranchSearchText.tokens("Quận 1"), BranchSearchText.tokens("quan 1"));
+        assertEquals(List.of("quan", "1"), BranchSearchText.tokens("quan 1"));
+        assertTrue(BranchSearchText.tokens("   ").isEmpty());
+    }
+
+    @Test
+    void tokens_nameAndAddress_areDistinctInOrder() {
+        AddressEntity address = AddressEntity.builder()
+                .street("12 Lê Lợi")
+                .ward("Phường Bến Thành")
+                .district("Quận 1")
+                .province("TP. Hồ Chí Minh")
+                .build();
+
+        assertEquals(
+                List.of("tro", "xanh", "quan", "1", "12", "le", "loi", "phuong", "ben", "thanh", "tp", "ho", "chi", "minh"),
+                BranchSearchText.tokens("Trọ Xanh Quận 1", address)
+        );
+    }
+
+    @Test
+    void prefixes_coverEveryPrefixUpToMaxLength() {
+        assertEquals(List.of("q", "qu", "qua", "quan", "1"), BranchSearchText.prefixes(List.of("quan", "1")));
+
+        String longToken = "a".repeat(BranchSearchText.MAX_PREFIX_LENGTH + 5);
+        List<String> prefixes = BranchSearchText.prefixes(List.of(longToken));
+        assertEquals(BranchSearchText.MAX_PREFIX_LENGTH, prefixes.size());
+    }
+
+    @Test
+    void queryKeys_truncateLongTokensAndDeduplicate() {
+        String longToken = "b".repeat(BranchSearchText.MAX_PREFIX_LENGTH + 3);
+
+        assertEquals(
+                List.of("quan", "b".repeat(BranchSearchText.MAX_PREFIX_LENGTH)),
+                BranchSearchText.queryKeys(List.of("quan", longToken, "quan"))
+        );
+    }
+
+    // =========================
+    // 🏅 RANK
+    // =========================
+    @Test
+    void score_exactNameTokenBeatsPrefixBeatsAddress() {
+        List<String> query = BranchSearchText.tokens("quan");
+
+        double exactName = BranchSearchText.score(branch("Trọ Quận Ba", "Hà Nội"), query);
+        double prefixName = BranchSearchText.score(branch("Trọ Quang Trung", "Hà Nội"), query);
+        double exactAddress = BranchSearchText.score(branch("Trọ Xanh", "Quận 1"), query);
+        double prefixAddress = BranchSearchText.score(branch("Trọ Xanh", "Quang Ninh"), query);
+
+        assertTrue(exactName > prefixName);
+        assertTrue(prefixName > exactAddress);
+        assertTrue(exactAddress > prefixAddress);
+    }
+
+    @Test
+    void rank_queryWithoutDiacriticsFindsAccentedName() {
+        List<BranchEntity> ranked = BranchSearchText.rank(
+                List.of(
+                        branch("Nhà Trọ Bình An", "Quận 7"),
+                        branch("Quận 1 Homestay", "Hồ Chí Minh"),
+                        branch("Trọ Xanh", "Quận 10")
+                ),
+                BranchSearchText.tokens("quan 1"),
+                10
+        );
+
+        // Tên bắt đầu bằng đúng cụm query đứng đầu, địa chỉ "Quận 10" chỉ khớp tiền tố
+        assertEquals("Quận 1 Homestay", ranked.get(0).getName());
+        assertEquals(3, ranked.size());
+    }
+
+    @Test
+    void rank_tiesBreakByShorterThenAlphabeticalName() {
+        List<BranchEntity> ranked = BranchSearchText.rank(
+                List.of(
+                        branch("Trọ Đông Á Mini", "Hà Nội"),
+                        branch("Trọ Đông", "Hà Nội"),
+                        branch("Trọ Đông B", "Hà Nội"),
+                        branch("Trọ Đông A", "Hà Nội")
+                ),
+                BranchSearchText.tokens("dong"),
+                3
+        );
+
+        assertEquals(List.of("Trọ Đông", "Trọ Đông A", "Trọ Đông B"), ranked.stream().map(BranchEntity::getName).toList());
+    }
+
+    private static BranchEntity branch(String name, String district) {
+        return BranchEntity.builder()
+                .name(name)
+                .address(AddressEntity.builder().district(district).build())
+                .build();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.demo.service.emailService.batch;
+
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * So sánh gửi 1 phiên SMTP / mail với {@link BatchMailSender} (1 phiên / nhóm)
+ * trên 1 SMTP server giả chạy trong process (greeting trễ = chi phí connect + STARTTLS + AUTH).
+ *
+ * Chạy: mvn test -Dtest=BatchMailSenderBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BatchMailSenderBenchmarkTest {
+
+    private static final int MESSAGES = 200;
+    private static final int HANDSHAKE_MILLIS = 40;
+
+    private FakeSmtpServer server;
+    private JavaMailSenderImpl mailSender;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new FakeSmtpServer(HANDSHAKE_MILLIS);
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(server.port());
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void batchedSendingReusesConnections() throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            mailSender.send(message(i));
+        }
+        long perMailMillis = (System.nanoTime() - start) / 1_000_000;
+        int perMailConnections = server.connections.getAndSet(0);
+
+        BatchMailSender batchSender = new BatchMailSender(mailSender, 50);
+        Map<Integer, MimeMessage> outgoing = new LinkedHashMap<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            outgoing.put(i, message(i));
+        }
+
+        start = System.nanoTime();
+        Map<Integer, Exception> failed = batchSender.send(outgoing);
+        long batchedMillis = (System.nanoTime() - start) / 1_000_000;
+        BatchMailSender.Stats stats = batchSender.stats();
+
+        System.out.println("mode        | connections | total ms | mails/sec");
+        System.out.printf("per-mail    | %11d | %8d | %9.1f%n",
+                perMailConnections, perMailMillis, MESSAGES * 1000.0 / Math.max(1, perMailMillis));
+        System.out.printf("batched(50) | %11d | %8d | %9.1f%n",
+                server.connections.get(), batchedMillis, MESSAGES * 1000.0 / Math.max(1, batchedMillis));
+        System.out.printf("batch latency avg=%.1fms max=%dms%n", stats.avgBatchMillis(), stats.maxBatchMillis());
+
+        assertTrue(failed.isEmpty());
+        assertEquals(MESSAGES * 2, server.delivered.get());
+        assertEquals(MESSAGES / 50, server.connections.get());
+    }
+
+    private MimeMessage message(int i) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom("bench@example.com");
+        helper.setTo("user" + i + "@example.com");
+        helper.setSubject("Mã OTP #" + i);
+        helper.setText("<p>OTP: " + (100000 + i) + "</p>", true);
+        return message;
+    }
+
+    /**
+     * SMTP tối giản: đủ lệnh cho JavaMail (EHLO, MAIL, RCPT, DATA, RSET, NOOP, QUIT), không TLS / AUTH.
+     */
+    static class FakeSmtpServer implements AutoCloseable {
+
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger delivered = new AtomicInteger();
+
+        private final ServerSocket serverSocket;
+        private final int handshakeMillis;
+
+        FakeSmtpServer(int handshakeMillis) throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            this.handshakeMillis = handshakeMillis;
+            Thread acceptor = new Thread(this::acceptLoop, "fake-smtp");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread session = new Thread(() -> serve(socket), "fake-smtp-session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            connections.incrementAndGet();
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 OutputStream out = socket.getOutputStream()) {
+
+                Thread.sleep(handshakeMillis);
+                reply(out, "220 localhost ESMTP fake");
+
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                    switch (command) {
+                        case "EHLO", "HELO" -> reply(out, "250 localhost");
+                        case "DATA" -> {
+                            reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                            while ((line = in.readLine()) != null && !line.equals(".")) {
+                                // bỏ qua nội dung
+                            }
+                            delivered.incrementAndGet();
+                            reply(out, "250 OK queued");
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 Bye");
+                            return;
+                        }
+                        default -> reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException | InterruptedException ignored) {
+                // client đóng kết nối
+            }
+        }
+
+        private static void reply(OutputStream out, String line) throws IOException {
+            out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.demo.service.emailService.batch;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ánh xạ lỗi từng mail trong nhóm và chính sách thử lại của {@link BatchMailSender}.
+ */
+class BatchMailSenderTest {
+
+    private final Session session = Session.getInstance(new Properties());
+    private ScriptedMailSender mailSender;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = new ScriptedMailSender();
+    }
+
+    // =========================
+    // 📦 GROUPING
+    // =========================
+    @Test
+    void allSent_oneSessionPerGroup() {
+        BatchMailSender sender = new BatchMailSender(mailSender, 2);
+        Map<String, MimeMessage> outgoing = messages("a", "b", "c", "d", "e");
+
+        Map<String, Exception> failed = sender.send(outgoing);
+
+        assertTrue(failed.isEmpty());
+        assertEquals(List.of(2, 2, 1), mailSender.sessions.stream().map(List::size).toList());
+        assertSame(outgoing.get("a"), mailSender.sessions.get(0).get(0));
+        assertEquals(3, sender.stats().batches());
+        assertEquals(5, sender.stats().messages());
+    }
+
+    // =========================
+    // ❗ PARTIAL FAILURE
+    // =========================
+    @Test
+    void partialFailure_mapsBackToCallerKeys() {
+        BatchMailSender sender = new BatchMailSender(mailSender, 25);
+        Map<String, MimeMessage> outgoing = messages("a", "b", "c");
+        SendFailedException rejected = new SendFailedException("550 mailbox unavailable");
+        mailSender.script.add(batch -> {
+            throw failedMessages(Map.of(outgoing.get("b"), rejected));
+        });
+
+        Map<String, Exception> failed = sender.send(outgoing);
+
+        assertEquals(Map.of("b", rejected), failed);
+        assertEquals(1, sender.stats().failures());
+    }
+
+    @Test
+    void recipientRejected_isNotRetried() {
+        BatchMailSender sender = new BatchMailSender(mailSender, 25);
+        Map<String, MimeMessage> outgoing = messages("a", "b");
+        mailSender.script.add(batch -> {
+            throw failedMessages(Map.of(outgoing.get("a"), new SendFailedException("550 no such user")));
+        });
+
+        Map<String, Exception> failed = sender.send(outgoing);
+
+        assertInstanceOf(SendFailedException.class, failed.get("a"));
+        assertEquals(1, mailSender.sessions.size());
+        assertEquals(0, sender.stats().retries());
+    }
+
+    // =========================
+    // 🔁 RETRY
+    // =========================
+    @Test
+    void connectionError_isRetriedOnceOnNewSession() {
+        BatchMailSender sender = new BatchMailSender(mailSender, 25);
+        Map<String, MimeMessage> outgoing = messages("a", "b", "c");
+        mailSender.script.add(batch -> {
+            throw failedMessages(Map.of(
+                    outgoing.get("b"), new MessagingException("Connection reset"),
+                    outgoing.get("c"), new SendFailedException("550 no such user")
+            ));
+        });
+
+        Map<String, Exception> failed = sender.send(outgoing);
+
+        // b đi lại trên phiên mới, c bị từ chối thì thôi
+        assertEquals(Set.of("c"), failed.keySet());
+        assertEquals(List.of(outgoing.get("b")), mailSender.sessions.get(1));
+        assertEquals(2, mailSender.sessions.size());
+        assertEquals(1, sender.stats().retries());
+    }
+
+    @Test
+    void retryFailingAgain_reportsSecondError_withoutThirdAttempt() {
+        BatchMailSender sender = new BatchMailSender(mailSender, 25);
+        Map<String, MimeMessage> outgoing = messages("a");
+        MessagingException second = new MessagingException("Read timed out");
+        mailSender.script.add(batch -> {
+            throw failedMessages(Map.of(outgoing.get("a"), new MessagingException("Connection reset")));
+        });
+        mailSender.script.add(batch -> {
+            throw failedMessages(Map.of(outgoing.get("a"), second));
+        });
+
+        Map<String, Exception> failed = sender.send(outgoing);
+
+        assertSame(second, failed.get("a"));
+        assertEquals(2, mailSender.sessions.size());
+    }
+
+    @Test
+    void failureWithoutPerMessageDetail_failsWholeGroup() {
+        BatchMailSender sender = new BatchMailSender(mailSender, 25);
+        Map<String, MimeMessage> outgoing = messages("a", "b");
+        mailSender.script.add(batch -> {
+            throw new MailSendException("Connection refused");
+        });
+        mailSender.script.add(batch -> {
+            throw new MailSendException("Connection refused");
+        });
+
+        Map<String, Exception> failed = sender.send(outgoing);
+
+        assertEquals(Set.of("a", "b"), failed.keySet());
+        assertEquals(2, mailSender.sessions.size());
+    }
+
+    @Test
+    void authFailure_failsWholeGroup_withoutRetry() {
+        BatchMailSender sender = new BatchMailSender(mailSender, 25);
+        Map<String, MimeMessage> outgoing = messages("a", "b");
+        mailSender.script.add(batch -> {
+            throw new MailAuthenticationException("535 bad credentials");
+        });
+
+        Map<String, Exception> failed = sender.send(outgoing);
+
+        assertEquals(2, failed.size());
+        failed.values().forEach(e -> assertInstanceOf(MailAuthenticationException.class, e));
+        assertEquals(1, mailSender.sessions.size());
+    }
+
+    // =========================
+    // 🧰 HELPERS
+    // =========================
+    private Map<String, MimeMessage> messages(String... keys) {
+        Map<String, MimeMessage> messages = new LinkedHashMap<>();
+        for (String key : keys) {
+            messages.put(key, new MimeMessage(session));
+        }
+        return messages;
+    }
+
+    private static MailSendException failedMessages(Map<MimeMessage, Exception> failed) {
+        return new MailSendException(new LinkedHashMap<>(failed));
+    }
+
+    /**
+     * Mỗi lần send = 1 phiên SMTP; lần thứ n chạy bước thứ n của script (hết script = gửi được hết).
+     */
+    private static class ScriptedMailSender extends JavaMailSenderImpl {
+
+        private final List<List<MimeMessage>> sessions = new ArrayList<>();
+        private final Deque<Consumer<MimeMessage[]>> script = new ArrayDeque<>();
+
+        @Override
+        public void send(MimeMessage... mimeMessages) {
+            sessions.add(List.of(mimeMessages));
+            Consumer<MimeMessage[]> step = script.poll();
+            if (step != null) {
+                step.accept(mimeMessages);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.service.emailService.template;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Nạp template trong classpath:templates/mail/, chọn bản theo ngôn ngữ và tách Subject từ bản text.
+ */
+class MailTemplateRegistryTest {
+
+    private static final String LINK = "https://trosmart.vn/verify?token=a1&next=<home>";
+    private static final String ESCAPED_LINK = "https://trosmart.vn/verify?token=a1&amp;next=&lt;home&gt;";
+
+    private MailTemplateRegistry registry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        registry = new MailTemplateRegistry();
+        ReflectionTestUtils.setField(registry, "defaultLanguage", "vi");
+        registry.load();
+    }
+
+    // =========================
+    // 🖨️ RENDER
+    // =========================
+    @Test
+    void render_escapesHtmlPart_butNotTextPart() {
+        MailTemplateRegistry.RenderedMail mail = registry.render("verify-email", null, Map.of("verifyLink", LINK));
+
+        assertTrue(mail.html().contains(ESCAPED_LINK), mail.html());
+        assertFalse(mail.html().contains(LINK));
+        assertTrue(mail.text().contains(LINK), mail.text());
+        assertFalse(mail.text().contains("&amp;"));
+    }
+
+    @Test
+    void render_missingVariable_fails() {
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.render("forgot-password-otp", null, Map.of("verifyLink", LINK)));
+    }
+
+    @Test
+    void render_unknownTemplate_fails() {
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.render("no-such-mail", null, Map.of()));
+    }
+
+    // =========================
+    // 🌐 LOCALE
+    // =========================
+    @Test
+    void locale_picksLocalizedTemplate() {
+        MailTemplateRegistry.RenderedMail mail =
+                registry.render("verify-email", Locale.ENGLISH, Map.of("verifyLink", LINK));
+
+        assertEquals("Confirm your email", mail.subject());
+        assertTrue(mail.text().startsWith("Hello,"), mail.text());
+    }
+
+    @Test
+    void locale_withoutLocalizedTemplate_fallsBackToDefault() {
+        for (Locale locale : List.of(Locale.FRENCH, Locale.forLanguageTag("vi"), Locale.ROOT)) {
+            MailTemplateRegistry.RenderedMail mail =
+                    registry.render("verify-email", locale, Map.of("verifyLink", LINK));
+
+            assertEquals("Xác nhận email", mail.subject(), String.valueOf(locale));
+        }
+    }
+
+    @Test
+    void locale_regionIsIgnored() {
+        MailTemplateRegistry.RenderedMail mail =
+                registry.render("forgot-password-otp", Locale.US, Map.of("otp", "123456"));
+
+        assertEquals("Your password reset OTP", mail.subject());
+    }
+
+    // =========================
+    // 🧩 SUBJECT LINE
+    // =========================
+    @Test
+    void compile_takesSubjectFromFirstLine_andStripsBlankLine() {
+        MailTemplateRegistry.Compiled compiled = MailTemplateRegistry.compile(
+                "otp", "<p>{{otp}}</p>", "Subject:  Mã OTP \n\nMã của bạn: {{otp}}\n");
+
+        assertEquals("Mã OTP", compiled.subject());
+        assertEquals("Mã của bạn: 1\n", compiled.text().render(Map.of("otp", "1"), UnaryOperator.identity()));
+    }
+
+    @Test
+    void compile_subjectOnly_hasEmptyBody() {
+        MailTemplateRegistry.Compiled compiled = MailTemplateRegistry.compile("otp", "<p></p>", "Subject: Hi");
+
+        assertEquals("Hi", compiled.subject());
+        assertEquals("", compiled.text().render(Map.of(), UnaryOperator.identity()));
+    }
+
+    @Test
+    void compile_textWithoutSubjectLine_fails() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> MailTemplateRegistry.compile("otp", "<p>{{otp}}</p>", "Mã của bạn: {{otp}}\n"));
+
+        assertTrue(e.getMessage().contains("otp.txt"), e.getMessage());
+    }
+}
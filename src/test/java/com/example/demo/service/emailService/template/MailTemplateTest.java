@@ -0,0 +1,76 @@
+package com.example.demo.service.emailService.template;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Biên dịch {@link MailTemplate} thành đoạn tĩnh / biến và render lại.
+ */
+class MailTemplateTest {
+
+    // =========================
+    // 🧩 COMPILE
+    // =========================
+    @Test
+    void compile_splitsStaticsAndVariables() {
+        MailTemplate template = MailTemplate.compile("t", "Hi {{ name }}, code {{otp}}.");
+
+        assertEquals(List.of("name", "otp"), template.variables());
+        assertEquals("Hi An, code 123456.",
+                template.render(Map.of("name", "An", "otp", "123456"), UnaryOperator.identity()));
+    }
+
+    @Test
+    void compile_variableAtEdgesAndRepeated() {
+        MailTemplate template = MailTemplate.compile("t", "{{a}}-{{a}}{{b}}");
+
+        assertEquals(List.of("a", "a", "b"), template.variables());
+        assertEquals("x-xy", template.render(Map.of("a", "x", "b", "y"), UnaryOperator.identity()));
+    }
+
+    @Test
+    void compile_withoutVariables_rendersSourceAsIs() {
+        MailTemplate template = MailTemplate.compile("t", "static only { not a var }");
+
+        assertTrue(template.variables().isEmpty());
+        assertEquals("static only { not a var }", template.render(Map.of(), UnaryOperator.identity()));
+    }
+
+    @Test
+    void compile_unclosedVariable_fails() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> MailTemplate.compile("broken.html", "Hi {{name"));
+
+        assertTrue(e.getMessage().contains("broken.html"));
+    }
+
+    // =========================
+    // 🖨️ RENDER
+    // =========================
+    @Test
+    void render_missingVariable_fails() {
+        MailTemplate template = MailTemplate.compile("verify.txt", "Link: {{verifyLink}}");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> template.render(Map.of("other", "x"), UnaryOperator.identity()));
+
+        assertTrue(e.getMessage().contains("verifyLink"));
+        assertTrue(e.getMessage().contains("verify.txt"));
+    }
+
+    @Test
+    void render_appliesEscaperToValuesOnly() {
+        MailTemplate template = MailTemplate.compile("t", "<a href=\"{{link}}\">go</a>");
+
+        assertEquals("<a href=\"https://x/?a=1&amp;b=&lt;2&gt;\">go</a>",
+                template.render(Map.of("link", "https://x/?a=1&b=<2>"), HtmlUtils::htmlEscape));
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.service.passwordService;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Benchmark BCrypt theo từng cost (hashes/sec trên 1 core).
+ *
+ * Chạy: mvn test -Dtest=PasswordHashCostBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PasswordHashCostBenchmarkTest {
+
+    @Test
+    void reportHashesPerSecondPerCore() {
+        List<PinnedCostPasswordEncoder.CostBenchmark> results =
+                PinnedCostPasswordEncoder.benchmark(8, 15, 5, Duration.ofSeconds(5));
+
+        System.out.println("cost | ms/hash | hashes/sec/core");
+        results.forEach(r -> System.out.printf("%4d | %7d | %15.1f%n",
+                r.cost(), r.millisPerHash(), r.hashesPerSecondPerCore()));
+
+        assertFalse(results.isEmpty());
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo.service.passwordService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rehash trong nền của {@link PasswordHashingService}: chỉ nâng cost, không chặn request,
+ * bỏ qua khi pool đang bận.
+ */
+class PasswordHashingServiceTest {
+
+    private static final String PASSWORD = "Passw0rd!";
+
+    private PasswordHashingService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    // =========================
+    // 🔁 REHASH
+    // =========================
+    @Test
+    void lowerCostHash_isRehashedAtCurrentCost() throws Exception {
+        PinnedCostPasswordEncoder encoder = new PinnedCostPasswordEncoder(5);
+        service = new PasswordHashingService(encoder, 1, 16, 10_000, 1);
+        List<String> written = new CopyOnWriteArrayList<>();
+
+        service.rehashInBackground(PASSWORD, new BCryptPasswordEncoder(4).encode(PASSWORD), written::add);
+        awaitUntil(() -> service.stats().rehashed() == 1);
+
+        assertEquals(1, written.size());
+        assertTrue(written.get(0).startsWith("$2a$05$"), written.get(0));
+        assertTrue(encoder.matches(PASSWORD, written.get(0)));
+    }
+
+    @Test
+    void currentOrHigherCostHash_isLeftAlone() {
+        PinnedCostPasswordEncoder encoder = new PinnedCostPasswordEncoder(5);
+        service = new PasswordHashingService(encoder, 1, 16, 10_000, 1);
+        List<String> written = new CopyOnWriteArrayList<>();
+
+        service.rehashInBackground(PASSWORD, encoder.encode(PASSWORD), written::add);
+        service.rehashInBackground(PASSWORD, new BCryptPasswordEncoder(6).encode(PASSWORD), written::add);
+        // Cùng 1 worker, FIFO → encode xong thì rehash (nếu có) cũng đã chạy xong
+        service.encode(PASSWORD);
+
+        assertTrue(written.isEmpty());
+        assertEquals(0, service.stats().rehashed());
+    }
+
+    @Test
+    void writerFailure_isSwallowed() throws Exception {
+        service = new PasswordHashingService(new PinnedCostPasswordEncoder(5), 1, 16, 10_000, 1);
+        CountDownLatch attempted = new CountDownLatch(1);
+
+        service.rehashInBackground(PASSWORD, new BCryptPasswordEncoder(4).encode(PASSWORD), hash -> {
+            attempted.countDown();
+            throw new IllegalStateException("mongo down");
+        });
+
+        assertTrue(attempted.await(5, TimeUnit.SECONDS));
+        // Worker vẫn sống, request sau chạy bình thường
+        assertTrue(service.matches(PASSWORD, service.encode(PASSWORD)));
+        assertEquals(0, service.stats().rehashed());
+    }
+
+    @Test
+    void busyPool_skipsRehash_onceQueueIsHalfFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.upgradeEncoding(anyString())).thenReturn(true);
+        when(encoder.encode(any())).thenAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "new-hash";
+        });
+        service = new PasswordHashingService(encoder, 1, 4, 10_000, 1);
+        List<String> written = new CopyOnWriteArrayList<>();
+
+        service.rehashInBackground(PASSWORD, "old-hash", written::add);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // Worker bận → 3 task vào queue (tới khi queue > capacity/2), task thứ 5 bị bỏ qua
+        for (int i = 0; i < 4; i++) {
+            service.rehashInBackground(PASSWORD, "old-hash", written::add);
+        }
+        assertEquals(3, service.stats().queued());
+
+        release.countDown();
+        awaitUntil(() -> service.stats().rehashed() == 4);
+        assertEquals(4, written.size());
+    }
+
+    // =========================
+    // 🧰 HELPERS
+    // =========================
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met within 5s");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.service.passwordService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link PinnedCostPasswordEncoder#upgradeEncoding}: chỉ nâng cost, không bao giờ hạ.
+ */
+class PinnedCostPasswordEncoderTest {
+
+    private static final String PASSWORD = "Passw0rd!";
+
+    private final PinnedCostPasswordEncoder encoder = new PinnedCostPasswordEncoder(5);
+
+    @Test
+    void lowerCostHash_isUpgraded() {
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode(PASSWORD)));
+    }
+
+    @Test
+    void currentCostHash_isNotUpgraded() {
+        assertFalse(encoder.upgradeEncoding(encoder.encode(PASSWORD)));
+    }
+
+    @Test
+    void higherCostHash_isNeverDowngraded() {
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode(PASSWORD)));
+    }
+
+    @Test
+    void nullOrNonBcryptHash_isNotUpgraded() {
+        assertFalse(encoder.upgradeEncoding(null));
+        assertFalse(encoder.upgradeEncoding(""));
+        assertFalse(encoder.upgradeEncoding("{noop}" + PASSWORD));
+    }
+
+    @Test
+    void matches_acceptsHashesOfAnyCost() {
+        assertTrue(encoder.matches(PASSWORD, new BCryptPasswordEncoder(4).encode(PASSWORD)));
+        assertTrue(encoder.matches(PASSWORD, encoder.encode(PASSWORD)));
+        assertFalse(encoder.matches("wrong", encoder.encode(PASSWORD)));
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.service.redisConfig.rate_limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Giữ / dọn bucket của {@link LocalRateLimitTier} khi có request bị chặn local.
+ */
+class LocalRateLimitTierTest {
+
+    // Rule nhỏ: 1 token, gần như không hồi → request thứ 2 luôn bị chặn
+    private static final double CAPACITY = 1;
+    private static final double REFILL_PER_SECOND = 0.001;
+
+    // =========================
+    // 🧹 EVICTION
+    // =========================
+    @Test
+    void rejectedBucket_withoutReconciler_isEvictedWhenIdle() throws Exception {
+        LocalRateLimitTier tier = tier(100);
+
+        assertEquals(0, acquire(tier, "rule:login", "a"));
+        assertTrue(acquire(tier, "rule:login", "a") > 0);
+        idle();
+
+        tier.reconcile();
+
+        assertEquals(0, tier.stats().trackedKeys());
+        assertEquals(1, tier.stats().localRejects());
+    }
+
+    @Test
+    void fullMap_ofRejectedBucketsWithoutReconciler_stillTracksNewIdentifiers() throws Exception {
+        LocalRateLimitTier tier = tier(2);
+        for (String id : List.of("a", "b")) {
+            acquire(tier, "rule:login", id);
+            acquire(tier, "rule:login", id);
+        }
+        idle();
+
+        acquire(tier, "rule:login", "c");
+
+        assertEquals(1, tier.stats().trackedKeys());
+        assertEquals(0, tier.stats().untrackedKeys());
+    }
+
+    @Test
+    void rejectedBucket_withReconciler_isKeptUntilRejectsArePushed() throws Exception {
+        LocalRateLimitTier tier = tier(100);
+        List<long[]> pushed = new ArrayList<>();
+        tier.registerReconciler("login", (ids, rejects) -> {
+            pushed.add(rejects.clone());
+            return new long[ids.size()];
+        });
+
+        acquire(tier, "login", "a");
+        acquire(tier, "login", "a");
+        acquire(tier, "login", "a");
+        idle();
+
+        tier.reconcile();
+
+        assertEquals(1, pushed.size());
+        assertArrayEquals(new long[]{2}, pushed.get(0));
+        assertEquals(0, tier.stats().trackedKeys());
+    }
+
+    @Test
+    void reconcileFailure_keepsBucketAndRejectsForNextRound() throws Exception {
+        LocalRateLimitTier tier = tier(100);
+        AtomicBoolean redisDown = new AtomicBoolean(true);
+        List<long[]> pushed = new ArrayList<>();
+        tier.registerReconciler("login", (ids, rejects) -> {
+            if (redisDown.get()) {
+                throw new IllegalStateException("redis down");
+            }
+            pushed.add(rejects.clone());
+            return new long[ids.size()];
+        });
+
+        acquire(tier, "login", "a");
+        acquire(tier, "login", "a");
+        idle();
+
+        tier.reconcile();
+        assertEquals(1, tier.stats().trackedKeys());
+
+        redisDown.set(false);
+        tier.reconcile();
+
+        assertArrayEquals(new long[]{1}, pushed.get(0));
+        assertEquals(0, tier.stats().trackedKeys());
+    }
+
+    @Test
+    void blockedBucket_isKeptWhileBlocked() throws Exception {
+        LocalRateLimitTier tier = tier(100);
+
+        tier.block("rule:login", "a", 60);
+        idle();
+        tier.reconcile();
+
+        assertEquals(1, tier.stats().trackedKeys());
+        assertTrue(acquire(tier, "rule:login", "a") > 0);
+    }
+
+    // =========================
+    // 🧰 HELPERS
+    // =========================
+    private static LocalRateLimitTier tier(int maxEntries) {
+        // idle-seconds = 0 → bucket nào không được chạm tới sau 1ms đều coi là idle
+        return new LocalRateLimitTier(CAPACITY, REFILL_PER_SECOND, maxEntries, 0);
+    }
+
+    private static long acquire(LocalRateLimitTier tier, String scope, String identifier) {
+        return tier.tryAcquire(scope, identifier, CAPACITY, REFILL_PER_SECOND);
+    }
+
+    private static void idle() throws InterruptedException {
+        Thread.sleep(5);
+    }
+}
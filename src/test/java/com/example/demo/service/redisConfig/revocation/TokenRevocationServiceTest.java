@@ -0,0 +1,173 @@
+package com.example.demo.service.redisConfig.revocation;
+
+import com.example.demo.service.redisConfig.token.RefreshTokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Thu hồi theo epoch của {@link TokenRevocationService}: so với iat (giây) của JWT,
+ * đồng bộ giữa các node qua keyspace notification.
+ */
+class TokenRevocationServiceTest {
+
+    private static final String USER = "user-1";
+    private static final String KEY = "revoke:epoch:" + USER;
+    private static final long ACCESS_TTL_MILLIS = 15 * 60 * 1000;
+
+    private ValueOperations<String, String> values;
+    private RefreshTokenService refreshTokens;
+    private TokenRevocationService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        values = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        refreshTokens = mock(RefreshTokenService.class);
+
+        service = new TokenRevocationService(redis, mock(RedisMessageListenerContainer.class), refreshTokens);
+        ReflectionTestUtils.setField(service, "accessTokenExpirationMillis", ACCESS_TTL_MILLIS);
+    }
+
+    // =========================
+    // 🚫 REVOKE ALL
+    // =========================
+    @Test
+    void revokeAll_writesEpochWithAccessTtl_andDropsRefreshTokens() {
+        service.revokeAll(USER);
+
+        long epoch = storedEpoch();
+        assertEquals(Instant.now().getEpochSecond(), epoch, 1);
+        verify(refreshTokens).delete(USER);
+    }
+
+    @Test
+    void revokeAll_rejectsTokensIssuedInEarlierSeconds() {
+        service.revokeAll(USER);
+        long epoch = storedEpoch();
+
+        assertTrue(service.isRevoked(USER, Instant.ofEpochSecond(epoch - 1)));
+        assertTrue(service.isRevoked(USER, Instant.ofEpochSecond(epoch - 600)));
+    }
+
+    @Test
+    void tokenIssuedInSameSecondAsRevoke_staysValid() {
+        service.revokeAll(USER);
+        long epoch = storedEpoch();
+
+        // Reset mật khẩu rồi đăng nhập lại ngay: iat (giây) trùng epoch
+        assertFalse(service.isRevoked(USER, Instant.ofEpochSecond(epoch)));
+        assertFalse(service.isRevoked(USER, Instant.ofEpochSecond(epoch + 1)));
+    }
+
+    @Test
+    void isRevoked_unknownUserOrMissingClaims_isFalse() {
+        service.revokeAll(USER);
+
+        assertFalse(service.isRevoked("other", Instant.EPOCH));
+        assertFalse(service.isRevoked(null, Instant.EPOCH));
+        assertFalse(service.isRevoked(USER, null));
+    }
+
+    @Test
+    void revokeAll_nullUser_isNoop() {
+        service.revokeAll(null);
+
+        verify(refreshTokens, never()).delete(null);
+    }
+
+    // =========================
+    // 📡 KEYSPACE EVENTS
+    // =========================
+    @Test
+    void setEvent_fromOtherNode_loadsEpoch() {
+        when(values.get(KEY)).thenReturn("2000");
+
+        keyspace(KEY, "set");
+
+        assertTrue(service.isRevoked(USER, Instant.ofEpochSecond(1999)));
+        assertFalse(service.isRevoked(USER, Instant.ofEpochSecond(2000)));
+    }
+
+    @Test
+    void setEvent_neverMovesEpochBackwards() {
+        when(values.get(KEY)).thenReturn("2000");
+        keyspace(KEY, "set");
+
+        when(values.get(KEY)).thenReturn("1000");
+        keyspace(KEY, "set");
+
+        assertTrue(service.isRevoked(USER, Instant.ofEpochSecond(1500)));
+    }
+
+    @Test
+    void setEvent_keyAlreadyGone_dropsEpoch() {
+        when(values.get(KEY)).thenReturn("2000");
+        keyspace(KEY, "set");
+
+        when(values.get(KEY)).thenReturn(null);
+        keyspace(KEY, "set");
+
+        assertFalse(service.isRevoked(USER, Instant.ofEpochSecond(1)));
+    }
+
+    @Test
+    void expiredAndDelEvents_dropEpoch() {
+        when(values.get(KEY)).thenReturn("2000");
+
+        keyspace(KEY, "set");
+        keyspace(KEY, "expired");
+        assertFalse(service.isRevoked(USER, Instant.ofEpochSecond(1)));
+
+        keyspace(KEY, "set");
+        keyspace(KEY, "del");
+        assertFalse(service.isRevoked(USER, Instant.ofEpochSecond(1)));
+    }
+
+    @Test
+    void unrelatedEvents_areIgnored() {
+        when(values.get(KEY)).thenReturn("2000");
+        keyspace(KEY, "set");
+
+        keyspace(KEY, "expire");
+        keyspace("refresh:" + USER, "del");
+
+        assertTrue(service.isRevoked(USER, Instant.ofEpochSecond(1)));
+    }
+
+    // =========================
+    // 🧰 HELPERS
+    // =========================
+    private long storedEpoch() {
+        ArgumentCaptor<String> value = ArgumentCaptor.forClass(String.class);
+        verify(values).set(eq(KEY), value.capture(), eq(Duration.ofMillis(ACCESS_TTL_MILLIS)));
+        return Long.parseLong(value.getValue());
+    }
+
+    private void keyspace(String key, String event) {
+        service.onMessage(new DefaultMessage(
+                ("__keyspace@0__:" + key).getBytes(StandardCharsets.UTF_8),
+                event.getBytes(StandardCharsets.UTF_8)
+        ), null);
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.demo.service.user;
+
+import com.example.demo.domain.dto.req.ChangePasswordReq;
+import com.example.demo.domain.dto.req.UpdateUserReq;
+import com.example.demo.domain.dto.res.UserResponse;
+import com.example.demo.domain.entities.UserCredential;
+import com.example.demo.domain.entities.UserEntity;
+import com.example.demo.domain.enums.Role;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.exception.CommonError;
+import com.example.demo.service.passwordService.PasswordHashingService;
+import com.example.demo.service.passwordService.PinnedCostPasswordEncoder;
+import com.example.demo.service.redisConfig.cache.CacheInvalidationBus;
+import com.example.demo.service.user.repository.IUserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Update có điều kiện của {@link UserServiceImpl}: verify email 1 lần,
+ * đổi mật khẩu theo expected hash, @Version (kể cả document cũ chưa có version).
+ */
+class UserServiceImplAtomicUpdateTest {
+
+    private static final String ID = "u1";
+
+    private PasswordHashingService passwordHashing;
+    private PinnedCostPasswordEncoder encoder;
+    private ConditionalUserRepository repository;
+    private List<String> evicted;
+    private UserServiceImpl userService;
+
+    @BeforeEach
+    void setUp() {
+        encoder = new PinnedCostPasswordEncoder(4);
+        passwordHashing = new PasswordHashingService(encoder, 2, 16, 10_000, 1);
+        repository = new ConditionalUserRepository();
+        evicted = new ArrayList<>();
+
+        CacheInvalidationBus bus = new CacheInvalidationBus(null, null) {
+            @Override
+            public void publish(String cacheName, String key) {
+                evicted.add(key);
+            }
+        };
+        UserProfileCache profileCache = new UserProfileCache(bus, 100, 60);
+        userService = new UserServiceImpl(repository, passwordHashing, null, profileCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashing.shutdown();
+    }
+
+    // =========================
+    // ✅ VERIFY EMAIL
+    // =========================
+    @Test
+    void verifyEmail_secondCallIsNoOp() {
+        repository.put(user(null));
+
+        userService.verifyEmail(ID);
+        userService.verifyEmail(ID);
+
+        assertTrue(repository.get().isEmailVerified());
+        assertEquals(1L, repository.get().getVersion());
+        // Chỉ lần đổi false → true mới xoá cache
+        assertEquals(List.of(ID), evicted);
+    }
+
+    // =========================
+    // 🔑 CHANGE PASSWORD
+    // =========================
+    @Test
+    void changePassword_hashChangedConcurrently_returnsConflict() {
+        repository.put(user(0L).toBuilder().password(encoder.encode("OldPassw0rd")).build());
+        // Request khác đổi mật khẩu giữa lúc đọc và lúc ghi
+        repository.beforePasswordUpdate = () -> repository.get().setPassword("changed-by-other-request");
+
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> userService.changePassword(ID, new ChangePasswordReq("OldPassw0rd", "NewPassw0rd1"))
+        );
+
+        assertEquals(CommonError.CONFLICT, ex.getError());
+        assertEquals("changed-by-other-request", repository.get().getPassword());
+        assertTrue(evicted.isEmpty());
+    }
+
+    // =========================
+    // ✏️ PROFILE (@Version)
+    // =========================
+    @Test
+    void updateUser_staleVersion_returnsConflict() {
+        repository.put(user(2L));
+
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> userService.updateUser(ID, UpdateUserReq.builder().username("renamed").version(1L).build())
+        );
+
+        assertEquals(CommonError.CONFLICT, ex.getError());
+        assertEquals("original", repository.get().getUsername());
+    }
+
+    @Test
+    void updateUser_matchingVersion_appliesAndIncrements() {
+        repository.put(user(2L));
+
+        UserResponse response = userService.updateUser(
+                ID, UpdateUserReq.builder().username("Renamed").version(2L).build()
+        );
+
+        assertEquals("renamed", response.getUsername());
+        assertEquals(3L, response.getVersion());
+    }
+
+    @Test
+    void updateUser_legacyDocumentWithoutVersion_lastWriteWinsThenVersioned() {
+        repository.put(user(null));
+
+        UserResponse first = userService.updateUser(ID, UpdateUserReq.builder().username("first").build());
+        assertEquals(1L, first.getVersion());
+
+        // Client giữ version vừa nhận → lần sau được kiểm tra
+        assertThrows(
+                BusinessException.class,
+                () -> userService.updateUser(ID, UpdateUserReq.builder().username("stale").version(0L).build())
+        );
+        assertEquals("first", repository.get().getUsername());
+    }
+
+    // =========================
+    // 🧰 HELPERS
+    // =========================
+    private static UserEntity user(Long version) {
+        return UserEntity.builder()
+                .id(ID)
+                .username("original")
+                .email("user@example.com")
+                .password("hash")
+                .year(1990)
+                .role(Role.USER)
+                .version(version)
+                .build();
+    }
+
+    /**
+     * 1 user, mô phỏng điều kiện của các update $set trong UserRepositoryImpl.
+     */
+    private static class ConditionalUserRepository implements IUserRepository {
+
+        private final Map<String, UserEntity> byId = new ConcurrentHashMap<>();
+        private Runnable beforePasswordUpdate = () -> { };
+
+        void put(UserEntity user) {
+            byId.put(user.getId(), user);
+        }
+
+        UserEntity get() {
+            return byId.get(ID);
+        }
+
+        @Override
+        public synchronized boolean markEmailVerified(String id) {
+            UserEntity user = byId.get(id);
+            if (user == null || user.isEmailVerified()) {
+                return false;
+            }
+            user.setEmailVerified(true);
+            bumpVersion(user);
+            return true;
+        }
+
+        @Override
+        public synchronized boolean updatePassword(String id, String expectedHash, String newHash) {
+            beforePasswordUpdate.run();
+            UserEntity user = byId.get(id);
+            if (user == null || !Objects.equals(user.getPassword(), expectedHash)) {
+                return false;
+            }
+            user.setPassword(newHash);
+            bumpVersion(user);
+            return true;
+        }
+
+        @Override
+        public synchronized Optional<UserEntity> updateProfile(String id, String username, Integer year, Long expectedVersion) {
+            UserEntity user = byId.get(id);
+            if (user == null) {
+                return Optional.empty();
+            }
+            if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+                throw new OptimisticLockingFailureException("User " + id + " was modified concurrently");
+            }
+            if (username != null) {
+                user.setUsername(username);
+            }
+            if (year != null) {
+                user.setYear(year);
+            }
+            bumpVersion(user);
+            return Optional.of(user.toBuilder().build());
+        }
+
+        // $inc trên field chưa có → 1 (document cũ chưa có version)
+        private static void bumpVersion(UserEntity user) {
+            user.setVersion(user.getVersion() == null ? 1L : user.getVersion() + 1);
+        }
+
+        @Override
+        public Optional<UserEntity> findById(String id) {
+            return Optional.ofNullable(byId.get(id)).map(u -> u.toBuilder().build());
+        }
+
+        @Override
+        public UserEntity save(UserEntity user) {
+            byId.put(user.getId(), user);
+            return user;
+        }
+
+        @Override
+        public UserEntity insert(UserEntity user) {
+            return save(user);
+        }
+
+        @Override
+        public List<UserEntity> findAll() {
+            return new ArrayList<>(byId.values());
+        }
+
+        @Override
+        public List<UserEntity> findPageAfter(String afterId, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public void forEach(Consumer<UserEntity> consumer) {
+            byId.values().forEach(consumer);
+        }
+
+        @Override
+        public boolean existsByEmail(String email) {
+            return false;
+        }
+
+        @Override
+        public boolean existsByUsername(String username) {
+            return false;
+        }
+
+        @Override
+        public Optional<UserEntity> findByEmail(String email) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<UserCredential> findCredentialByEmail(String email) {
+            return Optional.empty();
+        }
+
+        @Override
+        public boolean replacePasswordHash(String id, String expectedHash, String newHash) {
+            return false;
+        }
+    }
+}
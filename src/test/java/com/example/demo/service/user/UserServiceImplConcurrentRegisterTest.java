@@ -0,0 +1,242 @@
+package com.example.demo.service.user;
+
+import com.example.demo.domain.dto.req.CreateUserReq;
+import com.example.demo.domain.entities.UserCredential;
+import com.example.demo.domain.entities.UserEntity;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.exception.ErrorDescriptor;
+import com.example.demo.exception.user.UserError;
+import com.example.demo.service.passwordService.PasswordHashingService;
+import com.example.demo.service.passwordService.PinnedCostPasswordEncoder;
+import com.example.demo.service.user.repository.DuplicateUserFieldException;
+import com.example.demo.service.user.repository.IUserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Nhiều request đăng ký trùng email / username chạy song song:
+ * đúng 1 request thành công, còn lại nhận đúng mã lỗi nghiệp vụ.
+ */
+class UserServiceImplConcurrentRegisterTest {
+
+    private static final int THREADS = 16;
+
+    private PasswordHashingService passwordHashing;
+    private InMemoryUserRepository repository;
+    private UserServiceImpl userService;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        passwordHashing = new PasswordHashingService(
+                new PinnedCostPasswordEncoder(4), THREADS, 64, 10_000, 1
+        );
+        repository = new InMemoryUserRepository();
+        userService = new UserServiceImpl(repository, passwordHashing, null, null);
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        passwordHashing.shutdown();
+    }
+
+    @Test
+    void parallelRegistrationsWithSameEmail_onlyOneSucceeds() throws Exception {
+        List<ErrorDescriptor> errors = registerInParallel(i -> request("user" + i, "same@example.com"));
+
+        assertEquals(1, repository.size());
+        assertEquals(THREADS - 1, errors.size());
+        assertTrue(errors.stream().allMatch(e -> e == UserError.EMAIL_NOT_VERIFIED));
+    }
+
+    @Test
+    void parallelRegistrationsWithSameUsername_onlyOneSucceeds() throws Exception {
+        List<ErrorDescriptor> errors = registerInParallel(i -> request("  Same   Name ", "user" + i + "@example.com"));
+
+        assertEquals(1, repository.size());
+        assertEquals(THREADS - 1, errors.size());
+        assertTrue(errors.stream().allMatch(e -> e == UserError.USERNAME_EXISTS));
+    }
+
+    @Test
+    void duplicateOfVerifiedEmail_mapsToEmailExists() {
+        userService.createUser(request("first", "verified@example.com"));
+        repository.markVerified("verified@example.com");
+
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> userService.createUser(request("second", "verified@example.com"))
+        );
+        assertEquals(UserError.EMAIL_EXISTS, ex.getError());
+    }
+
+    // =========================
+    // 🧰 HELPERS
+    // =========================
+    private List<ErrorDescriptor> registerInParallel(IntFunction<CreateUserReq> requests)
+            throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger successes = new AtomicInteger();
+        List<Future<ErrorDescriptor>> futures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            CreateUserReq req = requests.apply(i);
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    userService.createUser(req);
+                    successes.incrementAndGet();
+                    return null;
+                } catch (BusinessException e) {
+                    return e.getError();
+                }
+            }));
+        }
+
+        start.countDown();
+
+        List<ErrorDescriptor> errors = new ArrayList<>();
+        for (Future<ErrorDescriptor> future : futures) {
+            ErrorDescriptor error = future.get();
+            if (error != null) {
+                errors.add(error);
+            }
+        }
+
+        assertEquals(1, successes.get());
+        return errors;
+    }
+
+    private static CreateUserReq request(String username, String email) {
+        return CreateUserReq.builder()
+                .username(username)
+                .email(email)
+                .password("Passw0rd123")
+                .year(1990)
+                .build();
+    }
+
+    /**
+     * Giả lập 2 unique index của collection users.
+     */
+    private static class InMemoryUserRepository implements IUserRepository {
+
+        private final Map<String, UserEntity> byId = new ConcurrentHashMap<>();
+        private final Map<String, String> emailIndex = new ConcurrentHashMap<>();
+        private final Map<String, String> usernameIndex = new ConcurrentHashMap<>();
+
+        @Override
+        public synchronized UserEntity insert(UserEntity user) {
+            if (emailIndex.containsKey(user.getEmail())) {
+                throw new DuplicateUserFieldException(DuplicateUserFieldException.Field.EMAIL, null);
+            }
+            if (usernameIndex.containsKey(user.getUsername())) {
+                throw new DuplicateUserFieldException(DuplicateUserFieldException.Field.USERNAME, null);
+            }
+
+            user.setId(UUID.randomUUID().toString());
+            byId.put(user.getId(), user);
+            emailIndex.put(user.getEmail(), user.getId());
+            usernameIndex.put(user.getUsername(), user.getId());
+            return user;
+        }
+
+        @Override
+        public synchronized UserEntity save(UserEntity user) {
+            byId.put(user.getId(), user);
+            return user;
+        }
+
+        @Override
+        public List<UserEntity> findAll() {
+            return new ArrayList<>(byId.values());
+        }
+
+        @Override
+        public List<UserEntity> findPageAfter(String afterId, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public void forEach(Consumer<UserEntity> consumer) {
+            byId.values().forEach(consumer);
+        }
+
+        @Override
+        public boolean existsByEmail(String email) {
+            return emailIndex.containsKey(email);
+        }
+
+        @Override
+        public boolean existsByUsername(String username) {
+            return usernameIndex.containsKey(username);
+        }
+
+        @Override
+        public Optional<UserEntity> findByEmail(String email) {
+            return Optional.ofNullable(emailIndex.get(email)).map(byId::get);
+        }
+
+        @Override
+        public Optional<UserCredential> findCredentialByEmail(String email) {
+            return findByEmail(email).map(u -> new UserCredential(
+                    u.getId(), u.getUsername(), u.getEmail(), u.getYear(),
+                    u.getRole(), u.isEmailVerified(), u.getPassword()
+            ));
+        }
+
+        @Override
+        public Optional<UserEntity> findById(String id) {
+            return Optional.ofNullable(byId.get(id));
+        }
+
+        @Override
+        public boolean replacePasswordHash(String id, String expectedHash, String newHash) {
+            return false;
+        }
+
+        @Override
+        public Optional<UserEntity> updateProfile(String id, String username, Integer year, Long expectedVersion) {
+            return Optional.empty();
+        }
+
+        @Override
+        public boolean markEmailVerified(String id) {
+            return false;
+        }
+
+        @Override
+        public boolean updatePassword(String id, String expectedHash, String newHash) {
+            return false;
+        }
+
+        int size() {
+            return byId.size();
+        }
+
+        void markVerified(String email) {
+            findByEmail(email).ifPresent(u -> u.setEmailVerified(true));
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.demo.service.user;
+
+import com.example.demo.domain.dto.res.UserResponse;
+import com.example.demo.domain.entities.UserCredential;
+import com.example.demo.domain.entities.UserEntity;
+import com.example.demo.domain.enums.Role;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.exception.CommonError;
+import com.example.demo.service.user.repository.IUserRepository;
+import com.example.demo.share.pagination.CursorCodec;
+import com.example.demo.share.pagination.CursorPageResponse;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keyset pagination (cursor) và export streaming của {@link UserServiceImpl}.
+ */
+class UserServiceImplPagingTest {
+
+    private SortedUserRepository repository;
+    private UserServiceImpl userService;
+
+    @BeforeEach
+    void setUp() {
+        repository = new SortedUserRepository();
+        userService = new UserServiceImpl(repository, null, null, null);
+    }
+
+    // =========================
+    // 📄 CURSOR PAGINATION
+    // =========================
+    @Test
+    void walkAllPages_visitsEveryUserOnceInIdOrder() {
+        List<String> ids = repository.seed(5);
+
+        List<String> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        CursorPageResponse<UserResponse> page;
+        do {
+            page = userService.getUsers(cursor, 2);
+            page.getItems().forEach(u -> seen.add(u.getId()));
+            pageSizes.add(page.getItems().size());
+            cursor = page.getNextCursor();
+        } while (page.isHasMore());
+
+        assertEquals(ids, seen);
+        assertEquals(List.of(2, 2, 1), pageSizes);
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void lastPageExactlyFull_hasNoMore() {
+        repository.seed(4);
+
+        CursorPageResponse<UserResponse> first = userService.getUsers(null, 2);
+        assertTrue(first.isHasMore());
+        assertNotNull(first.getNextCursor());
+
+        // Trang cuối vừa đủ limit: lấy dư 1 phần tử nên không trả cursor tới trang rỗng
+        CursorPageResponse<UserResponse> last = userService.getUsers(first.getNextCursor(), 2);
+        assertEquals(2, last.getItems().size());
+        assertFalse(last.isHasMore());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void emptyCollection_returnsEmptyLastPage() {
+        CursorPageResponse<UserResponse> page = userService.getUsers(null, 50);
+
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void limit_isClampedToPageBounds() {
+        repository.seed(3);
+
+        assertEquals(1, userService.getUsers(null, 0).getLimit());
+        assertEquals(1, userService.getUsers(null, -5).getItems().size());
+        assertEquals(200, userService.getUsers(null, 10_000).getLimit());
+    }
+
+    @Test
+    void nextCursor_pointsAfterLastItem() {
+        List<String> ids = repository.seed(3);
+
+        CursorPageResponse<UserResponse> page = userService.getUsers(null, 1);
+
+        assertEquals(ids.get(0), CursorCodec.decode(page.getNextCursor(), 1)[0]);
+    }
+
+    @Test
+    void tamperedCursorWithNonObjectId_isInvalidRequest() {
+        repository.seed(3);
+        String forged = CursorCodec.encode("'; db.users.drop(); '");
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> userService.getUsers(forged, 2));
+        assertEquals(CommonError.INVALID_REQUEST, ex.getError());
+    }
+
+    @Test
+    void garbageCursor_isInvalidRequest() {
+        BusinessException ex = assertThrows(BusinessException.class, () -> userService.getUsers("@@garbage@@", 2));
+        assertEquals(CommonError.INVALID_REQUEST, ex.getError());
+    }
+
+    // =========================
+    // 📤 EXPORT
+    // =========================
+    @Test
+    void exportUsers_streamsEveryUserInIdOrder() {
+        List<String> ids = repository.seed(7);
+
+        List<String> exported = new ArrayList<>();
+        userService.exportUsers(u -> exported.add(u.getId()));
+
+        assertEquals(ids, exported);
+    }
+
+    /**
+     * Giả lập collection users sắp theo _id (ObjectId tăng dần).
+     */
+    private static class SortedUserRepository implements IUserRepository {
+
+        private final TreeMap<String, UserEntity> byId = new TreeMap<>();
+
+        List<String> seed(int count) {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String id = new ObjectId().toHexString();
+                byId.put(id, UserEntity.builder()
+                        .id(id)
+                        .username("user" + i)
+                        .email("user" + i + "@example.com")
+                        .year(1990)
+                        .role(Role.USER)
+                        .build());
+                ids.add(id);
+            }
+            ids.sort(String::compareTo);
+            return ids;
+        }
+
+        @Override
+        public List<UserEntity> findPageAfter(String afterId, int limit) {
+            var tail = afterId == null ? byId : byId.tailMap(afterId, false);
+            return tail.values().stream().limit(limit).toList();
+        }
+
+        @Override
+        public void forEach(Consumer<UserEntity> consumer) {
+            byId.values().forEach(consumer);
+        }
+
+        @Override
+        public UserEntity save(UserEntity user) {
+            byId.put(user.getId(), user);
+            return user;
+        }
+
+        @Override
+        public UserEntity insert(UserEntity user) {
+            return save(user);
+        }
+
+        @Override
+        public List<UserEntity> findAll() {
+            return new ArrayList<>(byId.values());
+        }
+
+        @Override
+        public boolean existsByEmail(String email) {
+            return false;
+        }
+
+        @Override
+        public boolean existsByUsername(String username) {
+            return false;
+        }
+
+        @Override
+        public Optional<UserEntity> findByEmail(String email) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<UserCredential> findCredentialByEmail(String email) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<UserEntity> findById(String id) {
+            return Optional.ofNullable(byId.get(id));
+        }
+
+        @Override
+        public boolean replacePasswordHash(String id, String expectedHash, String newHash) {
+            return false;
+        }
+
+        @Override
+        public Optional<UserEntity> updateProfile(String id, String username, Integer year, Long expectedVersion) {
+            return Optional.empty();
+        }
+
+        @Override
+        public boolean markEmailVerified(String id) {
+            return false;
+        }
+
+        @Override
+        public boolean updatePassword(String id, String expectedHash, String newHash) {
+            return false;
+        }
+    }
+}
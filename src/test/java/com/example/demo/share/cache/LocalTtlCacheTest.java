@@ -0,0 +1,246 @@
+package com.example.demo.share.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalTtlCacheTest {
+
+    private static final int THREADS = 16;
+
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    // =========================
+    // 🔁 SINGLE-FLIGHT
+    // =========================
+    @Test
+    void concurrentMisses_shareOneLoad() throws Exception {
+        LocalTtlCache<String, Object> cache = new LocalTtlCache<>("test", 100, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderEntered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Object value = new Object();
+
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(pool.submit(() -> cache.get("k", k -> {
+                loads.incrementAndGet();
+                loaderEntered.countDown();
+                await(release);
+                return value;
+            })));
+        }
+
+        assertTrue(loaderEntered.await(5, TimeUnit.SECONDS));
+        // Cho các thread còn lại kịp miss và chờ trên cùng 1 future
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<Object> result : results) {
+            assertSame(value, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().loads());
+    }
+
+    @Test
+    void loaderFailure_propagatesToWaitersAndIsNotCached() throws Exception {
+        LocalTtlCache<String, String> cache = new LocalTtlCache<>("test", 100, Duration.ofMinutes(1));
+        CountDownLatch loaderEntered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = pool.submit(() -> cache.get("k", k -> {
+            loaderEntered.countDown();
+            await(release);
+            throw new IllegalStateException("db down");
+        }));
+        assertTrue(loaderEntered.await(5, TimeUnit.SECONDS));
+        Future<String> waiter = pool.submit(() -> cache.get("k", k -> "never"));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertCause(IllegalStateException.class, first);
+        // waiter dùng chung lần load lỗi, hoặc tự load lại nếu tới sau khi lỗi đã được dọn
+        try {
+            assertEquals("never", waiter.get(5, TimeUnit.SECONDS));
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals("ok", cache.get("k", k -> "ok"));
+    }
+
+    // =========================
+    // 🧹 INVALIDATION
+    // =========================
+    @Test
+    void invalidateDuringLoad_resultIsNotStored() throws Exception {
+        LocalTtlCache<String, String> cache = new LocalTtlCache<>("test", 100, Duration.ofMinutes(1));
+        CountDownLatch loaderEntered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> loading = pool.submit(() -> cache.get("k", k -> {
+            loaderEntered.countDown();
+            await(release);
+            return "stale";
+        }));
+
+        assertTrue(loaderEntered.await(5, TimeUnit.SECONDS));
+        cache.invalidate("k");
+        release.countDown();
+
+        // Caller của lần load đó vẫn nhận giá trị, nhưng cache không giữ lại
+        assertEquals("stale", loading.get(5, TimeUnit.SECONDS));
+        assertNull(cache.getIfPresent("k"));
+        assertEquals("fresh", cache.get("k", k -> "fresh"));
+    }
+
+    @Test
+    void invalidate_removesCachedValue() {
+        LocalTtlCache<String, String> cache = new LocalTtlCache<>("test", 100, Duration.ofMinutes(1));
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        cache.invalidate("a");
+        assertNull(cache.getIfPresent("a"));
+        assertEquals("2", cache.getIfPresent("b"));
+
+        cache.invalidateAll();
+        assertNull(cache.getIfPresent("b"));
+    }
+
+    // =========================
+    // ⏱️ TTL / NULL
+    // =========================
+    @Test
+    void expiredEntry_isReloaded() throws Exception {
+        LocalTtlCache<String, String> cache = new LocalTtlCache<>("test", 100, Duration.ofMillis(50));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("k", k -> "v" + loads.incrementAndGet());
+        assertEquals("v1", cache.get("k", k -> "v" + loads.incrementAndGet()));
+
+        // TTL 50ms ± 10% jitter
+        Thread.sleep(120);
+
+        assertNull(cache.getIfPresent("k"));
+        assertEquals("v2", cache.get("k", k -> "v" + loads.incrementAndGet()));
+    }
+
+    @Test
+    void nullValue_isNotCached() {
+        LocalTtlCache<String, String> cache = new LocalTtlCache<>("test", 100, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.get("k", k -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.get("k", k -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+
+        assertEquals(2, loads.get());
+    }
+
+    // =========================
+    // 📏 SIZE BOUND
+    // =========================
+    @Test
+    void size_staysWithinMaxSize() {
+        LocalTtlCache<Integer, Integer> cache = new LocalTtlCache<>("test", 100, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.get(i, k -> k);
+            assertTrue(cache.stats().size() <= 100, "size=" + cache.stats().size());
+        }
+
+        assertTrue(cache.stats().evictions() >= 900);
+    }
+
+    @Test
+    void size_staysBoundedUnderConcurrentInserts() throws Exception {
+        LocalTtlCache<Integer, Integer> cache = new LocalTtlCache<>("test", 1_000, Duration.ofMinutes(1));
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t * 10_000;
+            writers.add(pool.submit(() -> {
+                await(start);
+                for (int i = 0; i < 10_000; i++) {
+                    cache.put(offset + i, i);
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+
+        // Chỉ 1 thread dọn tại một thời điểm, thread khác ghi tiếp → chỉ vượt tạm thời, không tăng vô hạn
+        assertTrue(cache.stats().size() <= 2_000, "size=" + cache.stats().size());
+        assertTrue(cache.stats().evictions() > 0);
+    }
+
+    @Test
+    void zeroMaxSize_bypassesCache() {
+        LocalTtlCache<String, String> cache = new LocalTtlCache<>("test", 0, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("k", k -> "v" + loads.incrementAndGet());
+        cache.get("k", k -> "v" + loads.incrementAndGet());
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().size());
+    }
+
+    // =========================
+    // 🧰 HELPERS
+    // =========================
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("latch timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void assertCause(Class<? extends Throwable> type, Future<?> future) {
+        ExecutionException e = assertThrows(
+                ExecutionException.class,
+                () -> future.get(5, TimeUnit.SECONDS)
+        );
+        assertTrue(type.isInstance(e.getCause()), String.valueOf(e.getCause()));
+    }
+}
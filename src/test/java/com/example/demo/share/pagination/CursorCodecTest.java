@@ -0,0 +1,89 @@
+package com.example.demo.share.pagination;
+
+import com.example.demo.exception.BusinessException;
+import com.example.demo.exception.CommonError;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorCodecTest {
+
+    @Test
+    void encodeDecode_roundTrip() {
+        String token = CursorCodec.encode("665f1c2ab3e4d5f6a7b8c9d0");
+
+        assertArrayEquals(new String[]{"665f1c2ab3e4d5f6a7b8c9d0"}, CursorCodec.decode(token, 1));
+    }
+
+    @Test
+    void encodeDecode_multiplePartsWithUnicodeAndEmpty() {
+        String token = CursorCodec.encode("Quận 1", "", "a|b");
+
+        assertArrayEquals(new String[]{"Quận 1", "", "a|b"}, CursorCodec.decode(token, 3));
+    }
+
+    @Test
+    void encode_isUrlSafeWithoutPadding() {
+        String token = CursorCodec.encode("??>>~~", "Đ");
+
+        assertFalse(token.contains("+"));
+        assertFalse(token.contains("/"));
+        assertFalse(token.contains("="));
+    }
+
+    @Test
+    void decode_blankToken_meansFirstPage() {
+        assertNull(CursorCodec.decode(null, 1));
+        assertNull(CursorCodec.decode("", 1));
+        assertNull(CursorCodec.decode("   ", 1));
+    }
+
+    @Test
+    void decode_garbage_isInvalidRequest() {
+        assertInvalid("not base64 at all!");
+        assertInvalid("%%%");
+    }
+
+    @Test
+    void decode_wrongPartCount_isInvalidRequest() {
+        String twoParts = CursorCodec.encode("a", "b");
+
+        assertInvalid(twoParts, 1);
+        assertInvalid(twoParts, 3);
+    }
+
+    @Test
+    void decode_unknownVersion_isInvalidRequest() {
+        String forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("v2\u001Fabc".getBytes(StandardCharsets.UTF_8));
+
+        assertInvalid(forged);
+    }
+
+    @Test
+    void decode_validBase64WithoutStructure_isInvalidRequest() {
+        String plain = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("665f1c2ab3e4d5f6a7b8c9d0".getBytes(StandardCharsets.UTF_8));
+
+        assertInvalid(plain);
+    }
+
+    private static void assertInvalid(String token) {
+        assertInvalid(token, 1);
+    }
+
+    private static void assertInvalid(String token, int expectedParts) {
+        BusinessException ex = assertThrows(
+                BusinessException.class,
+                () -> CursorCodec.decode(token, expectedParts)
+        );
+        assertEquals(CommonError.INVALID_REQUEST, ex.getError());
+    }
+}